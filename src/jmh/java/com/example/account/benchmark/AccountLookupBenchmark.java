@@ -0,0 +1,87 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 데이터에서 계좌번호 / 거래 id 조회 지연시간 비교
+ * indexed=false : 마이그레이션이 만든 인덱스를 지운 상태 (full scan)
+ * indexed=true  : V1 스키마의 unique 인덱스 사용
+ * ./gradlew jmh -Pjmh.includes=AccountLookupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountLookupBenchmark {
+    private static final long FIRST_ACCOUNT_NUMBER = 1000000000L;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:lookup;DB_CLOSE_DELAY=-1",
+                        "account.transaction.id.node-id=0",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        accountRepository = context.getBean(AccountRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        if (!indexed) {
+            jdbcTemplate.execute("drop index uk_account_account_number");
+            jdbcTemplate.execute("drop index uk_transaction_transaction_id");
+        }
+        // 계좌와 거래를 rows 건씩 적재한다. (사용자 1 의 계좌, 계좌당 거래 1건)
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, " +
+                "account_status, balance, registered_at, version) " +
+                "select x, 1, cast(? + x as varchar), 'IN_USE', 10000, now(), 0 " +
+                "from system_range(1, ?)", FIRST_ACCOUNT_NUMBER, rows);
+        jdbcTemplate.update("insert into transaction(id, transaction_type, " +
+                "transaction_result_type, account_id, amount, balance_snapshot, " +
+                "transaction_id, transacted_at) " +
+                "select x, 'USE', 'S', x, 100, 9900, lpad(cast(x as varchar), 32, '0'), now() " +
+                "from system_range(1, ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Account> findByAccountNumber() {
+        long x = ThreadLocalRandom.current().nextLong(1, rows + 1L);
+        return accountRepository.findByAccountNumber(String.valueOf(FIRST_ACCOUNT_NUMBER + x));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findByTransactionId() {
+        long x = ThreadLocalRandom.current().nextLong(1, rows + 1L);
+        return transactionRepository.findByTransactionId(
+                String.format("%032d", x));
+    }
+}
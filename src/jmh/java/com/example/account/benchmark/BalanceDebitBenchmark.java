@@ -0,0 +1,58 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.dto.TransactionDto;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 경로 비교
+ * LOCK   : 사용자/계좌 엔티티 조회 + dirty checking (분산 lock 은 컨트롤러 aspect 라 포함되지 않음)
+ * ATOMIC : 조건부 UPDATE 한 번
+ * ./gradlew jmh -Pjmh.includes=BalanceDebitBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BalanceDebitBenchmark {
+    private static final Long USER_ID = 1L;
+
+    @Param({"LOCK", "ATOMIC"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private String accountNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "account.transaction.concurrency-mode=" + mode,
+                        "account.transaction.id.node-id=0",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        accountNumber = context.getBean(AccountService.class)
+                .createAccount(USER_ID, Long.MAX_VALUE / 2)
+                .getAccountNumber();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        return transactionService.useBalance(USER_ID, accountNumber, 10L);
+    }
+}
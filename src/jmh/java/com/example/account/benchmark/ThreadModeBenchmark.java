@@ -0,0 +1,180 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import jdk.jfr.consumer.RecordingStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 처리 스레드 모델 비교 (spring.threads.virtual.enabled)
+ * 애플리케이션 전체(Tomcat, TransactionController, @AccountLock 의 Redisson lock, JPA/Hikari, H2)를
+ * 띄우고 POST /transaction/use 를 concurrency 개 동시에 보내 모두 응답할 때까지의 시간을 잰다.
+ * 요청마다 다른 계좌를 쓰므로 lock 경합은 없고, 컨트롤러의 3초 대기, lock 왕복, JDBC 가 블로킹 구간이다.
+ * PLATFORM : Tomcat 기본 스레드 풀 (200개)
+ * VIRTUAL  : 요청마다 가상 스레드
+ * 보조 지표 (측정 구간의 최대값, 같은 JVM 의 HTTP 클라이언트 포함)
+ * peakThreads  : 플랫폼 스레드 수
+ * heapUsedMb   : 사용 중인 힙
+ * rssMb        : 프로세스 RSS (/proc/self/status, Linux 에서만)
+ * pinnedEvents : 가상 스레드가 carrier 에 고정된 채 대기한 횟수 (JFR jdk.VirtualThreadPinned)
+ * failedRequests : 200 이 아닌 응답 수
+ * ./gradlew jmh -Pjmh.includes=ThreadModeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadModeBenchmark {
+    private static final long FIRST_ACCOUNT_NUMBER = 1000000000L;
+    private static final long SAMPLE_MILLIS = 20L;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"1000", "4000"})
+    public int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private ExecutorService clientExecutor;
+    private URI useUri;
+    private RecordingStream pinnedEvents;
+    private final LongAdder pinned = new LongAdder();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResourceCounters {
+        public long peakThreads;
+        public long heapUsedMb;
+        public long rssMb;
+        public long pinnedEvents;
+        public long failedRequests;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AccountApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + "VIRTUAL".equals(mode),
+                        "spring.datasource.url=jdbc:h2:mem:thread-mode;DB_CLOSE_DELAY=-1",
+                        "account.transaction.id.node-id=0",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        useUri = URI.create("http://127.0.0.1:" + port + "/transaction/use");
+
+        // 요청마다 다른 계좌 (사용자 1, 잔액은 모든 측정에 충분하게)
+        context.getBean(JdbcTemplate.class).update("insert into account(id, account_user_id, " +
+                "account_number, account_status, balance, registered_at, version) " +
+                "select x, 1, cast(? + x as varchar), 'IN_USE', 1000000000, now(), 0 " +
+                "from system_range(1, ?)", FIRST_ACCOUNT_NUMBER, concurrency);
+
+        // 클라이언트는 NIO 로 보내고 받으므로 스레드 몇 개면 된다.
+        clientExecutor = Executors.newFixedThreadPool(4);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+
+        pinnedEvents = new RecordingStream();
+        pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+        pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> pinned.increment());
+        pinnedEvents.startAsync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pinnedEvents.close();
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeaks() {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @Benchmark
+    public int handleBurst(ResourceCounters counters) throws Exception {
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakRss = new AtomicLong();
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                peakHeap.accumulateAndGet(
+                        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+                peakRss.accumulateAndGet(rssBytes(), Math::max);
+                try {
+                    Thread.sleep(SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "thread-mode-sampler");
+        sampler.start();
+
+        long pinnedBefore = pinned.sum();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 1; i <= concurrency; i++) {
+            HttpRequest request = HttpRequest.newBuilder(useUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"userId\":1,\"accountNumber\":\"" + (FIRST_ACCOUNT_NUMBER + i)
+                                    + "\",\"amount\":10}"))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        long failed = 0L;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() != 200) {
+                failed++;
+            }
+        }
+
+        sampling.set(false);
+        sampler.join();
+        counters.peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        counters.heapUsedMb = Math.max(counters.heapUsedMb, peakHeap.get() >> 20);
+        counters.rssMb = Math.max(counters.rssMb, peakRss.get() >> 20);
+        counters.pinnedEvents += pinned.sum() - pinnedBefore;
+        counters.failedRequests += failed;
+        return responses.size();
+    }
+
+    // VmRSS: 12345 kB
+    private static long rssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024L;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0L;
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.benchmark;
+
+import com.example.account.id.TimeOrderedTransactionIdGenerator;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.id.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 id 생성 비교 (여러 스레드에서 동시에 생성)
+ * UUID         : SecureRandom + toString + replace
+ * TIME_ORDERED : timestamp/순번을 char 배열에 바로 기록
+ * 할당량은 -prof gc 로 확인한다.
+ * ./gradlew jmh -Pjmh.includes=TransactionIdBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class TransactionIdBenchmark {
+    @Param({"UUID", "TIME_ORDERED"})
+    public String generator;
+
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionIdGenerator = generator.equals("UUID")
+                ? new UuidTransactionIdGenerator()
+                : new TimeOrderedTransactionIdGenerator(1);
+    }
+
+    @Benchmark
+    public String generate() {
+        return transactionIdGenerator.generate();
+    }
+}
@@ -2,8 +2,15 @@ package com.example.account;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC 연결과 트랜잭션 매니저는 reactive API 가 켜진 경우에만 ReactiveTransactionConfig 에서 만든다.
+// (자동 설정된 ReactiveTransactionManager 가 JPA 트랜잭션 매니저와 충돌하지 않도록)
+@SpringBootApplication(exclude = {
+        R2dbcAutoConfiguration.class,
+        R2dbcTransactionManagerAutoConfiguration.class
+})
 public class AccountApplication {
 
     public static void main(String[] args) {
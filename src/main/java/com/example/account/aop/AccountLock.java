@@ -2,11 +2,21 @@ package com.example.account.aop;
 
 import java.lang.annotation.*;
 
+/**
+ * 계좌번호 단위로 요청을 직렬화한다. (LockAopAspect)
+ * 반환 타입이 CompletableFuture 인 메소드는 lock 을 비동기로 취득해 대기 중에 요청 스레드를 붙잡지 않는다.
+ */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 @Inherited
 public @interface AccountLock {
-    long trylockTime() default 5000L;
+    // lock 대기 시간 (ms)
+    long waitTime() default 1000L;
 
+    // lock 보유 최대 시간 (ms), 지나면 자동 해제된다.
+    long leaseTime() default 15000L;
+
+    // true 면 다른 요청이 lock 을 잡고 있을 때 기다리지 않고 바로 실패한다.
+    boolean failFast() default false;
 }
@@ -0,0 +1,11 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+// OPTIMISTIC 모드에서 버전 충돌 시 트랜잭션을 새로 시작해 재시도할 메소드
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface OptimisticRetry {
+}
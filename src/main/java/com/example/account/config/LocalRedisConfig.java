@@ -4,10 +4,12 @@ package com.example.account.config;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import redis.embedded.RedisServer;
 
 @Configuration
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "REDIS", matchIfMissing = true)
 public class LocalRedisConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
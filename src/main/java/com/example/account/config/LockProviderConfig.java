@@ -0,0 +1,31 @@
+package com.example.account.config;
+
+import com.example.account.lock.InMemoryLockProvider;
+import com.example.account.lock.LockProvider;
+import com.example.account.lock.RedissonLockProvider;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * account.lock.provider 로 lock 저장소를 선택한다.
+ * IN_MEMORY     : 단일 노드 배포, Redis 없이 JVM 안에서 lock 처리
+ * REDIS         : Redis 하나 (기본값)
+ * SHARDED_REDIS : 여러 Redis 에 key hash 로 분산 (ShardedRedisConfig)
+ */
+@Configuration
+public class LockProviderConfig {
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "IN_MEMORY")
+    public LockProvider inMemoryLockProvider() {
+        return new InMemoryLockProvider();
+    }
+
+    // RedissonClient 는 별도 bean 으로 종료되므로 provider 에서 종료하지 않는다.
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "REDIS", matchIfMissing = true)
+    public LockProvider redissonLockProvider(RedissonClient redissonClient) {
+        return new RedissonLockProvider(redissonClient);
+    }
+}
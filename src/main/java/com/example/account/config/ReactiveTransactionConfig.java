@@ -0,0 +1,97 @@
+package com.example.account.config;
+
+import com.example.account.controller.ReactiveTransactionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * reactive 잔액 API 서버 (account.reactive.enabled)
+ * MVC(Tomcat) 와 별도로 account.reactive.port 에서 Netty 서버를 띄운다.
+ * 요청은 event-loop-threads 개의 이벤트 루프 스레드에서만 처리하고,
+ * DB 는 R2DBC 커넥션 풀, 계좌 lock 은 LockService 의 비동기 취득을 사용한다.
+ * ReactiveTransactionManager 는 bean 으로 등록하지 않는다. (JPA @Transactional 이 사용하는 트랜잭션 매니저와 구분)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.reactive.enabled", havingValue = "true")
+public class ReactiveTransactionConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionPool(
+            @Value("${account.reactive.r2dbc.url}") String url,
+            @Value("${account.reactive.r2dbc.username:}") String username,
+            @Value("${account.reactive.r2dbc.password:}") String password,
+            @Value("${account.reactive.r2dbc.max-pool-size:20}") int maxPoolSize
+    ) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(maxPoolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ConnectionPool reactiveConnectionPool) {
+        return DatabaseClient.create(reactiveConnectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionPool reactiveConnectionPool) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(reactiveConnectionPool));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources reactiveLoopResources(
+            @Value("${account.reactive.event-loop-threads:4}") int eventLoopThreads
+    ) {
+        return LoopResources.create("account-reactive", eventLoopThreads, true);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveTransactionServer(
+            ReactiveTransactionHandler reactiveTransactionHandler,
+            LoopResources reactiveLoopResources,
+            ObjectMapper objectMapper,
+            @Value("${account.reactive.port:8081}") int port
+    ) {
+        // 요청/응답 JSON 은 MVC 와 같은 ObjectMapper 로 변환한다.
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                })
+                .build();
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(
+                RouterFunctions.toHttpHandler(reactiveTransactionHandler.routes(), strategies));
+
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .runOn(reactiveLoopResources)
+                .handle(adapter)
+                .bindNow();
+        log.info("Reactive transaction API started on port {}", server.port());
+        return server;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.account.config;
+
+import com.example.account.lock.RedissonLockProvider;
+import com.example.account.lock.ShardedRedissonLockProvider;
+import jakarta.annotation.PreDestroy;
+import org.redisson.Redisson;
+import org.redisson.config.Config;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHARDED_REDIS lock 저장소
+ * embedded 가 true 면 각 port 로 embedded Redis 를 띄운다. (로컬, 테스트용)
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "SHARDED_REDIS")
+public class ShardedRedisConfig {
+    @Value("${account.lock.sharded.host:127.0.0.1}")
+    private String redisHost;
+
+    @Value("${account.lock.sharded.ports:6380,6381,6382}")
+    private List<Integer> redisPorts;
+
+    @Value("${account.lock.sharded.embedded:true}")
+    private boolean embedded;
+
+    private final List<RedisServer> redisServers = new ArrayList<>();
+
+    @Bean
+    public ShardedRedissonLockProvider shardedRedissonLockProvider() {
+        List<RedissonLockProvider> shards = new ArrayList<>();
+        for (Integer redisPort : redisPorts) {
+            if (embedded) {
+                RedisServer redisServer = new RedisServer(redisPort);
+                redisServer.start();
+                redisServers.add(redisServer);
+            }
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+            shards.add(new RedissonLockProvider(Redisson.create(config)));
+        }
+        return new ShardedRedissonLockProvider(shards);
+    }
+
+    @PreDestroy
+    public void stopRedis() {
+        redisServers.forEach(RedisServer::stop);
+    }
+}
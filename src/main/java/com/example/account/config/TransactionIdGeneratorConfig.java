@@ -0,0 +1,41 @@
+package com.example.account.config;
+
+import com.example.account.id.TimeOrderedTransactionIdGenerator;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.id.UuidTransactionIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * account.transaction.id.generator 로 거래 id 생성 방식을 선택한다.
+ * TIME_ORDERED : 시간 순서 + 노드 id (기본값)
+ * UUID         : 무작위 UUID
+ */
+@Configuration
+public class TransactionIdGeneratorConfig {
+    /**
+     * node-id 는 노드마다 다르게 지정해야 한다. (필수)
+     * 노드 안의 순번은 시작할 때마다 0 부터 다시 세므로, 노드 id 가 겹치면 같은 밀리초의 id 가 겹친다.
+     * 무작위로 고르지 않고 지정하지 않으면 시작하지 않는다.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "account.transaction.id.generator",
+            havingValue = "TIME_ORDERED", matchIfMissing = true)
+    public TransactionIdGenerator timeOrderedTransactionIdGenerator(
+            @Value("${account.transaction.id.node-id:-1}") int nodeId) {
+        if (nodeId < 0) {
+            throw new IllegalStateException(
+                    "account.transaction.id.node-id is required for TIME_ORDERED transaction ids (0 ~ "
+                            + TimeOrderedTransactionIdGenerator.MAX_NODE_ID + ")");
+        }
+        return new TimeOrderedTransactionIdGenerator(nodeId);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.transaction.id.generator", havingValue = "UUID")
+    public TransactionIdGenerator uuidTransactionIdGenerator() {
+        return new UuidTransactionIdGenerator();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.ErrorResponse;
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.LockService;
+import com.example.account.service.ReactiveAccountLock;
+import com.example.account.service.ReactiveTransactionService;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static com.example.account.type.ErrorCode.INTERNAL_SERVER_ERROR;
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * reactive 잔액 API (account.reactive.enabled)
+ * TransactionController 의 잔액 사용 / 잔액 사용 취소 / 거래 확인과 같은 요청, 응답, ErrorCode 를 사용한다.
+ * MVC 가 처리하지 않도록 컨트롤러가 아닌 함수형 route 로 만들어 별도 포트의 Netty 서버에 올린다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.reactive.enabled", havingValue = "true")
+public class ReactiveTransactionHandler {
+    // 잔액 사용 취소는 경합 시 버려지지 않도록 더 오래 기다린다. (TransactionController 와 같다)
+    private static final long CANCEL_WAIT_MILLIS = 3000L;
+
+    private final ReactiveTransactionService reactiveTransactionService;
+    private final ReactiveAccountLock reactiveAccountLock;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final Validator validator;
+
+    public RouterFunction<ServerResponse> routes() {
+        return route(POST("/transaction/use"), this::useBalance)
+                .andRoute(POST("/transaction/cancel"), this::cancelBalance)
+                .andRoute(GET("/transaction/{transactionId}"), this::queryTransaction);
+    }
+
+    // 잔액 사용
+    Mono<ServerResponse> useBalance(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(UseBalance.Request.class)
+                .flatMap(this::validate)
+                .flatMap(request -> reactiveAccountLock.withLock(request.getAccountNumber(),
+                                LockService.DEFAULT_WAIT_MILLIS, LockService.DEFAULT_LEASE_MILLIS,
+                                () -> reactiveTransactionService.useBalance(request.getUserId(),
+                                        request.getAccountNumber(), request.getAmount()))
+                        .map(UseBalance.Response::from)
+                        .onErrorResume(AccountException.class, e -> {
+                            log.error("Failed to use balance. ");
+                            return record(() -> failedTransactionRecorder.recordUse(
+                                    request.getAccountNumber(), request.getAmount(),
+                                    e.getErrorCode()))
+                                    .then(Mono.error(e));
+                        }))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response))
+                .onErrorResume(this::errorResponse);
+    }
+
+    // 잔액 사용 취소
+    Mono<ServerResponse> cancelBalance(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(CancelBalance.Request.class)
+                .flatMap(this::validate)
+                .flatMap(request -> reactiveAccountLock.withLock(request.getAccountNumber(),
+                                CANCEL_WAIT_MILLIS, LockService.DEFAULT_LEASE_MILLIS,
+                                () -> reactiveTransactionService.cancelBalance(
+                                        request.getTransactionId(), request.getAccountNumber(),
+                                        request.getAmount()))
+                        .map(CancelBalance.Response::from)
+                        .onErrorResume(AccountException.class, e -> {
+                            log.error("Failed to cancel balance. ");
+                            return record(() -> failedTransactionRecorder.recordCancel(
+                                    request.getAccountNumber(), request.getAmount(),
+                                    e.getErrorCode()))
+                                    .then(Mono.error(e));
+                        }))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response))
+                .onErrorResume(this::errorResponse);
+    }
+
+    // 거래 확인
+    Mono<ServerResponse> queryTransaction(ServerRequest serverRequest) {
+        return reactiveTransactionService
+                .queryTransaction(serverRequest.pathVariable("transactionId"))
+                .map(QueryTransactionResponse::from)
+                .flatMap(response -> ServerResponse.ok().bodyValue(response))
+                .onErrorResume(this::errorResponse);
+    }
+
+    private <T> Mono<T> validate(T request) {
+        if (!validator.validate(request).isEmpty()) {
+            return Mono.error(new AccountException(INVALID_REQUEST));
+        }
+        return Mono.just(request);
+    }
+
+    // CALLER_RUNS 정책에서는 기록이 DB 저장까지 할 수 있으므로 이벤트 루프 밖에서 실행한다.
+    private static Mono<Void> record(Runnable recording) {
+        return Mono.fromRunnable(recording)
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    // GlobalExceptionHandler 와 같은 응답
+    private Mono<ServerResponse> errorResponse(Throwable e) {
+        if (e instanceof AccountException accountException) {
+            log.error("{} is occured.", accountException.getErrorCode());
+            return ServerResponse.ok().bodyValue(new ErrorResponse(
+                    accountException.getErrorCode(), accountException.getErrorMessage()));
+        }
+        log.error("Exception is occured.", e);
+        return ServerResponse.ok().bodyValue(new ErrorResponse(
+                INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR.getDescription()));
+    }
+}
@@ -2,27 +2,57 @@ package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.FailedTransactionRollupDto;
 import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.Transfer;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.service.BatchTransactionService;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.FailedTransactionRollupStore;
+import com.example.account.service.GroupCommitService;
+import com.example.account.service.ShardedTransactionExecutor;
 import com.example.account.service.TransactionService;
+import com.example.account.service.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 사용, 잔액 사용 취소 (비동기) - 계좌별 shard 스레드에서 처리하고 요청 스레드는 바로 반환한다.
+ * 5. 실패 거래 집계 조회 (ROLLUP 모드)
+ * 6. 잔액 사용 일괄 - 계좌별로 lock 을 한 번만 잡고 건별 결과를 반환한다.
+ * 7. 계좌 이체 - 두 계좌의 lock 을 함께 잡고 한 트랜잭션에서 출금과 입금을 처리한다.
+ * 그룹 커밋을 켜면 1, 2 는 같은 계좌의 동시 요청과 묶어 lock 한 번, 커밋 한 번으로 처리한다.
+ * SHARDED 모드에서는 1, 2 의 계좌 변경만 shard 스레드에서 처리하고 나머지는 요청 스레드에서 한다.
+ * LEDGER 모드에서는 1, 2, 4 를 메모리 원장(LedgerEngine)에서 처리한다.
+ * 실패 거래는 FailedTransactionRecorder 의 대기열에 넣고 백그라운드에서 저장한다.
  */
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final ShardedTransactionExecutor shardedTransactionExecutor;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final FailedTransactionRollupStore failedTransactionRollupStore;
+    private final BatchTransactionService batchTransactionService;
+    private final TransferService transferService;
+    private final GroupCommitService groupCommitService;
+    private final LedgerEngine ledgerEngine;
 
     @AccountLock
     @PostMapping("/transaction/use")
@@ -32,29 +62,63 @@ public class TransactionController {
 
         try {
             Thread.sleep(3000L);
+            if (ledgerEngine.isEnabled()) {
+                return UseBalance.Response.from(
+                    ledgerEngine.useBalance(request.getUserId(),
+                        request.getAccountNumber(), request.getAmount()));
+            }
+            if (groupCommitService.coalesces(request)) {
+                return UseBalance.Response.from(
+                    groupCommitService.useBalance(request.getUserId(),
+                        request.getAccountNumber(), request.getAmount()));
+            }
+            // SHARDED 모드는 계좌 변경만 shard 스레드에서 실행한다.
+            if (shardedTransactionExecutor.isSharded()) {
+                return UseBalance.Response.from(
+                    shardedTransactionExecutor.call(request.getAccountNumber(),
+                        () -> transactionService.useBalance(request.getUserId(),
+                            request.getAccountNumber(), request.getAmount())));
+            }
             return UseBalance.Response.from(
                 transactionService.useBalance(request.getUserId(),
                     request.getAccountNumber(), request.getAmount()));
         } catch (AccountException e) {
             log.error("Failed to use balance. ");
 
-            transactionService.saveFailedUseTransaction(
+            failedTransactionRecorder.recordUse(
                     request.getAccountNumber(),
-                    request.getAmount()
+                    request.getAmount(),
+                    e.getErrorCode()
             );
             throw e;
         }
     }
 
-    // 잔액 사용 취소
+    // 잔액 사용 취소 - 취소는 경합 시 버려지지 않도록 더 오래 기다린다.
     @PostMapping("/transaction/cancel")
-    @AccountLock
+    @AccountLock(waitTime = 3000L)
     public CancelBalance.Response useBalance(
             @Valid @RequestBody CancelBalance.Request request
     ){
 
         try {
             // 잔액사용취소 처리를 시도한다.
+            if (ledgerEngine.isEnabled()) {
+                return CancelBalance.Response.from(
+                        ledgerEngine.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount()));
+            }
+            if (groupCommitService.coalesces(request)) {
+                return CancelBalance.Response.from(
+                        groupCommitService.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount()));
+            }
+            if (shardedTransactionExecutor.isSharded()) {
+                return CancelBalance.Response.from(
+                        shardedTransactionExecutor.call(request.getAccountNumber(),
+                                () -> transactionService.cancelBalance(request.getTransactionId(),
+                                        request.getAccountNumber(), request.getAmount())));
+            }
             return CancelBalance.Response.from(
                     transactionService.cancelBalance(request.getTransactionId(),
                             request.getAccountNumber(), request.getAmount()));
@@ -62,14 +126,106 @@ public class TransactionController {
             // 잔액사용취소 처리가 실패 시, 로그를 남기고 실패 트랜잭션을 저장한다.
             log.error("Failed to use balance. ");
 
-            transactionService.saveFailedCancelTransaction(
+            failedTransactionRecorder.recordCancel(
                     request.getAccountNumber(),
-                    request.getAmount()
+                    request.getAmount(),
+                    e.getErrorCode()
             );
             throw e;
         }
     }
 
+    // 잔액 사용 일괄 - 실패한 건은 건별 ErrorCode 로 응답하고, 나머지 건은 처리한다.
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request
+    ) {
+        return new UseBalanceBatch.Response(
+                batchTransactionService.useBalance(request.getItems()));
+    }
+
+    // 계좌 이체
+    @PostMapping("/transaction/transfer")
+    public Transfer.Response transfer(
+            @Valid @RequestBody Transfer.Request request
+    ) {
+        return Transfer.Response.from(transferService.transfer(request.getUserId(),
+                request.getFromAccountNumber(), request.getToAccountNumber(),
+                request.getAmount()));
+    }
+
+    // 잔액 사용 (비동기)
+    @AccountLock
+    @PostMapping("/transaction/use/async")
+    public CompletableFuture<UseBalance.Response> useBalanceAsync(
+            @Valid @RequestBody UseBalance.Request request
+    ) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.useBalanceAsync(request.getUserId(),
+                            request.getAccountNumber(), request.getAmount())
+                    .whenComplete((transactionDto, e) -> {
+                        if (e instanceof AccountException accountException) {
+                            log.error("Failed to use balance. ");
+                            failedTransactionRecorder.recordUse(request.getAccountNumber(),
+                                    request.getAmount(), accountException.getErrorCode());
+                        }
+                    })
+                    .thenApply(UseBalance.Response::from);
+        }
+        return shardedTransactionExecutor.submit(request.getAccountNumber(), () -> {
+            try {
+                return UseBalance.Response.from(
+                        transactionService.useBalance(request.getUserId(),
+                                request.getAccountNumber(), request.getAmount()));
+            } catch (AccountException e) {
+                log.error("Failed to use balance. ");
+
+                failedTransactionRecorder.recordUse(
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        e.getErrorCode()
+                );
+                throw e;
+            }
+        });
+    }
+
+    // 잔액 사용 취소 (비동기)
+    @AccountLock(waitTime = 3000L)
+    @PostMapping("/transaction/cancel/async")
+    public CompletableFuture<CancelBalance.Response> cancelBalanceAsync(
+            @Valid @RequestBody CancelBalance.Request request
+    ) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.cancelBalanceAsync(request.getTransactionId(),
+                            request.getAccountNumber(), request.getAmount())
+                    .whenComplete((transactionDto, e) -> {
+                        if (e instanceof AccountException accountException) {
+                            log.error("Failed to cancel balance. ");
+                            failedTransactionRecorder.recordCancel(request.getAccountNumber(),
+                                    request.getAmount(), accountException.getErrorCode());
+                        }
+                    })
+                    .thenApply(CancelBalance.Response::from);
+        }
+        return shardedTransactionExecutor.submit(request.getAccountNumber(), () -> {
+            try {
+                return CancelBalance.Response.from(
+                        transactionService.cancelBalance(request.getTransactionId(),
+                                request.getAccountNumber(), request.getAmount()));
+            } catch (AccountException e) {
+                log.error("Failed to cancel balance. ");
+
+                failedTransactionRecorder.recordCancel(
+                        request.getAccountNumber(),
+                        request.getAmount(),
+                        e.getErrorCode()
+                );
+                throw e;
+            }
+        });
+    }
+
     // 거래 확인
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(
@@ -78,4 +234,14 @@ public class TransactionController {
         return QueryTransactionResponse.from(transactionService
                 .queryTransaction(transactionId));
     }
+
+    // 실패 거래 집계 조회 - 기간 안의 (거래 종류, 실패 사유, 시간 구간) 별 실패 횟수
+    @GetMapping("/transaction/failures")
+    public List<FailedTransactionRollupDto> getFailedTransactionRollups(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return failedTransactionRollupStore.getRollups(accountNumber, from, to);
+    }
 }
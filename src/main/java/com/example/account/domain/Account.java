@@ -1,6 +1,7 @@
 package com.example.account.domain;
 
 import com.example.account.exception.AccountException;
+import com.example.account.index.AccountIndexListener;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import jakarta.persistence.*;
@@ -17,6 +18,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@EntityListeners(AccountIndexListener.class)
 public class Account extends BaseEntity{
     @ManyToOne
     private AccountUser accountUser;
@@ -29,6 +31,10 @@ public class Account extends BaseEntity{
     private LocalDateTime registeredAt;
     private LocalDateTime unregisteredAt;
 
+    // OPTIMISTIC 모드에서 잔액 동시 수정 감지
+    @Version
+    private Long version;
+
     // 잔액 사용
     public void useBalance(Long amount) {
         if (amount > balance) {
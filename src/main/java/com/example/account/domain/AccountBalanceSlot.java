@@ -0,0 +1,23 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ManyToOne;
+import lombok.*;
+
+/**
+ * 계좌의 보조 잔액 slot (BalanceStripes)
+ * 입금이 몰리는 계좌는 입금을 계좌 row 대신 slot 에 나눠 더한다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class AccountBalanceSlot extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+    private Integer slotIndex;
+    private Long balance;
+}
@@ -0,0 +1,23 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+/**
+ * 계좌번호 발급 카운터
+ * 각 노드는 nextValue 를 block 크기만큼 올려서 [이전 값, 올린 값) 구간을 예약하고 메모리에서 발급한다.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountNumberSequence {
+    @Id
+    private String name;
+
+    // 아직 예약되지 않은 첫 번째 계좌번호
+    private Long nextValue;
+}
@@ -1,9 +1,6 @@
 package com.example.account.domain;
 
-import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.Id;
-import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -18,8 +15,13 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 @EntityListeners(AuditingEntityListener.class)
 public class BaseEntity {
+    /**
+     * 시퀀스를 allocationSize 만큼 한 번에 예약하고 메모리에서 id 를 발급한다. (pooled-lo)
+     * insert 마다 시퀀스를 조회하지 않으므로 jdbc batch insert 로 묶을 수 있다.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entity_id_seq")
+    @SequenceGenerator(name = "entity_id_seq", sequenceName = "entity_id_seq", allocationSize = 50)
     private Long id;
 
     @CreatedDate
@@ -0,0 +1,33 @@
+package com.example.account.domain;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 실패 거래 집계
+ * (계좌번호, 거래 종류, 실패 사유, 시간 구간) 별로 실패 횟수와 금액 합계를 센다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class FailedTransactionRollup extends BaseEntity {
+    private String accountNumber;
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private ErrorCode errorCode;
+    // 집계 구간 시작 시각
+    private LocalDateTime bucketStart;
+
+    private Long attempts;
+    private Long totalAmount;
+}
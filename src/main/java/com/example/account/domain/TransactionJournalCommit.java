@@ -0,0 +1,37 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * 저널 기록의 DB 커밋 표시
+ * 저널 기록과 같은 트랜잭션에서 넣으므로, row 가 있으면 그 seq 의 거래가 커밋되었다.
+ * journalId 는 저널 디렉터리마다 만든 id 로, 노드마다 따로 매기는 seq 를 구분한다.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(TransactionJournalCommit.Key.class)
+public class TransactionJournalCommit {
+    @Id
+    private String journalId;
+    @Id
+    private Long seq;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String journalId;
+        private Long seq;
+    }
+}
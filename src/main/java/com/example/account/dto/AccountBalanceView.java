@@ -0,0 +1,8 @@
+package com.example.account.dto;
+
+// 계좌 엔티티를 로딩하지 않고 id 와 잔액만 조회하는 projection
+public interface AccountBalanceView {
+    Long getId();
+
+    Long getBalance();
+}
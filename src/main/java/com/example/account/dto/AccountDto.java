@@ -28,4 +28,11 @@ public class AccountDto {
                 .unRegisteredAt(account.getUnregisteredAt())
                 .build();
     }
+
+    // 분할 계좌처럼 잔액을 따로 합산한 경우
+    public static AccountDto fromEntity(Account account, Long balance) {
+        AccountDto accountDto = fromEntity(account);
+        accountDto.setBalance(balance);
+        return accountDto;
+    }
 }
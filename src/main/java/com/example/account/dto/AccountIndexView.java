@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+
+// 계좌 색인(AccountIndex)에 넣을 값만 조회하는 projection
+public interface AccountIndexView {
+    Long getId();
+
+    String getAccountNumber();
+
+    Long getOwnerId();
+
+    AccountStatus getAccountStatus();
+
+    Long getBalance();
+
+    Long getVersion();
+}
@@ -0,0 +1,16 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+
+// 메모리 원장(LedgerEngine)을 다시 만들 때 계좌 엔티티를 로딩하지 않고 필요한 값만 조회하는 projection
+public interface AccountLedgerView {
+    Long getId();
+
+    String getAccountNumber();
+
+    Long getOwnerId();
+
+    AccountStatus getAccountStatus();
+
+    Long getBalance();
+}
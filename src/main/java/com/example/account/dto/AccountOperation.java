@@ -0,0 +1,44 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 한 계좌에 모아서 처리하는 잔액 사용 / 잔액 사용 취소 (GroupCommitService)
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class AccountOperation {
+    // USE 또는 CANCEL
+    private final TransactionType transactionType;
+    // 잔액 사용자 (USE)
+    private final Long userId;
+    // 취소할 거래 id (CANCEL)
+    private final String transactionId;
+    private final String accountNumber;
+    private final Long amount;
+
+    public static AccountOperation use(Long userId, String accountNumber, Long amount) {
+        return new AccountOperation(TransactionType.USE, userId, null, accountNumber, amount);
+    }
+
+    public static AccountOperation cancel(String transactionId, String accountNumber,
+                                          Long amount) {
+        return new AccountOperation(TransactionType.CANCEL, null, transactionId,
+                accountNumber, amount);
+    }
+
+    // 건별 결과 - 성공하면 거래, 실패하면 ErrorCode
+    public record Result(TransactionDto transaction, ErrorCode errorCode) {
+        public static Result success(TransactionDto transaction) {
+            return new Result(transaction, null);
+        }
+
+        public static Result failure(ErrorCode errorCode) {
+            return new Result(null, errorCode);
+        }
+    }
+}
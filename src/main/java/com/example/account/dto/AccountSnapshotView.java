@@ -0,0 +1,10 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+
+// lock 전 검증용 계좌 상태와 잔액 projection
+public interface AccountSnapshotView {
+    AccountStatus getAccountStatus();
+
+    Long getBalance();
+}
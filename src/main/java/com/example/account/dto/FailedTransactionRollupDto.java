@@ -0,0 +1,33 @@
+package com.example.account.dto;
+
+import com.example.account.domain.FailedTransactionRollup;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailedTransactionRollupDto {
+    private String accountNumber;
+    private TransactionType transactionType;
+    private ErrorCode errorCode;
+    private LocalDateTime bucketStart;
+    private Long attempts;
+    private Long totalAmount;
+
+    public static FailedTransactionRollupDto fromEntity(FailedTransactionRollup rollup) {
+        return FailedTransactionRollupDto.builder()
+                .accountNumber(rollup.getAccountNumber())
+                .transactionType(rollup.getTransactionType())
+                .errorCode(rollup.getErrorCode())
+                .bucketStart(rollup.getBucketStart())
+                .attempts(rollup.getAttempts())
+                .totalAmount(rollup.getTotalAmount())
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HotAccount {
+    private String accountNumber;
+    // 최근 집계 구간 동안 lock 경합이 발생한 횟수
+    private long contentionCount;
+}
@@ -0,0 +1,19 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+// 잔액 사용 취소 검증에 필요한 거래 정보만 조회하는 projection
+public interface TransactionCancelView {
+    TransactionType getTransactionType();
+
+    TransactionResultType getTransactionResultType();
+
+    String getAccountNumber();
+
+    Long getAmount();
+
+    LocalDateTime getTransactedAt();
+}
@@ -0,0 +1,77 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+public class Transfer { // 계좌 이체 요청, 응답 객체
+    /**
+     * {
+     *     "userId":1,
+     *     "fromAccountNumber":"1000000000",
+     *     "toAccountNumber":"1000000001",
+     *     "amount":1000
+     * }
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10) // 최소거래금액 10원
+        @Max(1_000_000_000) // 최대거래금액 10억
+        private Long amount;
+    }
+
+    /**
+     * {
+     *     "fromAccountNumber":"1000000000",
+     *     "toAccountNumber":"1000000001",
+     *     "transactionResult":"S",
+     *     "withdrawTransactionId":"c2033bb6d82a4250aecf8e27c49b63f6",
+     *     "depositTransactionId":"c2033bb6d82a4250aecf8e27c49b63f7",
+     *     "amount":1000,
+     *     "transactionAt":"2024-02-23T23:26:14.671859"
+     * }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResult;
+        private String withdrawTransactionId;
+        private String depositTransactionId;
+        private Long amount;
+        private LocalDateTime transactionAt;
+
+        public static Response from(TransferDto transferDto) {
+            return Response.builder()
+                    .fromAccountNumber(transferDto.getWithdraw().getAccountNumber())
+                    .toAccountNumber(transferDto.getDeposit().getAccountNumber())
+                    .transactionResult(transferDto.getWithdraw().getTransactionResultType())
+                    .withdrawTransactionId(transferDto.getWithdraw().getTransactionId())
+                    .depositTransactionId(transferDto.getDeposit().getTransactionId())
+                    .amount(transferDto.getWithdraw().getAmount())
+                    .transactionAt(transferDto.getWithdraw().getTransactedAt())
+                    .build();
+        }
+    }
+}
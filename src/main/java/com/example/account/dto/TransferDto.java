@@ -0,0 +1,14 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+// 계좌 이체의 출금 거래와 입금 거래
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferDto {
+    private TransactionDto withdraw;
+    private TransactionDto deposit;
+}
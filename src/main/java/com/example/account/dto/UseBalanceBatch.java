@@ -0,0 +1,86 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UseBalanceBatch { // 잔액 사용 일괄 API에 사용되는 요청, 응답 객체
+    /**
+     * {
+     *     "items":[
+     *         {"userId":1, "accountNumber":"1000000000", "amount":1000},
+     *         {"userId":1, "accountNumber":"1000000000", "amount":2000}
+     *     ]
+     * }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = 1000) // 한 요청의 최대 건수
+        private List<@Valid UseBalance.Request> items;
+    }
+
+    /**
+     * 요청 items 와 같은 순서로 건별 결과를 담는다.
+     * {
+     *     "results":[
+     *         {"accountNumber":"1000000000", "transactionResult":"S",
+     *          "transactionId":"c2033bb6d82a4250aecf8e27c49b63f6", "amount":1000,
+     *          "transactionAt":"2024-02-23T23:26:14.671859"},
+     *         {"accountNumber":"1000000000", "transactionResult":"F", "amount":2000,
+     *          "errorCode":"AMOUNT_EXCEED_BALANCE", "errorMessage":"거래 금액이 계좌 잔액보다 큽니다."}
+     *     ]
+     * }
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Response {
+        private List<Result> results;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private String accountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactionAt;
+        private ErrorCode errorCode;
+        private String errorMessage;
+
+        public static Result success(TransactionDto transactionDto) {
+            return Result.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactionAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+
+        public static Result failure(UseBalance.Request request, ErrorCode errorCode) {
+            return Result.builder()
+                    .accountNumber(request.getAccountNumber())
+                    .transactionResult(TransactionResultType.F)
+                    .amount(request.getAmount())
+                    .errorCode(errorCode)
+                    .errorMessage(errorCode.getDescription())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.account.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간 순서로 증가하는 거래 id
+ * 상위 64bit : 밀리초 timestamp(48bit) + 노드 id(16bit)
+ * 하위 64bit : 노드 안의 순번
+ * 같은 노드에서 생성한 id 는 시간 순서대로 커지므로 transaction_id 인덱스의 끝에 추가된다.
+ * 노드 id 가 다르면 같은 밀리초에 생성해도 겹치지 않는다.
+ * 중간 문자열 없이 char 배열에 바로 hex 로 기록한다.
+ */
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+    public static final int MAX_NODE_ID = 0xFFFF;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // 시계가 뒤로 가도 timestamp 가 줄어들지 않도록 마지막 값을 기억한다.
+    private final AtomicLong lastMillis = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TimeOrderedTransactionIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TimeOrderedTransactionIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node-id must be 0 ~ " + MAX_NODE_ID + " : " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String generate() {
+        long millis = lastMillis.accumulateAndGet(clock.getAsLong(), Math::max);
+        long high = (millis << 16) | nodeId;
+        long low = sequence.getAndIncrement();
+
+        char[] chars = new char[32];
+        writeHex(chars, 0, high);
+        writeHex(chars, 16, low);
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
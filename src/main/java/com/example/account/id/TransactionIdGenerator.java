@@ -0,0 +1,9 @@
+package com.example.account.id;
+
+/**
+ * 거래 id 생성기
+ * 클라이언트가 받는 형식(32자리 소문자 hex)을 유지해야 한다.
+ */
+public interface TransactionIdGenerator {
+    String generate();
+}
@@ -0,0 +1,13 @@
+package com.example.account.id;
+
+import java.util.UUID;
+
+/**
+ * 기존 방식의 무작위 UUID 거래 id
+ */
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.account.index;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountIndexView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계좌번호 -> 잔액, 상태, 소유주 색인 (account.index.enabled)
+ * 10자리 숫자 계좌번호를 long 으로 바꿔 off-heap open addressing 표(AccountIndexTable)에 둔다.
+ * 계좌마다 객체를 만들지 않으므로 수천만 계좌도 힙과 GC 에 부담을 주지 않는다.
+ * 1. 없으면 DB 에서 읽어 넣는다. (없는 계좌는 넣지 않는다)
+ * 2. 계좌 엔티티의 저장(AccountIndexListener)과 조건부 UPDATE 는 커밋 후에 반영한다.
+ *    새 version 을 모르는 UPDATE(ATOMIC 모드, reactive API)는 커밋 후에 항목을 버린다.
+ * 3. preload 면 시작할 때 백그라운드에서 모든 계좌를 id 순서로 읽어 넣는다.
+ * 이 노드의 변경만 반영하므로 여러 노드가 같은 계좌를 변경하는 배포에서는 켜지 않는다.
+ * LEDGER 모드에서는 잔액을 메모리 원장에서 읽고 이 색인의 잔액은 쓰지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountIndex {
+    private static final int ACCOUNT_NUMBER_LENGTH = 10;
+    private static final long NOT_INDEXED = -1L;
+
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+    private final boolean preload;
+    private final int preloadBatchSize;
+    private final AccountIndexTable table;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AccountIndex(
+            AccountRepository accountRepository,
+            @Value("${account.index.enabled:false}") boolean enabled,
+            @Value("${account.index.segments:64}") int segments,
+            @Value("${account.index.initial-capacity:1048576}") long initialCapacity,
+            @Value("${account.index.preload:false}") boolean preload,
+            @Value("${account.index.preload-batch-size:10000}") int preloadBatchSize
+    ) {
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+        this.preload = preload;
+        this.preloadBatchSize = preloadBatchSize;
+        this.table = enabled ? new AccountIndexTable(segments, initialCapacity) : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || !preload) {
+            return;
+        }
+        Thread loader = new Thread(this::preload, "account-index-preload");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 10자리 숫자 계좌번호를 색인 key 로 바꾼다. (0 은 빈 칸이므로 1 을 더한다)
+     * 형식이 다르면 NOT_INDEXED
+     */
+    static long keyOf(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != ACCOUNT_NUMBER_LENGTH) {
+            return NOT_INDEXED;
+        }
+        long value = 0L;
+        for (int i = 0; i < ACCOUNT_NUMBER_LENGTH; i++) {
+            char digit = accountNumber.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return NOT_INDEXED;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value + 1;
+    }
+
+    /**
+     * 계좌 상태를 into 에 채운다. 색인에 없으면 DB 에서 읽어 넣는다.
+     *
+     * @return 계좌가 있는지
+     */
+    public boolean read(String accountNumber, Entry into) {
+        long key = enabled ? keyOf(accountNumber) : NOT_INDEXED;
+        if (key != NOT_INDEXED && table.read(key, into)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        // 읽는 동안 무효화되면 넣지 않도록 읽기 전에 받아 둔다.
+        long stamp = key == NOT_INDEXED ? 0L : table.stamp(key);
+        Optional<AccountIndexView> loaded = accountRepository.findIndexViewByAccountNumber(accountNumber);
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        AccountIndexView view = loaded.get();
+        into.balance = view.getBalance();
+        into.ownerId = view.getOwnerId();
+        into.accountStatus = view.getAccountStatus();
+        into.version = Objects.requireNonNullElse(view.getVersion(), 0L);
+        if (key != NOT_INDEXED) {
+            table.put(key, into.balance, into.ownerId, into.accountStatus, into.version, stamp);
+        }
+        return true;
+    }
+
+    // 저장된 계좌 엔티티의 상태를 커밋 후 넣는다. (flush 로 증가한 version 포함)
+    public void putAfterCommit(Account account) {
+        putAfterCommit(account.getAccountNumber(), account.getAccountUser().getId(),
+                account.getAccountStatus(), account.getBalance(),
+                Objects.requireNonNullElse(account.getVersion(), 0L));
+    }
+
+    public void putAfterCommit(String accountNumber, long ownerId, AccountStatus accountStatus,
+                               long balance, long version) {
+        long key = keyOf(accountNumber);
+        if (!enabled || key == NOT_INDEXED) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            table.invalidate(key);
+            return;
+        }
+        // 커밋과 afterCommit 사이에 다른 변경이 무효화했다면 넣지 않는다.
+        long stamp = table.stamp(key);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                table.put(key, balance, ownerId, accountStatus, version, stamp);
+            }
+        });
+    }
+
+    // 새 상태를 모르는 변경은 커밋 후 항목을 버린다. (다음 조회에서 DB 에서 읽는다)
+    public void invalidateAfterCommit(String accountNumber) {
+        long key = keyOf(accountNumber);
+        if (!enabled || key == NOT_INDEXED) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            table.invalidate(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                table.invalidate(key);
+            }
+        });
+    }
+
+    public void invalidate(String accountNumber) {
+        long key = keyOf(accountNumber);
+        if (enabled && key != NOT_INDEXED) {
+            table.invalidate(key);
+        }
+    }
+
+    // 이미 들어 있는 항목보다 오래된 값은 version 으로, 읽는 동안 무효화된 값은 stamp 로 걸러진다.
+    void preload() {
+        long afterId = 0L;
+        long loaded = 0L;
+        try {
+            while (true) {
+                long[] stamps = table.stamps();
+                List<AccountIndexView> views = accountRepository.findIndexViewsAfter(afterId,
+                        PageRequest.of(0, preloadBatchSize));
+                if (views.isEmpty()) {
+                    break;
+                }
+                for (AccountIndexView view : views) {
+                    long key = keyOf(view.getAccountNumber());
+                    if (key != NOT_INDEXED) {
+                        table.put(key, view.getBalance(), view.getOwnerId(), view.getAccountStatus(),
+                                Objects.requireNonNullElse(view.getVersion(), 0L),
+                                table.stamp(key, stamps));
+                        loaded++;
+                    }
+                }
+                afterId = views.get(views.size() - 1).getId();
+            }
+            log.info("Preloaded account index : {}", loaded);
+        } catch (RuntimeException e) {
+            log.error("Failed to preload account index after id {}", afterId, e);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long size() {
+        return enabled ? table.size() : 0L;
+    }
+
+    public long getCapacityBytes() {
+        return enabled ? table.capacityBytes() : 0L;
+    }
+
+    /**
+     * 조회 결과를 담는 칸. 호출하는 쪽이 만들어 다시 써도 된다.
+     */
+    @Getter
+    public static final class Entry {
+        long balance;
+        long ownerId;
+        AccountStatus accountStatus;
+        long version;
+    }
+}
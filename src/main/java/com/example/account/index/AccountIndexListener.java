@@ -0,0 +1,28 @@
+package com.example.account.index;
+
+import com.example.account.domain.Account;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌 엔티티를 INSERT / UPDATE 할 때 커밋 후 AccountIndex 에 반영한다.
+ * dirty checking 으로 바뀐 잔액도 flush 시점에 여기로 들어온다.
+ * EntityManagerFactory 를 만드는 중에 생성되므로 AccountIndex 는 처음 쓸 때 찾는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountIndexListener {
+    private final ObjectProvider<AccountIndex> accountIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Account account) {
+        AccountIndex index = accountIndex.getIfAvailable();
+        if (index != null && index.isEnabled()) {
+            index.putAfterCommit(account);
+        }
+    }
+}
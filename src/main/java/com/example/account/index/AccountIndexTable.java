@@ -0,0 +1,301 @@
+package com.example.account.index;
+
+import com.example.account.type.AccountStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 숫자 계좌번호(long) -> 잔액, 소유주, 상태, version 의 open addressing 표 (선형 탐사)
+ * 칸은 direct ByteBuffer 에 32 byte 씩 둔다. 계좌마다 객체를 만들지 않으므로 GC 가 훑을 것이 없다.
+ * [key 8][balance 8][ownerId << 4 | 상태 8][version 8], key 0 은 빈 칸
+ * 표는 segment 로 나누고, segment 마다 StampedLock 으로 쓰기를 직렬화한다.
+ * 읽기는 낙관적 읽기로 lock 없이 하고, 그사이 쓰기가 있었으면 읽기 lock 으로 다시 읽는다.
+ * segment 마다 무효화 횟수를 세어, DB 에서 읽는 동안 무효화된 값은 넣지 않는다. (put 의 stamp)
+ */
+final class AccountIndexTable {
+    static final long EMPTY = 0L;
+
+    private static final int SLOT_BYTES = 32;
+    private static final int KEY = 0;
+    private static final int BALANCE = 8;
+    private static final int OWNER_STATUS = 16;
+    private static final int VERSION = 24;
+    private static final int STATUS_BITS = 4;
+    private static final int MIN_CAPACITY = 16;
+    // 칸 수 * SLOT_BYTES 가 int(ByteBuffer 크기) 를 넘지 않는 가장 큰 2의 거듭제곱 (segment 당 1GB)
+    static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_BYTES);
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    AccountIndexTable(int segmentCount, long initialCapacity) {
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two : " + segmentCount);
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        int capacity = segmentCapacity(segmentCount, initialCapacity);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    // 예상 계좌 수를 segment 로 나누고 여유를 둔 2의 거듭제곱 칸 수 (MAX_CAPACITY 까지)
+    static int segmentCapacity(int segmentCount, long initialCapacity) {
+        long perSegment = Math.max(MIN_CAPACITY,
+                Math.min(initialCapacity / segmentCount, MAX_CAPACITY) * 4 / 3);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(perSegment - 1) << 1);
+    }
+
+    // 계좌번호의 hash 를 고르게 섞는다. (murmur3 fmix64)
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93fe53a8ec3L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private Segment segmentOf(long hash) {
+        // segment 는 hash 의 상위 bit, 칸은 하위 bit 로 고른다.
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * 값을 into 에 채우고 true, 없으면 false
+     */
+    boolean read(long key, AccountIndex.Entry into) {
+        long hash = hash(key);
+        Segment segment = segmentOf(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            boolean found = segment.read(key, hash, into);
+            if (segment.lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.read(key, hash, into);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    // DB 에서 읽거나 커밋하기 전에 받아 두고 put 에 넘긴다.
+    long stamp(long key) {
+        return segmentOf(hash(key)).invalidations;
+    }
+
+    // 여러 계좌를 한 번에 읽기 전에 모든 segment 의 stamp 를 받아 둔다.
+    long[] stamps() {
+        long[] stamps = new long[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            stamps[i] = segments[i].invalidations;
+        }
+        return stamps;
+    }
+
+    long stamp(long key, long[] stamps) {
+        return stamps.length == 1 ? stamps[0] : stamps[(int) (hash(key) >>> segmentShift)];
+    }
+
+    /**
+     * stamp 이후 segment 에 무효화가 없었고, 저장된 version 보다 오래된 값이 아니면 넣는다.
+     *
+     * @return 넣었는지
+     */
+    boolean put(long key, long balance, long ownerId, AccountStatus accountStatus, long version,
+                long stamp) {
+        long hash = hash(key);
+        Segment segment = segmentOf(hash);
+        long lockStamp = segment.lock.writeLock();
+        try {
+            if (segment.invalidations != stamp) {
+                return false;
+            }
+            return segment.put(key, hash, balance,
+                    ownerId << STATUS_BITS | (accountStatus.ordinal() + 1), version);
+        } finally {
+            segment.lock.unlockWrite(lockStamp);
+        }
+    }
+
+    void invalidate(long key) {
+        long hash = hash(key);
+        Segment segment = segmentOf(hash);
+        long lockStamp = segment.lock.writeLock();
+        try {
+            segment.invalidations++;
+            segment.remove(key, hash);
+        } finally {
+            segment.lock.unlockWrite(lockStamp);
+        }
+    }
+
+    long size() {
+        long size = 0L;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    long capacityBytes() {
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            bytes += segment.slots.capacity();
+        }
+        return bytes;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        // 칸 배열과 크기는 쓰기 lock 을 잡고만 바꾼다.
+        private volatile ByteBuffer slots;
+        private int size;
+        private volatile long invalidations;
+
+        private Segment(int capacity) {
+            this.slots = allocate(capacity);
+        }
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * 낙관적 읽기 중에는 값이 섞여 보일 수 있다. 칸 수는 읽은 버퍼에서 다시 구해
+         * 범위를 벗어나지 않게 하고, 탐사 횟수도 칸 수로 제한한다. (validate 가 실패하면 버린다)
+         */
+        private boolean read(long key, long hash, AccountIndex.Entry into) {
+            ByteBuffer buffer = slots;
+            int capacity = buffer.capacity() / SLOT_BYTES;
+            int mask = capacity - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                int offset = index * SLOT_BYTES;
+                long slotKey = buffer.getLong(offset + KEY);
+                if (slotKey == EMPTY) {
+                    return false;
+                }
+                if (slotKey == key) {
+                    long ownerStatus = buffer.getLong(offset + OWNER_STATUS);
+                    int status = (int) (ownerStatus & ((1 << STATUS_BITS) - 1)) - 1;
+                    into.balance = buffer.getLong(offset + BALANCE);
+                    into.ownerId = ownerStatus >>> STATUS_BITS;
+                    into.accountStatus = status >= 0 && status < STATUSES.length
+                            ? STATUSES[status] : null;
+                    into.version = buffer.getLong(offset + VERSION);
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private boolean put(long key, long hash, long balance, long ownerStatus, long version) {
+            ByteBuffer buffer = slots;
+            int mask = buffer.capacity() / SLOT_BYTES - 1;
+            int index = (int) hash & mask;
+            while (true) {
+                int offset = index * SLOT_BYTES;
+                long slotKey = buffer.getLong(offset + KEY);
+                if (slotKey == key) {
+                    if (version < buffer.getLong(offset + VERSION)) {
+                        return false;
+                    }
+                    write(buffer, offset, key, balance, ownerStatus, version);
+                    return true;
+                }
+                if (slotKey == EMPTY) {
+                    int capacity = mask + 1;
+                    // 가장 큰 segment 는 빈 칸을 하나 남겨 탐사가 끝나게 한다.
+                    if (capacity >= MAX_CAPACITY && size >= capacity - 1) {
+                        return false;
+                    }
+                    write(buffer, offset, key, balance, ownerStatus, version);
+                    if (++size > capacity / 4 * 3 && capacity < MAX_CAPACITY) {
+                        resize();
+                    }
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        // 값을 먼저 쓰고 key 를 마지막에 쓴다.
+        private static void write(ByteBuffer buffer, int offset, long key, long balance,
+                                  long ownerStatus, long version) {
+            buffer.putLong(offset + BALANCE, balance);
+            buffer.putLong(offset + OWNER_STATUS, ownerStatus);
+            buffer.putLong(offset + VERSION, version);
+            buffer.putLong(offset + KEY, key);
+        }
+
+        // 선형 탐사를 유지하도록 뒤의 칸을 당겨 온다. (backward shift, tombstone 없음)
+        private void remove(long key, long hash) {
+            ByteBuffer buffer = slots;
+            int mask = buffer.capacity() / SLOT_BYTES - 1;
+            int index = (int) hash & mask;
+            while (true) {
+                long slotKey = buffer.getLong(index * SLOT_BYTES + KEY);
+                if (slotKey == EMPTY) {
+                    return;
+                }
+                if (slotKey == key) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                int offset = next * SLOT_BYTES;
+                long slotKey = buffer.getLong(offset + KEY);
+                if (slotKey == EMPTY) {
+                    break;
+                }
+                int home = (int) hash(slotKey) & mask;
+                // home 이 (hole, next] 사이에 있으면 그대로 둔다.
+                boolean stays = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!stays) {
+                    write(buffer, hole * SLOT_BYTES, slotKey, buffer.getLong(offset + BALANCE),
+                            buffer.getLong(offset + OWNER_STATUS), buffer.getLong(offset + VERSION));
+                    hole = next;
+                }
+            }
+            buffer.putLong(hole * SLOT_BYTES + KEY, EMPTY);
+            size--;
+        }
+
+        private void resize() {
+            ByteBuffer old = slots;
+            int oldCapacity = old.capacity() / SLOT_BYTES;
+            ByteBuffer resized = allocate(oldCapacity * 2);
+            int mask = oldCapacity * 2 - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                int offset = i * SLOT_BYTES;
+                long key = old.getLong(offset + KEY);
+                if (key == EMPTY) {
+                    continue;
+                }
+                int index = (int) hash(key) & mask;
+                while (resized.getLong(index * SLOT_BYTES + KEY) != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                write(resized, index * SLOT_BYTES, key, old.getLong(offset + BALANCE),
+                        old.getLong(offset + OWNER_STATUS), old.getLong(offset + VERSION));
+            }
+            slots = resized;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.account.journal;
+
+import java.util.List;
+
+/**
+ * 저널에서 복구한, 아직 DB 에 반영되지 않은 커밋 단위 기록
+ *
+ * @param inDoubt 커밋/롤백 표시가 남기 전에 종료되어 커밋 여부를 DB 로 판단해야 하는 기록
+ */
+public record JournalEntry(long seq, List<JournalRecord> records, boolean inDoubt) {
+}
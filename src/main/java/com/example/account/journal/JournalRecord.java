@@ -0,0 +1,41 @@
+package com.example.account.journal;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 저널에 기록하는 거래 한 건 (계좌는 id 만 남긴다)
+ */
+public record JournalRecord(
+        TransactionType transactionType,
+        TransactionResultType transactionResultType,
+        Long accountId,
+        Long amount,
+        Long balanceSnapshot,
+        String transactionId,
+        LocalDateTime transactedAt
+) {
+    public static JournalRecord from(Transaction transaction) {
+        // 프록시의 id 는 초기화 없이 읽을 수 있다.
+        return new JournalRecord(transaction.getTransactionType(),
+                transaction.getTransactionResultType(), transaction.getAccount().getId(),
+                transaction.getAmount(), transaction.getBalanceSnapshot(),
+                transaction.getTransactionId(), transaction.getTransactedAt());
+    }
+
+    public Transaction toEntity(Account account) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,536 @@
+package com.example.account.journal;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 거래 저널 (account.transaction.journal.enabled)
+ * 커밋할 거래를 메모리 매핑한 segment 파일에 순서대로 덧붙인다. (append-only)
+ * 1. RECORD - 커밋 직전의 거래 묶음. 백그라운드 flusher 가 모아서 fsync 하고, 기록한 쪽은 fsync 까지 기다린다.
+ * 2. COMMIT / ABORT - DB 커밋 결과. fsync 를 기다리지 않고 다음 fsync 에 함께 내려간다.
+ * 항목은 [길이][종류][seq][내용][crc] 로 쓰고, 재시작 시 길이가 0 이거나 crc 가 맞지 않는 곳에서 segment 를 끝으로 본다.
+ * checkpoint 파일에는 DB 반영이 끝난 seq 를 남기고, 그 이하의 기록만 담긴 segment 는 지운다.
+ * journal-id 파일에는 처음 열 때 만든 저널 id 를 남긴다. (DB 의 커밋 표시가 어느 저널의 seq 인지 구분)
+ */
+@Slf4j
+@Component
+public class TransactionJournal {
+    private static final byte RECORD = 1;
+    private static final byte COMMIT = 2;
+    private static final byte ABORT = 3;
+    // 종류(1) + seq(8)
+    private static final int ENTRY_HEADER_BYTES = 1 + 8;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String JOURNAL_ID_FILE = "journal-id";
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final long flushIntervalMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncRequested = lock.newCondition();
+    // 첫 seq -> segment 파일 (lock 으로 보호)
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private Segment current;
+    private long nextSeq;
+    private List<CompletableFuture<Void>> syncWaiters = new ArrayList<>();
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    private String journalId;
+    private volatile long checkpoint;
+    private long recoveredThrough;
+    private List<JournalEntry> recovered = List.of();
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    public TransactionJournal(
+            @Value("${account.transaction.journal.enabled:false}") boolean enabled,
+            @Value("${account.transaction.journal.dir:./journal}") String dir,
+            @Value("${account.transaction.journal.segment-bytes:67108864}") int segmentBytes,
+            @Value("${account.transaction.journal.fsync:true}") boolean fsync,
+            @Value("${account.transaction.journal.flush-interval-millis:100}") long flushIntervalMillis
+    ) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * 남아 있는 segment 를 읽어 DB 에 반영되지 않은 기록을 복구하고, 새 segment 에 이어서 쓴다.
+     * 이전 segment 의 끝은 잘렸을 수 있으므로 다시 쓰지 않는다.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        journalId = readOrCreateJournalId();
+        checkpoint = readCheckpoint();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(TransactionJournal::isSegment)
+                    .forEach(path -> segments.put(firstSeqOf(path), path));
+        }
+        // 이전 실행의 마지막 segment 에 COMMIT / ABORT 표시만 있었다면 그 이름과 겹치지 않도록 건너뛴다.
+        recoveredThrough = Math.max(recover(), segments.isEmpty() ? 0L : segments.lastKey());
+        nextSeq = recoveredThrough + 1;
+        roll();
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "transaction-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * 거래 묶음을 기록한다.
+     *
+     * @return 기록의 seq 와, fsync 가 끝나면 완료되는 future (fsync 를 끄면 바로 완료)
+     */
+    public Appended append(List<JournalRecord> records) {
+        byte[] payload = encode(records);
+        lock.lock();
+        try {
+            long seq = write(RECORD, nextSeq++, payload);
+            appended.add(records.size());
+            if (!fsync) {
+                return new Appended(seq, CompletableFuture.completedFuture(null));
+            }
+            CompletableFuture<Void> durable = new CompletableFuture<>();
+            syncWaiters.add(durable);
+            syncRequested.signal();
+            return new Appended(seq, durable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void commit(long seq) {
+        writeMarker(COMMIT, seq);
+    }
+
+    public void abort(long seq) {
+        writeMarker(ABORT, seq);
+    }
+
+    private void writeMarker(byte type, long seq) {
+        lock.lock();
+        try {
+            write(type, seq, new byte[0]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // lock 을 잡고 호출한다. 남은 공간이 부족하면 segment 를 바꾼다.
+    private long write(byte type, long seq, byte[] payload) {
+        int length = ENTRY_HEADER_BYTES + payload.length;
+        int entryBytes = 4 + length + 4;
+        if (entryBytes > segmentBytes - 4) {
+            throw new IllegalStateException("Journal entry is larger than segment : " + entryBytes);
+        }
+        if (current.position + entryBytes > segmentBytes - 4) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = ByteBuffer.allocate(length).put(type).putLong(seq).put(payload);
+        crc.update(body.array());
+
+        MappedByteBuffer buffer = current.buffer;
+        buffer.position(current.position);
+        buffer.putInt(length).put(body.array()).putInt((int) crc.getValue());
+        current.position += entryBytes;
+        return seq;
+    }
+
+    // lock 을 잡고 호출한다. 쓰던 segment 를 모두 fsync 하고 기다리던 기록을 완료한다.
+    private void roll() {
+        if (current != null) {
+            forceAll(current);
+            completeWaiters(syncWaiters, null);
+            syncWaiters = new ArrayList<>();
+        }
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSeq, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(nextSeq, path);
+    }
+
+    /**
+     * fsync 를 기다리는 기록이 있으면 그때까지 쓴 범위를 한 번에 fsync 한다.
+     * 기다리는 기록이 없어도 flush-interval-millis 마다 COMMIT / ABORT 표시를 내려보낸다.
+     */
+    private void runFlusher() {
+        while (running) {
+            Segment segment;
+            int from;
+            int to;
+            List<CompletableFuture<Void>> waiters;
+            lock.lock();
+            try {
+                if (syncWaiters.isEmpty()) {
+                    syncRequested.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                segment = current;
+                from = segment.syncedPosition;
+                to = segment.position;
+                segment.syncedPosition = to;
+                waiters = syncWaiters;
+                syncWaiters = new ArrayList<>();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (to == from) {
+                completeWaiters(waiters, null);
+                continue;
+            }
+            try {
+                segment.buffer.force(from, to - from);
+                syncs.increment();
+                completeWaiters(waiters, null);
+            } catch (RuntimeException e) {
+                log.error("Failed to sync transaction journal", e);
+                completeWaiters(waiters, e);
+            }
+        }
+    }
+
+    private static void forceAll(Segment segment) {
+        segment.buffer.force();
+        segment.syncedPosition = segment.position;
+    }
+
+    private static void completeWaiters(List<CompletableFuture<Void>> waiters, Throwable e) {
+        for (CompletableFuture<Void> waiter : waiters) {
+            if (e == null) {
+                waiter.complete(null);
+            } else {
+                waiter.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * DB 반영이 끝난 seq 를 checkpoint 에 남기고, 그 이하의 기록만 담긴 segment 를 지운다.
+     */
+    public void markApplied(long seq) {
+        if (!enabled || seq <= checkpoint) {
+            return;
+        }
+        try {
+            Path temp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(temp, ByteBuffer.allocate(8).putLong(seq).array());
+            Files.move(temp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = seq;
+        } catch (IOException e) {
+            log.error("Failed to write journal checkpoint : {}", seq, e);
+            return;
+        }
+
+        lock.lock();
+        try {
+            // 다음 segment 의 첫 seq 가 checkpoint + 1 이하이면 이 segment 의 기록은 모두 반영되었다.
+            while (segments.size() > 1) {
+                Map.Entry<Long, Path> first = segments.firstEntry();
+                Long next = segments.higherKey(first.getKey());
+                if (next > seq + 1) {
+                    break;
+                }
+                segments.pollFirstEntry();
+                Files.deleteIfExists(first.getValue());
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete journal segment", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 복구한 기록을 한 번만 넘겨준다. (TransactionJournalApplier)
+    public List<JournalEntry> takeRecovered() {
+        List<JournalEntry> entries = recovered;
+        recovered = List.of();
+        return entries;
+    }
+
+    // 복구 시점까지 쓴 마지막 seq. 이후의 seq 는 모두 이번 실행에서 기록한다.
+    public long getRecoveredThrough() {
+        return recoveredThrough;
+    }
+
+    /**
+     * segment 를 순서대로 읽어 checkpoint 이후의 기록 중 ABORT 되지 않은 것을 recovered 에 남긴다.
+     *
+     * @return 읽은 가장 큰 seq
+     */
+    private long recover() throws IOException {
+        Map<Long, List<JournalRecord>> records = new TreeMap<>();
+        Set<Long> committed = new HashSet<>();
+        Set<Long> aborted = new HashSet<>();
+        long maxSeq = checkpoint;
+
+        for (Path path : segments.values()) {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                if (length == 0) {
+                    break;
+                }
+                if (length < ENTRY_HEADER_BYTES || length + 4 > buffer.remaining()) {
+                    log.warn("Truncated journal entry : {}", path);
+                    break;
+                }
+                byte[] body = new byte[length];
+                buffer.get(body);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != buffer.getInt()) {
+                    log.warn("Corrupted journal entry : {}", path);
+                    break;
+                }
+
+                ByteBuffer entry = ByteBuffer.wrap(body);
+                byte type = entry.get();
+                long seq = entry.getLong();
+                maxSeq = Math.max(maxSeq, seq);
+                switch (type) {
+                    case RECORD -> records.put(seq, decode(entry));
+                    case COMMIT -> committed.add(seq);
+                    case ABORT -> aborted.add(seq);
+                    default -> log.warn("Unknown journal entry type : {} {}", type, path);
+                }
+            }
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        records.forEach((seq, recordList) -> {
+            if (seq > checkpoint && !aborted.contains(seq)) {
+                entries.add(new JournalEntry(seq, recordList, !committed.contains(seq)));
+            }
+        });
+        recovered = entries;
+        log.info("Recovered transaction journal : checkpoint {}, last seq {}, unapplied {}",
+                checkpoint, maxSeq, entries.size());
+        return maxSeq;
+    }
+
+    private String readOrCreateJournalId() throws IOException {
+        Path path = dir.resolve(JOURNAL_ID_FILE);
+        if (Files.exists(path)) {
+            return Files.readString(path, StandardCharsets.UTF_8).trim();
+        }
+        String id = UUID.randomUUID().toString();
+        Path temp = dir.resolve(JOURNAL_ID_FILE + ".tmp");
+        Files.writeString(temp, id, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(path)).getLong();
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static byte[] encode(List<JournalRecord> records) {
+        List<byte[]> strings = new ArrayList<>();
+        int size = 4;
+        for (JournalRecord record : records) {
+            byte[] type = bytes(record.transactionType().name());
+            byte[] result = bytes(record.transactionResultType().name());
+            byte[] transactionId = bytes(record.transactionId());
+            strings.add(type);
+            strings.add(result);
+            strings.add(transactionId);
+            size += 2 * 3 + type.length + result.length + lengthOf(transactionId)
+                    + 8 * 4 + 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).putInt(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            JournalRecord record = records.get(i);
+            putString(buffer, strings.get(i * 3));
+            putString(buffer, strings.get(i * 3 + 1));
+            putLong(buffer, record.accountId());
+            putLong(buffer, record.amount());
+            putLong(buffer, record.balanceSnapshot());
+            putString(buffer, strings.get(i * 3 + 2));
+            LocalDateTime transactedAt = record.transactedAt();
+            putLong(buffer, transactedAt == null ? null : transactedAt.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(transactedAt == null ? 0 : transactedAt.getNano());
+        }
+        return buffer.array();
+    }
+
+    static List<JournalRecord> decode(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<JournalRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionType transactionType = TransactionType.valueOf(getString(buffer));
+            TransactionResultType resultType = TransactionResultType.valueOf(getString(buffer));
+            Long accountId = getLong(buffer);
+            Long amount = getLong(buffer);
+            Long balanceSnapshot = getLong(buffer);
+            String transactionId = getString(buffer);
+            Long epochSecond = getLong(buffer);
+            int nano = buffer.getInt();
+            records.add(new JournalRecord(transactionType, resultType, accountId, amount,
+                    balanceSnapshot, transactionId, epochSecond == null ? null
+                    : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC)));
+        }
+        return records;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void putLong(ByteBuffer buffer, Long value) {
+        buffer.putLong(value == null ? NULL_LONG : value);
+    }
+
+    private static Long getLong(ByteBuffer buffer) {
+        long value = buffer.getLong();
+        return value == NULL_LONG ? null : value;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(flushIntervalMillis * 2 + 5000L);
+        lock.lock();
+        try {
+            forceAll(current);
+            completeWaiters(syncWaiters, null);
+            syncWaiters = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    public record Appended(long seq, CompletableFuture<Void> durable) {
+    }
+
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        // 다음 항목을 쓸 위치, fsync 한 위치 (lock 으로 보호)
+        private int position;
+        private int syncedPosition;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.account.ledger;
+
+import com.example.account.type.AccountStatus;
+
+/**
+ * 메모리 원장의 계좌 상태
+ * LedgerEngine 의 처리 스레드만 읽고 쓴다.
+ */
+final class LedgerAccount {
+    final long id;
+    final String accountNumber;
+    long ownerId;
+    AccountStatus accountStatus;
+    long balance;
+    // 마지막 스냅샷 이후 잔액이 바뀌어 계좌 테이블에 다시 써야 하는지
+    boolean dirty;
+
+    LedgerAccount(long id, String accountNumber, long ownerId, AccountStatus accountStatus,
+                  long balance) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.ownerId = ownerId;
+        this.accountStatus = accountStatus;
+        this.balance = balance;
+    }
+}
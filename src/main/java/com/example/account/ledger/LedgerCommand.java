@@ -0,0 +1,38 @@
+package com.example.account.ledger;
+
+import com.example.account.dto.TransactionCancelView;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ring buffer 의 칸 하나. 미리 만들어 두고 명령마다 값을 바꿔 다시 쓴다.
+ * 발행한 스레드가 값을 채운 뒤 sequence 를 쓰고, 처리 스레드는 sequence 를 읽은 뒤 값을 읽는다.
+ */
+final class LedgerCommand {
+    enum Kind {
+        USE, CANCEL, TRANSFER, UPSERT_ACCOUNT, BALANCE, SNAPSHOT
+    }
+
+    // 이 칸에 마지막으로 발행된 명령의 순번
+    volatile long sequence = -1L;
+
+    Kind kind;
+    long userId;
+    String accountNumber;
+    String toAccountNumber;
+    long amount;
+    // 잔액 사용 취소 대상 거래
+    TransactionCancelView cancelled;
+    // 개설, 해지된 계좌
+    LedgerAccount account;
+    CompletableFuture<Object> result;
+
+    void clear() {
+        kind = null;
+        accountNumber = null;
+        toAccountNumber = null;
+        cancelled = null;
+        account = null;
+        result = null;
+    }
+}
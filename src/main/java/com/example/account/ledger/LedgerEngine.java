@@ -0,0 +1,701 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.AccountLedgerView;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.service.AccountUserCache;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 메모리 원장 (LEDGER 모드)
+ * 모든 계좌의 잔액, 상태, 소유주를 메모리에 두고 처리 스레드 하나가 ring buffer 의 명령을 순서대로 처리한다.
+ * 처리 스레드는 lock 을 잡지 않고 DB 를 읽지 않는다.
+ * 사용자 확인과 잔액 사용 취소 대상 거래 조회는 발행하는 스레드에서 한 뒤 명령에 담는다.
+ * 1. 잔액 사용, 잔액 사용 취소, 계좌 이체는 TransactionService 와 같은 순서로 검증하고 같은 ErrorCode 로 거절한다.
+ * 2. 성공한 거래는 저장 스레드가 persist-batch-size 단위로 모아 Transaction 테이블에 INSERT 한다.
+ *    ack-after-persist 면 저장이 끝난 뒤 응답하고, 끄면 바로 응답한다. (종료 전에 저장하지 못한 거래는 잃는다)
+ * 3. snapshot-interval-seconds 마다 원장을 복사해 파일로 쓰고, 바뀐 잔액을 계좌 테이블에 쓴다.
+ * 4. 시작 시 마지막 스냅샷을 읽고, 그 뒤에 개설/해지된 계좌와 Transaction 테이블의 거래 후 잔액으로 원장을 다시 만든다.
+ * ring buffer 가 가득 차면 ACCOUNT_TRANSACTION_LOCK 으로 거절한다.
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private static final String SNAPSHOT_FILE = "ledger.snapshot";
+    // 계좌 개설/해지 커밋과 원장 반영 사이에 찍힌 스냅샷도 덮도록 넉넉히 다시 읽는다.
+    private static final Duration CHANGED_SINCE_MARGIN = Duration.ofMinutes(5);
+    private static final int WRITE_BACK_CHUNK = 1000;
+    private static final long RETRY_MILLIS = 1000L;
+    private static final long IDLE_PARK_NANOS = 50_000L;
+    private static final long PUBLISH_RETRY_NANOS = 10_000L;
+
+    private final LedgerStore ledgerStore;
+    private final AccountUserCache accountUserCache;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final boolean enabled;
+    private final boolean reactiveEnabled;
+    private final LedgerRingBuffer ring;
+    private final BlockingQueue<LedgerWrite> writes;
+    private final int persistBatchSize;
+    private final boolean ackAfterPersist;
+    private final Path snapshotPath;
+    private final long snapshotIntervalSeconds;
+
+    // 계좌번호 -> 계좌 상태 (처리 스레드만 사용)
+    private final HashMap<String, LedgerAccount> accounts = new HashMap<>();
+    // 저장 전에 응답한 거래 (ack-after-persist 를 끄면 저장 전에도 취소할 수 있다)
+    private final ConcurrentHashMap<String, LedgerRow> unpersisted = new ConcurrentHashMap<>();
+    // 저장한 마지막 거래 id (저장 스레드만 사용)
+    private long lastTransactionId;
+
+    private Thread processor;
+    private Thread persister;
+    private ScheduledExecutorService snapshotter;
+    private volatile boolean accepting;
+    private volatile boolean processing;
+    private volatile boolean persisting;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persistedRows = new LongAdder();
+    private final LongAdder persistFailures = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    public LedgerEngine(
+            LedgerStore ledgerStore,
+            AccountUserCache accountUserCache,
+            TransactionIdGenerator transactionIdGenerator,
+            @Value("${account.transaction.concurrency-mode:LOCK}") ConcurrencyMode concurrencyMode,
+            @Value("${account.reactive.enabled:false}") boolean reactiveEnabled,
+            @Value("${account.transaction.ledger.ring-size:65536}") int ringSize,
+            @Value("${account.transaction.ledger.persist-batch-size:1000}") int persistBatchSize,
+            @Value("${account.transaction.ledger.persist-queue-capacity:65536}") int persistQueueCapacity,
+            @Value("${account.transaction.ledger.ack-after-persist:true}") boolean ackAfterPersist,
+            @Value("${account.transaction.ledger.snapshot-dir:./ledger}") String snapshotDir,
+            @Value("${account.transaction.ledger.snapshot-interval-seconds:300}") long snapshotIntervalSeconds
+    ) {
+        this.ledgerStore = ledgerStore;
+        this.accountUserCache = accountUserCache;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.enabled = concurrencyMode == ConcurrencyMode.LEDGER;
+        this.reactiveEnabled = reactiveEnabled;
+        this.ring = enabled ? new LedgerRingBuffer(ringSize) : null;
+        this.writes = new ArrayBlockingQueue<>(persistQueueCapacity);
+        this.persistBatchSize = persistBatchSize;
+        this.ackAfterPersist = ackAfterPersist;
+        this.snapshotPath = Paths.get(snapshotDir).resolve(SNAPSHOT_FILE);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // reactive API 는 DB 잔액을 직접 바꾸므로 원장과 어긋난다.
+        if (reactiveEnabled) {
+            throw new IllegalStateException("Reactive API cannot be used in LEDGER mode");
+        }
+        Files.createDirectories(snapshotPath.getParent());
+        rebuild();
+
+        accepting = true;
+        processing = true;
+        persisting = true;
+        processor = new Thread(this::runProcessor, "ledger-processor");
+        processor.setDaemon(true);
+        processor.start();
+        persister = new Thread(this::runPersister, "ledger-persister");
+        persister.setDaemon(true);
+        persister.start();
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalSeconds,
+                snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 마지막 스냅샷 (없으면 계좌 테이블) 에서 시작해, 스냅샷 이후 개설/해지된 계좌를 다시 읽고
+     * 스냅샷 이후 저장된 거래의 거래 후 잔액으로 잔액을 맞춘다.
+     */
+    void rebuild() {
+        LedgerSnapshot snapshot = LedgerSnapshot.read(snapshotPath);
+        long transactionMark = 0L;
+        if (snapshot == null) {
+            ledgerStore.loadAccounts().forEach(this::load);
+        } else {
+            snapshot.forEach(account -> accounts.put(account.accountNumber, account));
+            transactionMark = snapshot.getTransactionMark();
+            ledgerStore.loadAccountsChangedSince(snapshot.getTakenAt().minus(CHANGED_SINCE_MARGIN))
+                    .forEach(this::load);
+        }
+
+        Map<Long, LedgerAccount> accountsById = new HashMap<>(accounts.size() * 2);
+        accounts.values().forEach(account -> accountsById.put(account.id, account));
+        int replayed = 0;
+        for (AccountBalanceView latest : ledgerStore.loadLatestBalancesAfter(transactionMark)) {
+            LedgerAccount account = accountsById.get(latest.getId());
+            if (account != null && account.balance != latest.getBalance()) {
+                account.balance = latest.getBalance();
+                account.dirty = true;
+                replayed++;
+            }
+        }
+        lastTransactionId = transactionMark;
+        log.info("Rebuilt ledger : accounts {}, snapshot {}, replayed {}", accounts.size(),
+                snapshot == null ? 0 : snapshot.size(), replayed);
+    }
+
+    // 이미 있는 계좌는 상태와 소유주만 바꾼다. (잔액은 스냅샷과 거래로 맞춘다)
+    private void load(AccountLedgerView view) {
+        upsert(new LedgerAccount(view.getId(), view.getAccountNumber(), view.getOwnerId(),
+                view.getAccountStatus(), view.getBalance()));
+    }
+
+    private void upsert(LedgerAccount changed) {
+        LedgerAccount account = accounts.get(changed.accountNumber);
+        if (account == null) {
+            accounts.put(changed.accountNumber, changed);
+            return;
+        }
+        account.ownerId = changed.ownerId;
+        account.accountStatus = changed.accountStatus;
+    }
+
+    public CompletableFuture<TransactionDto> useBalanceAsync(Long userId, String accountNumber,
+                                                             Long amount) {
+        if (accountUserCache.getUser(userId).isEmpty()) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.USER_NOT_FOUND));
+        }
+        return cast(publish(command -> {
+            command.kind = LedgerCommand.Kind.USE;
+            command.userId = userId;
+            command.accountNumber = accountNumber;
+            command.amount = amount;
+        }, false));
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return await(useBalanceAsync(userId, accountNumber, amount));
+    }
+
+    public CompletableFuture<TransactionDto> cancelBalanceAsync(String transactionId,
+                                                                String accountNumber, Long amount) {
+        TransactionCancelView cancelled = transactionId == null ? null
+                : unpersisted.get(transactionId);
+        if (cancelled == null) {
+            cancelled = ledgerStore.findCancelView(transactionId).orElse(null);
+        }
+        if (cancelled == null) {
+            return CompletableFuture.failedFuture(
+                    new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        }
+        TransactionCancelView target = cancelled;
+        return cast(publish(command -> {
+            command.kind = LedgerCommand.Kind.CANCEL;
+            command.accountNumber = accountNumber;
+            command.amount = amount;
+            command.cancelled = target;
+        }, false));
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        return await(cancelBalanceAsync(transactionId, accountNumber, amount));
+    }
+
+    public TransferDto transfer(Long userId, String fromAccountNumber, String toAccountNumber,
+                                Long amount) {
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        if (accountUserCache.getUser(userId).isEmpty()) {
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        return await(cast(publish(command -> {
+            command.kind = LedgerCommand.Kind.TRANSFER;
+            command.userId = userId;
+            command.accountNumber = fromAccountNumber;
+            command.toAccountNumber = toAccountNumber;
+            command.amount = amount;
+        }, false)));
+    }
+
+    // 한 계좌의 여러 잔액 사용을 모두 발행한 뒤 건별 결과를 모은다. (잔액 사용 일괄 API)
+    public List<UseBalanceBatch.Result> useBalanceGroup(List<UseBalance.Request> requests) {
+        List<CompletableFuture<TransactionDto>> futures = requests.stream()
+                .map(request -> useBalanceAsync(request.getUserId(), request.getAccountNumber(),
+                        request.getAmount()))
+                .toList();
+        List<UseBalanceBatch.Result> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                results.add(UseBalanceBatch.Result.success(await(futures.get(i))));
+            } catch (AccountException e) {
+                results.add(UseBalanceBatch.Result.failure(requests.get(i), e.getErrorCode()));
+            }
+        }
+        return results;
+    }
+
+    // 원장의 잔액 (원장에 없는 계좌는 null)
+    public Long getBalance(String accountNumber) {
+        return await(cast(publish(command -> {
+            command.kind = LedgerCommand.Kind.BALANCE;
+            command.accountNumber = accountNumber;
+        }, true)));
+    }
+
+    /**
+     * 개설, 해지한 계좌를 커밋 후 원장에 반영한다. (AccountService)
+     * 롤백된 개설, 해지는 원장에 들어가지 않는다.
+     */
+    public void onAccountChanged(Account account) {
+        if (!enabled) {
+            return;
+        }
+        LedgerAccount changed = new LedgerAccount(account.getId(), account.getAccountNumber(),
+                account.getAccountUser().getId(), account.getAccountStatus(), account.getBalance());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishUpsert(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishUpsert(changed);
+            }
+        });
+    }
+
+    private void publishUpsert(LedgerAccount changed) {
+        publish(command -> {
+            command.kind = LedgerCommand.Kind.UPSERT_ACCOUNT;
+            command.account = changed;
+        }, true);
+    }
+
+    /**
+     * 명령을 ring buffer 에 발행한다.
+     * 칸이 없으면 거절하고, 반드시 처리해야 하는 명령(required)은 칸이 빌 때까지 기다린다.
+     */
+    private CompletableFuture<Object> publish(Consumer<LedgerCommand> fill, boolean required) {
+        if (!accepting) {
+            return CompletableFuture.failedFuture(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        }
+        long sequence = ring.claim();
+        while (sequence < 0) {
+            if (!required) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            }
+            LockSupport.parkNanos(PUBLISH_RETRY_NANOS);
+            sequence = ring.claim();
+        }
+        LedgerCommand command = ring.get(sequence);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        fill.accept(command);
+        command.result = result;
+        ring.publish(sequence);
+        return result;
+    }
+
+    private void runProcessor() {
+        int idle = 0;
+        while (true) {
+            LedgerCommand command = ring.poll();
+            if (command == null) {
+                if (!processing && ring.isDrained()) {
+                    return;
+                }
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            try {
+                process(command);
+            } catch (AccountException e) {
+                command.result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                log.error("Failed to process ledger command : {}", command.kind, e);
+                command.result.completeExceptionally(
+                        new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+            }
+            processed.increment();
+            ring.release(command);
+        }
+    }
+
+    // 처음에는 바쁘게 기다리고, 오래 비면 잠깐씩 쉰다.
+    private static int idle(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    private void process(LedgerCommand command) {
+        switch (command.kind) {
+            case USE -> use(command);
+            case CANCEL -> cancel(command);
+            case TRANSFER -> transfer(command);
+            case UPSERT_ACCOUNT -> {
+                upsert(command.account);
+                command.result.complete(null);
+            }
+            case BALANCE -> {
+                LedgerAccount account = accounts.get(command.accountNumber);
+                command.result.complete(account == null ? null : account.balance);
+            }
+            case SNAPSHOT -> {
+                LedgerSnapshot snapshot = LedgerSnapshot.copyOf(accounts.values(),
+                        LocalDateTime.now());
+                LedgerWrite marker = LedgerWrite.marker();
+                enqueue(marker);
+                command.result.complete(new SnapshotCut(snapshot, marker.future()));
+            }
+        }
+    }
+
+    private void use(LedgerCommand command) {
+        LedgerAccount account = find(command.accountNumber);
+        validateUse(command.userId, account, command.amount);
+
+        account.balance -= command.amount;
+        account.dirty = true;
+        LedgerRow row = row(account, USE, command.amount, LocalDateTime.now());
+        emit(List.of(row), toDto(row), command.result);
+    }
+
+    private void cancel(LedgerCommand command) {
+        LedgerAccount account = find(command.accountNumber);
+        TransactionCancelView cancelled = command.cancelled;
+        // 성공한 잔액 사용 거래만 취소할 수 있다.
+        if (cancelled.getTransactionType() != USE || cancelled.getTransactionResultType() != S) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_CANCELABLE);
+        }
+        // 거래계좌와 사용취소계좌가 일치하는지 확인
+        if (!Objects.equals(cancelled.getAccountNumber(), account.accountNumber)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (!Objects.equals(cancelled.getAmount(), command.amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (cancelled.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+
+        account.balance += command.amount;
+        account.dirty = true;
+        LedgerRow row = row(account, CANCEL, command.amount, LocalDateTime.now());
+        emit(List.of(row), toDto(row), command.result);
+    }
+
+    private void transfer(LedgerCommand command) {
+        LedgerAccount from = find(command.accountNumber);
+        LedgerAccount to = find(command.toAccountNumber);
+        validateUse(command.userId, from, command.amount);
+        validateUse(command.userId, to, 0L);
+
+        from.balance -= command.amount;
+        to.balance += command.amount;
+        from.dirty = true;
+        to.dirty = true;
+        LocalDateTime now = LocalDateTime.now();
+        LedgerRow withdraw = row(from, TRANSFER_OUT, command.amount, now);
+        LedgerRow deposit = row(to, TRANSFER_IN, command.amount, now);
+        emit(List.of(withdraw, deposit), new TransferDto(toDto(withdraw), toDto(deposit)),
+                command.result);
+    }
+
+    private LedgerAccount find(String accountNumber) {
+        LedgerAccount account = accounts.get(accountNumber);
+        if (account == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return account;
+    }
+
+    // 잔액 사용 정책에 따른 validation 처리 (TransactionService 와 같은 순서)
+    private static void validateUse(long userId, LedgerAccount account, long amount) {
+        if (userId != account.ownerId) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.accountStatus != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (account.balance < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    private LedgerRow row(LedgerAccount account, TransactionType transactionType, long amount,
+                          LocalDateTime transactedAt) {
+        return new LedgerRow(account.id, account.accountNumber, transactionType, amount,
+                account.balance, transactionIdGenerator.generate(), transactedAt);
+    }
+
+    private static TransactionDto toDto(LedgerRow row) {
+        return TransactionDto.builder()
+                .accountNumber(row.accountNumber())
+                .transactionType(row.transactionType())
+                .transactionResultType(S)
+                .amount(row.amount())
+                .balanceSnapshot(row.balanceSnapshot())
+                .transactionId(row.transactionId())
+                .transactedAt(row.transactedAt())
+                .build();
+    }
+
+    // 저장 대기열이 가득 차면 처리 스레드가 기다리고, 그동안 ring buffer 가 차서 새 명령을 거절한다.
+    private void emit(List<LedgerRow> rows, Object result, CompletableFuture<Object> future) {
+        if (ackAfterPersist) {
+            enqueue(new LedgerWrite(rows, result, future));
+            return;
+        }
+        rows.forEach(row -> unpersisted.put(row.transactionId(), row));
+        enqueue(new LedgerWrite(rows, result, null));
+        future.complete(result);
+    }
+
+    private void enqueue(LedgerWrite write) {
+        try {
+            writes.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing ledger rows", e);
+        }
+    }
+
+    private void runPersister() {
+        List<LedgerWrite> batch = new ArrayList<>(persistBatchSize);
+        while (persisting || !writes.isEmpty()) {
+            try {
+                LedgerWrite first = writes.poll(50L, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch, persistBatchSize - 1);
+                persist(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // 스냅샷 기준점 앞의 거래를 먼저 저장하고 기준점을 마지막 거래 id 로 완료한다.
+    void persist(List<LedgerWrite> batch) throws InterruptedException {
+        int from = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            LedgerWrite write = batch.get(i);
+            if (write.isMarker()) {
+                save(batch.subList(from, i));
+                write.future().complete(lastTransactionId);
+                from = i + 1;
+            }
+        }
+        save(batch.subList(from, batch.size()));
+    }
+
+    // 저장할 때까지 다시 시도한다. 멈추는 중이면 한 번만 시도하고 실패한 거래는 버린다.
+    private void save(List<LedgerWrite> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<LedgerRow> rows = new ArrayList<>();
+        batch.forEach(write -> rows.addAll(write.rows()));
+        while (true) {
+            try {
+                lastTransactionId = Math.max(lastTransactionId, ledgerStore.saveRows(rows));
+                break;
+            } catch (Exception e) {
+                persistFailures.increment();
+                log.error("Failed to persist ledger rows : {}", rows.size(), e);
+                if (!persisting) {
+                    failAll(batch);
+                    return;
+                }
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+        persistedRows.add(rows.size());
+        for (LedgerWrite write : batch) {
+            write.rows().forEach(row -> unpersisted.remove(row.transactionId()));
+            if (write.future() != null) {
+                write.future().complete(write.result());
+            }
+        }
+    }
+
+    private void failAll(List<LedgerWrite> batch) {
+        for (LedgerWrite write : batch) {
+            write.rows().forEach(row -> unpersisted.remove(row.transactionId()));
+            if (write.future() != null) {
+                write.future().completeExceptionally(
+                        new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+            }
+        }
+    }
+
+    /**
+     * 처리 스레드에서 원장을 복사하고, 그 시점까지의 거래가 저장되면 파일로 쓴다.
+     */
+    void snapshot() {
+        try {
+            SnapshotCut cut = await(cast(publish(command ->
+                    command.kind = LedgerCommand.Kind.SNAPSHOT, true)));
+            long transactionMark = (Long) cut.persisted().get();
+            write(cut.snapshot(), transactionMark);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            log.error("Failed to snapshot ledger", e);
+        }
+    }
+
+    private void write(LedgerSnapshot snapshot, long transactionMark) throws IOException {
+        snapshot.setTransactionMark(transactionMark);
+        snapshot.write(snapshotPath);
+        snapshots.increment();
+
+        // 계좌 테이블은 다른 조회가 읽으므로 바뀐 잔액만 쓴다. 실패해도 재시작 시 원장은 거래로 맞춘다.
+        long[] ids = snapshot.changedIds();
+        long[] balances = snapshot.changedBalances();
+        try {
+            for (int from = 0; from < ids.length; from += WRITE_BACK_CHUNK) {
+                ledgerStore.writeBalances(ids, balances, from,
+                        Math.min(from + WRITE_BACK_CHUNK, ids.length));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write ledger balances : {}", ids.length, e);
+        }
+        log.info("Snapshot ledger : accounts {}, changed {}, transaction mark {}",
+                snapshot.size(), ids.length, transactionMark);
+    }
+
+    /**
+     * 새 명령을 받지 않고, 남은 명령과 거래를 처리한 뒤 마지막 스냅샷을 쓴다.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        accepting = false;
+        snapshotter.shutdownNow();
+        snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+        processing = false;
+        processor.join(10_000L);
+        persisting = false;
+        persister.join(RETRY_MILLIS + 10_000L);
+
+        // 처리 스레드가 멈췄으므로 여기서 복사한다.
+        write(LedgerSnapshot.copyOf(accounts.values(), LocalDateTime.now()), lastTransactionId);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException accountException) {
+                throw accountException;
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> cast(CompletableFuture<Object> future) {
+        return (CompletableFuture<T>) (CompletableFuture<?>) future;
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getPersistedRows() {
+        return persistedRows.sum();
+    }
+
+    public long getPersistFailures() {
+        return persistFailures.sum();
+    }
+
+    public long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    public int getPendingWrites() {
+        return writes.size();
+    }
+
+    // 스냅샷 시점의 원장 복사본과, 그 시점까지의 거래 저장이 끝나면 마지막 거래 id 로 완료되는 future
+    private record SnapshotCut(LedgerSnapshot snapshot, CompletableFuture<Object> persisted) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.account.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 스레드가 발행하고 한 스레드가 처리하는 고정 크기 ring buffer
+ * 칸은 미리 만들어 두고, 발행 순번은 CAS 로 나눠 가진다. lock 은 쓰지 않는다.
+ * 1. claim - 처리되지 않은 칸이 size 개이면 -1 (가득 참), 아니면 다음 순번
+ * 2. get 으로 얻은 칸에 값을 채우고 publish 로 순번을 써서 처리 스레드에 보인다.
+ * 3. poll / release - 처리 스레드가 다음 순번의 칸을 읽고, 처리한 뒤 칸을 비운다.
+ */
+final class LedgerRingBuffer {
+    private final LedgerCommand[] slots;
+    private final int mask;
+    // 마지막으로 나눠 준 순번
+    private final AtomicLong claimed = new AtomicLong(-1L);
+    // 마지막으로 처리한 순번 (처리 스레드만 쓴다)
+    private volatile long consumed = -1L;
+
+    LedgerRingBuffer(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two : " + size);
+        }
+        this.slots = new LedgerCommand[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LedgerCommand();
+        }
+        this.mask = size - 1;
+    }
+
+    long claim() {
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            // 한 바퀴 전의 명령이 아직 처리되지 않았으면 칸이 없다.
+            if (next - consumed > slots.length) {
+                return -1L;
+            }
+            if (claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    LedgerCommand get(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    void publish(long sequence) {
+        get(sequence).sequence = sequence;
+    }
+
+    LedgerCommand poll() {
+        long next = consumed + 1;
+        LedgerCommand command = get(next);
+        return command.sequence == next ? command : null;
+    }
+
+    void release(LedgerCommand command) {
+        long sequence = command.sequence;
+        command.clear();
+        consumed = sequence;
+    }
+
+    // 나눠 준 순번을 모두 처리했는지
+    boolean isDrained() {
+        return claimed.get() == consumed;
+    }
+
+    int pending() {
+        return (int) (claimed.get() - consumed);
+    }
+}
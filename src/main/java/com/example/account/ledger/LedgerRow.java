@@ -0,0 +1,62 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * 메모리 원장에서 처리한 성공 거래 한 건 (LedgerStore 가 Transaction 으로 저장한다)
+ * 저장 전의 거래를 취소할 수 있도록 취소 검증용 projection 으로도 쓴다.
+ */
+record LedgerRow(
+        long accountId,
+        String accountNumber,
+        TransactionType transactionType,
+        long amount,
+        long balanceSnapshot,
+        String transactionId,
+        LocalDateTime transactedAt
+) implements TransactionCancelView {
+    @Override
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    @Override
+    public TransactionResultType getTransactionResultType() {
+        return S;
+    }
+
+    @Override
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public Long getAmount() {
+        return amount;
+    }
+
+    @Override
+    public LocalDateTime getTransactedAt() {
+        return transactedAt;
+    }
+
+    Transaction toEntity(Account account) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.account.ledger;
+
+import com.example.account.type.AccountStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 메모리 원장의 한 시점 복사본
+ * transactionMark 는 이 시점까지의 거래를 모두 저장한 뒤의 마지막 거래 id 로,
+ * 재시작 시 이 id 이후의 거래를 Transaction 테이블에서 다시 읽어 잔액을 맞춘다.
+ * 파일은 임시 파일에 쓰고 옮기며, 끝의 crc 가 맞지 않으면 읽지 않는다.
+ */
+@Slf4j
+final class LedgerSnapshot {
+    private static final int MAGIC = 0x4C444752;
+    private static final int VERSION = 1;
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private final long[] ids;
+    private final String[] accountNumbers;
+    private final long[] ownerIds;
+    private final byte[] statuses;
+    private final long[] balances;
+    private final LocalDateTime takenAt;
+    private long transactionMark;
+    // 마지막 스냅샷 이후 잔액이 바뀐 계좌의 위치 (파일에는 쓰지 않는다)
+    private int[] changed = new int[0];
+    private int changedCount;
+
+    private LedgerSnapshot(int size, LocalDateTime takenAt) {
+        this.ids = new long[size];
+        this.accountNumbers = new String[size];
+        this.ownerIds = new long[size];
+        this.statuses = new byte[size];
+        this.balances = new long[size];
+        this.takenAt = takenAt;
+    }
+
+    // 처리 스레드에서 호출한다. 잔액이 바뀐 계좌를 함께 모으고 표시를 지운다.
+    static LedgerSnapshot copyOf(Collection<LedgerAccount> accounts, LocalDateTime takenAt) {
+        LedgerSnapshot snapshot = new LedgerSnapshot(accounts.size(), takenAt);
+        snapshot.changed = new int[accounts.size()];
+        int i = 0;
+        for (LedgerAccount account : accounts) {
+            if (account.dirty) {
+                snapshot.changed[snapshot.changedCount++] = i;
+                account.dirty = false;
+            }
+            snapshot.ids[i] = account.id;
+            snapshot.accountNumbers[i] = account.accountNumber;
+            snapshot.ownerIds[i] = account.ownerId;
+            snapshot.statuses[i] = (byte) account.accountStatus.ordinal();
+            snapshot.balances[i] = account.balance;
+            i++;
+        }
+        return snapshot;
+    }
+
+    void forEach(Consumer<LedgerAccount> consumer) {
+        for (int i = 0; i < ids.length; i++) {
+            consumer.accept(new LedgerAccount(ids[i], accountNumbers[i], ownerIds[i],
+                    STATUSES[statuses[i]], balances[i]));
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long[] changedIds() {
+        long[] changedIds = new long[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            changedIds[i] = ids[changed[i]];
+        }
+        return changedIds;
+    }
+
+    long[] changedBalances() {
+        long[] changedBalances = new long[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            changedBalances[i] = balances[changed[i]];
+        }
+        return changedBalances;
+    }
+
+    LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    long getTransactionMark() {
+        return transactionMark;
+    }
+
+    void setTransactionMark(long transactionMark) {
+        this.transactionMark = transactionMark;
+    }
+
+    void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(
+                     new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(transactionMark);
+            out.writeLong(takenAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(takenAt.getNano());
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeLong(ids[i]);
+                out.writeUTF(accountNumbers[i]);
+                out.writeLong(ownerIds[i]);
+                out.writeByte(statuses[i]);
+                out.writeLong(balances[i]);
+            }
+            out.flush();
+            // crc 는 검사 대상에 넣지 않는다.
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 파일이 없거나 깨졌으면 null
+    static LedgerSnapshot read(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Unknown ledger snapshot format : {}", path);
+                return null;
+            }
+            long transactionMark = in.readLong();
+            LocalDateTime takenAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(),
+                    ZoneOffset.UTC);
+            LedgerSnapshot snapshot = new LedgerSnapshot(in.readInt(), takenAt);
+            snapshot.transactionMark = transactionMark;
+            for (int i = 0; i < snapshot.ids.length; i++) {
+                snapshot.ids[i] = in.readLong();
+                snapshot.accountNumbers[i] = in.readUTF();
+                snapshot.ownerIds[i] = in.readLong();
+                snapshot.statuses[i] = in.readByte();
+                snapshot.balances[i] = in.readLong();
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                log.warn("Corrupted ledger snapshot : {}", path);
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Failed to read ledger snapshot : {}", path, e);
+            return null;
+        }
+    }
+}
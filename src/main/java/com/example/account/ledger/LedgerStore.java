@@ -0,0 +1,70 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.AccountLedgerView;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 메모리 원장(LedgerEngine)의 DB 읽기, 쓰기
+ * 처리 스레드는 DB 를 읽지 않는다. 재구성과 저장은 각자의 스레드에서 이 클래스를 통해서만 한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerStore {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    public List<AccountLedgerView> loadAccounts() {
+        return accountRepository.findLedgerViews();
+    }
+
+    public List<AccountLedgerView> loadAccountsChangedSince(LocalDateTime since) {
+        return accountRepository.findLedgerViewsChangedSince(since);
+    }
+
+    public List<AccountBalanceView> loadLatestBalancesAfter(long transactionMark) {
+        return transactionRepository.findLatestBalancesAfter(transactionMark);
+    }
+
+    // 잔액 사용 취소 대상 거래는 바뀌지 않으므로 발행하는 스레드에서 읽는다.
+    public Optional<TransactionCancelView> findCancelView(String transactionId) {
+        return transactionRepository.findCancelViewByTransactionId(transactionId);
+    }
+
+    /**
+     * 거래를 한 번의 flush 로 저장한다. (jdbc batch insert)
+     * 계좌 잔액은 UPDATE 하지 않는다. (스냅샷 시 writeBalances 로 쓴다)
+     *
+     * @return 저장한 거래 중 가장 큰 id
+     */
+    @Transactional
+    public long saveRows(List<LedgerRow> rows) {
+        List<Transaction> transactions = rows.stream()
+                .map(row -> row.toEntity(accountRepository.getReferenceById(row.accountId())))
+                .toList();
+        long lastId = 0L;
+        for (Transaction transaction : transactionRepository.saveAllAndFlush(transactions)) {
+            lastId = Math.max(lastId, transaction.getId());
+        }
+        return lastId;
+    }
+
+    // 메모리 원장의 잔액을 계좌 테이블에 쓴다.
+    @Transactional
+    public void writeBalances(long[] ids, long[] balances, int from, int to) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = from; i < to; i++) {
+            accountRepository.setBalance(ids[i], balances[i], now);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.account.ledger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 명령 하나가 남긴 거래 묶음과, 저장이 끝나면 완료할 결과 (저장 전에 응답했다면 future 는 null)
+ * rows 가 비어 있으면 스냅샷 기준점으로, 앞선 거래를 모두 저장한 뒤 마지막 거래 id 로 완료한다.
+ */
+record LedgerWrite(List<LedgerRow> rows, Object result, CompletableFuture<Object> future) {
+    static LedgerWrite marker() {
+        return new LedgerWrite(List.of(), null, new CompletableFuture<>());
+    }
+
+    boolean isMarker() {
+        return rows.isEmpty();
+    }
+}
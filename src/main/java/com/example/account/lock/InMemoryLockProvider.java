@@ -0,0 +1,87 @@
+package com.example.account.lock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 단일 노드 배포용 lock 저장소
+ * Redis 를 거치지 않고 JVM 메모리에 lock 소유자와 만료 시각을 저장한다.
+ * 대기 중에는 스레드를 붙잡지 않고 짧은 간격으로 다시 시도한다.
+ */
+public class InMemoryLockProvider implements LockProvider {
+    private static final long RETRY_INTERVAL_MILLIS = 1L;
+
+    private final ConcurrentHashMap<String, Holder> holders = new ConcurrentHashMap<>();
+    private final Executor retryExecutor =
+            CompletableFuture.delayedExecutor(RETRY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String key, long ownerId,
+                                                   long waitMillis, long leaseMillis) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        return attempt(key, ownerId, leaseMillis, deadline);
+    }
+
+    private CompletableFuture<Boolean> attempt(String key, long ownerId,
+                                               long leaseMillis, long deadline) {
+        if (tryAcquire(key, ownerId, leaseMillis)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> null, retryExecutor)
+                .thenCompose(ignored -> attempt(key, ownerId, leaseMillis, deadline));
+    }
+
+    private boolean tryAcquire(String key, long ownerId, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        boolean[] acquired = new boolean[1];
+        holders.compute(key, (k, current) -> {
+            if (current == null || current.expiresAt <= now) {
+                acquired[0] = true;
+                return new Holder(ownerId, 1, now + leaseMillis);
+            }
+            if (current.ownerId == ownerId) {
+                acquired[0] = true;
+                return new Holder(ownerId, current.holdCount + 1, now + leaseMillis);
+            }
+            return current;
+        });
+        return acquired[0];
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        boolean[] owned = new boolean[1];
+        holders.computeIfPresent(key, (k, current) -> {
+            if (current.ownerId != ownerId || current.expiresAt <= System.currentTimeMillis()) {
+                return current;
+            }
+            owned[0] = true;
+            return current.holdCount > 1
+                    ? new Holder(ownerId, current.holdCount - 1, current.expiresAt)
+                    : null;
+        });
+        if (!owned[0]) {
+            // Redisson 과 같이 소유하지 않은 lock 해제는 실패로 완료한다.
+            return CompletableFuture.failedFuture(new IllegalMonitorStateException(
+                    "Attempt to unlock lock, not locked by owner : " + key));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static final class Holder {
+        private final long ownerId;
+        private final int holdCount;
+        private final long expiresAt;
+
+        private Holder(long ownerId, int holdCount, long expiresAt) {
+            this.ownerId = ownerId;
+            this.holdCount = holdCount;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
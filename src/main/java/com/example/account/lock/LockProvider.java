@@ -0,0 +1,27 @@
+package com.example.account.lock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 계좌 lock 저장소
+ * lock 소유자는 스레드가 아니라 ownerId 로 구분하므로 다른 스레드에서 해제할 수 있다.
+ * 같은 ownerId 로 다시 취득하면 재진입으로 처리한다.
+ */
+public interface LockProvider {
+    // 대기 시간 안에 lock 을 취득하면 true, 아니면 false 로 완료된다.
+    CompletableFuture<Boolean> tryLockAsync(String key, long ownerId,
+                                            long waitMillis, long leaseMillis);
+
+    CompletableFuture<Void> unlockAsync(String key, long ownerId);
+
+    /**
+     * 대기 시간 안에 모든 key 를 취득하면 true, 아니면 이미 취득한 key 를 해제하고 false 로 완료된다.
+     * 호출하는 쪽은 교착을 피하도록 정렬된 순서로 key 를 넘긴다.
+     * 기본 구현은 key 를 순서대로 하나씩 취득한다.
+     */
+    default CompletableFuture<Boolean> tryLockAllAsync(List<String> keys, long ownerId,
+                                                       long waitMillis, long leaseMillis) {
+        return SequentialMultiLock.tryLockAll(this, keys, ownerId, waitMillis, leaseMillis);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Redis 하나에 lock 을 저장한다.
+@RequiredArgsConstructor
+public class RedissonLockProvider implements LockProvider {
+    // 여러 key 를 취득하지 못했을 때 다시 시도하기까지의 최대 대기 시간
+    private static final long LOCK_ALL_RETRY_MILLIS = 10L;
+
+    /**
+     * Redisson RLock 과 같은 형식(hash 의 소유자 필드 = 재진입 횟수)으로 여러 key 를 한 번에 취득한다.
+     * 하나라도 다른 소유자가 잡고 있으면 아무것도 취득하지 않고 그 key 의 남은 lease(ms)를 반환한다.
+     * 취득한 key 는 RLock.unlockAsync 로 하나씩 해제할 수 있다.
+     * KEYS = lock key, ARGV[1] = lease(ms), ARGV[2] = 소유자 이름
+     */
+    private static final String LOCK_ALL_SCRIPT =
+            "for i = 1, #KEYS do " +
+                    "if (redis.call('exists', KEYS[i]) == 1) " +
+                    "and (redis.call('hexists', KEYS[i], ARGV[2]) == 0) then " +
+                    "return math.max(redis.call('pttl', KEYS[i]), 0); " +
+                    "end; " +
+            "end; " +
+            "for i = 1, #KEYS do " +
+                    "redis.call('hincrby', KEYS[i], ARGV[2], 1); " +
+                    "redis.call('pexpire', KEYS[i], ARGV[1]); " +
+            "end; " +
+            "return nil;";
+
+    private final RedissonClient redissonClient;
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String key, long ownerId,
+                                                   long waitMillis, long leaseMillis) {
+        return redissonClient.getLock(key)
+                .tryLockAsync(waitMillis, leaseMillis, TimeUnit.MILLISECONDS, ownerId)
+                .toCompletableFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        return redissonClient.getLock(key)
+                .unlockAsync(ownerId)
+                .toCompletableFuture();
+    }
+
+    /**
+     * 모든 key 를 스크립트 한 번(왕복 한 번)으로 취득한다.
+     * 다른 소유자가 잡고 있으면 대기 시간 안에서 잠시 뒤 다시 시도한다.
+     * 스크립트가 여러 key 에 접근하므로 Redis Cluster 에서는 key 가 같은 slot 에 있어야 한다.
+     */
+    @Override
+    public CompletableFuture<Boolean> tryLockAllAsync(List<String> keys, long ownerId,
+                                                      long waitMillis, long leaseMillis) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        return attemptLockAll(new ArrayList<>(keys), lockName(ownerId), deadline, leaseMillis);
+    }
+
+    private CompletableFuture<Boolean> attemptLockAll(List<Object> keys, String lockName,
+                                                      long deadline, long leaseMillis) {
+        return redissonClient.getScript(LongCodec.INSTANCE)
+                .<Long>evalAsync(RScript.Mode.READ_WRITE, LOCK_ALL_SCRIPT,
+                        RScript.ReturnType.INTEGER, keys, leaseMillis, lockName)
+                .toCompletableFuture()
+                .thenCompose(ttl -> {
+                    if (ttl == null) {
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    long delay = Math.max(1L,
+                            Math.min(Math.min(ttl, LOCK_ALL_RETRY_MILLIS), remaining));
+                    return CompletableFuture.supplyAsync(() -> null,
+                                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored ->
+                                    attemptLockAll(keys, lockName, deadline, leaseMillis));
+                });
+    }
+
+    // RedissonLock 의 소유자 이름 (클라이언트 id : ownerId)
+    private String lockName(long ownerId) {
+        return redissonClient.getId() + ":" + ownerId;
+    }
+
+    public void shutdown() {
+        redissonClient.shutdown();
+    }
+}
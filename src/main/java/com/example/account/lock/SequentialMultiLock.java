@@ -0,0 +1,51 @@
+package com.example.account.lock;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// LockProvider.tryLockAllAsync 의 기본 구현 - key 마다 남은 대기 시간 안에서 차례로 취득한다.
+@Slf4j
+final class SequentialMultiLock {
+    private SequentialMultiLock() {
+    }
+
+    static CompletableFuture<Boolean> tryLockAll(LockProvider lockProvider, List<String> keys,
+                                                 long ownerId, long waitMillis, long leaseMillis) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        return tryLockFrom(lockProvider, keys, 0, ownerId, deadline, leaseMillis);
+    }
+
+    private static CompletableFuture<Boolean> tryLockFrom(LockProvider lockProvider,
+                                                          List<String> keys, int index,
+                                                          long ownerId, long deadline,
+                                                          long leaseMillis) {
+        if (index == keys.size()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        long remaining = Math.max(deadline - System.currentTimeMillis(), 0L);
+        return lockProvider.tryLockAsync(keys.get(index), ownerId, remaining, leaseMillis)
+                .handle((locked, e) -> {
+                    if (e == null && locked) {
+                        return tryLockFrom(lockProvider, keys, index + 1, ownerId,
+                                deadline, leaseMillis);
+                    }
+                    unlockAll(lockProvider, keys.subList(0, index), ownerId);
+                    return e == null
+                            ? CompletableFuture.completedFuture(false)
+                            : CompletableFuture.<Boolean>failedFuture(e);
+                })
+                .thenCompose(result -> result);
+    }
+
+    private static void unlockAll(LockProvider lockProvider, List<String> keys, long ownerId) {
+        for (String key : keys) {
+            lockProvider.unlockAsync(key, ownerId).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    log.error("Unlock failed : {}", key, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.account.lock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * lock key 의 hash 로 여러 Redis 중 하나를 골라 lock 을 저장한다.
+ * 같은 key 는 항상 같은 Redis 로 가므로 Redis 를 늘리면 lock 처리량도 늘어난다.
+ */
+public class ShardedRedissonLockProvider implements LockProvider {
+    private final List<RedissonLockProvider> shards;
+
+    public ShardedRedissonLockProvider(List<RedissonLockProvider> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one redis shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryLockAsync(String key, long ownerId,
+                                                   long waitMillis, long leaseMillis) {
+        return shardOf(key).tryLockAsync(key, ownerId, waitMillis, leaseMillis);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String key, long ownerId) {
+        return shardOf(key).unlockAsync(key, ownerId);
+    }
+
+    // 모든 key 가 같은 Redis 에 있으면 그 Redis 에서 한 번에 취득하고, 아니면 순서대로 하나씩 취득한다.
+    @Override
+    public CompletableFuture<Boolean> tryLockAllAsync(List<String> keys, long ownerId,
+                                                      long waitMillis, long leaseMillis) {
+        RedissonLockProvider shard = keys.isEmpty() ? shards.get(0) : shardOf(keys.get(0));
+        if (keys.stream().allMatch(key -> shardOf(key) == shard)) {
+            return shard.tryLockAllAsync(keys, ownerId, waitMillis, leaseMillis);
+        }
+        return LockProvider.super.tryLockAllAsync(keys, ownerId, waitMillis, leaseMillis);
+    }
+
+    RedissonLockProvider shardOf(String key) {
+        return shards.get(Math.floorMod(key.hashCode(), shards.size()));
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public void shutdown() {
+        shards.forEach(RedissonLockProvider::shutdown);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.account.metrics;
+
+import com.example.account.service.LocalLockTier;
+import com.example.account.type.LockOutcome;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /actuator/accountlocks
+ * lock 대기/보유 시간 백분위, 취득 결과별 횟수, 로컬 handoff 비율, 경합 상위 계좌
+ */
+@Component
+@Endpoint(id = "accountlocks")
+@RequiredArgsConstructor
+public class AccountLockEndpoint {
+    private final LockMetrics lockMetrics;
+    private final LocalLockTier localLockTier;
+    private final HotAccountDetector hotAccountDetector;
+
+    @ReadOperation
+    public Map<String, Object> accountLocks() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("waitMillis", percentiles(lockMetrics.getWaitTimer()));
+        result.put("holdMillis", percentiles(lockMetrics.getHoldTimer()));
+
+        Map<String, Long> outcomes = new LinkedHashMap<>();
+        for (LockOutcome outcome : LockOutcome.values()) {
+            outcomes.put(outcome.name(), lockMetrics.getCount(outcome));
+        }
+        result.put("outcomes", outcomes);
+        result.put("handoffHitRate", localLockTier.getHandoffHitRate());
+        result.put("hotAccounts", hotAccountDetector.getTopAccounts());
+        return result;
+    }
+
+    private static Map<String, Double> percentiles(Timer timer) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        result.put("count", (double) timer.count());
+        result.put("max", timer.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            result.put("p" + percentile.percentile(), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.account.metrics;
+
+import com.example.account.index.AccountIndex;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.service.AccountStateCache;
+import com.example.account.service.BalanceStripes;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.FailedTransactionRollupStore;
+import com.example.account.service.GroupCommitService;
+import com.example.account.service.LocalLockTier;
+import com.example.account.service.OptimisticRetryAspect;
+import com.example.account.service.PreLockValidator;
+import com.example.account.service.ShardedTransactionExecutor;
+import com.example.account.service.TransactionJournalApplier;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 각 컴포넌트가 자체적으로 세는 카운터를 Micrometer 메트릭으로 등록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountMetricsBinder implements MeterBinder {
+    private final LocalLockTier localLockTier;
+    private final OptimisticRetryAspect optimisticRetryAspect;
+    private final ShardedTransactionExecutor shardedTransactionExecutor;
+    private final HotAccountDetector hotAccountDetector;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final FailedTransactionRollupStore failedTransactionRollupStore;
+    private final AccountStateCache accountStateCache;
+    private final PreLockValidator preLockValidator;
+    private final BalanceStripes balanceStripes;
+    private final GroupCommitService groupCommitService;
+    private final TransactionJournal transactionJournal;
+    private final TransactionJournalApplier transactionJournalApplier;
+    private final LedgerEngine ledgerEngine;
+    private final AccountIndex accountIndex;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("account.lock.local.distributed-acquires", localLockTier,
+                LocalLockTier::getDistributedAcquires).register(registry);
+        FunctionCounter.builder("account.lock.local.handoffs", localLockTier,
+                LocalLockTier::getHandoffHits).register(registry);
+        FunctionCounter.builder("account.lock.local.timeouts", localLockTier,
+                LocalLockTier::getLocalTimeouts).register(registry);
+        Gauge.builder("account.lock.local.handoff-hit-rate", localLockTier,
+                LocalLockTier::getHandoffHitRate).register(registry);
+
+        FunctionCounter.builder("account.optimistic.conflicts", optimisticRetryAspect,
+                OptimisticRetryAspect::getConflicts).register(registry);
+        FunctionCounter.builder("account.optimistic.retries", optimisticRetryAspect,
+                OptimisticRetryAspect::getRetries).register(registry);
+        FunctionCounter.builder("account.optimistic.exhausted", optimisticRetryAspect,
+                OptimisticRetryAspect::getExhausted).register(registry);
+
+        FunctionCounter.builder("account.shard.rejected", shardedTransactionExecutor,
+                ShardedTransactionExecutor::getRejected).register(registry);
+
+        FunctionCounter.builder("account.failure-log.written", failedTransactionRecorder,
+                FailedTransactionRecorder::getWritten).register(registry);
+        FunctionCounter.builder("account.failure-log.dropped", failedTransactionRecorder,
+                FailedTransactionRecorder::getDropped).register(registry);
+        FunctionCounter.builder("account.failure-log.write-failures", failedTransactionRecorder,
+                FailedTransactionRecorder::getWriteFailures).register(registry);
+        Gauge.builder("account.failure-log.queue-size", failedTransactionRecorder,
+                FailedTransactionRecorder::getQueueSize).register(registry);
+        FunctionCounter.builder("account.failure-log.rollup.recorded", failedTransactionRollupStore,
+                FailedTransactionRollupStore::getRecorded).register(registry);
+        FunctionCounter.builder("account.failure-log.rollup.flushed-rows", failedTransactionRollupStore,
+                FailedTransactionRollupStore::getFlushedRows).register(registry);
+        Gauge.builder("account.failure-log.rollup.pending", failedTransactionRollupStore,
+                FailedTransactionRollupStore::getPendingSize).register(registry);
+
+        FunctionCounter.builder("account.state-cache.hits", accountStateCache,
+                AccountStateCache::getHits).register(registry);
+        FunctionCounter.builder("account.state-cache.misses", accountStateCache,
+                AccountStateCache::getMisses).register(registry);
+        FunctionCounter.builder("account.state-cache.validations", accountStateCache,
+                AccountStateCache::getValidations).register(registry);
+        FunctionCounter.builder("account.state-cache.mismatches", accountStateCache,
+                AccountStateCache::getMismatches).register(registry);
+
+        FunctionCounter.builder("account.pre-validation.rejected", preLockValidator,
+                PreLockValidator::getRejected).register(registry);
+
+        FunctionCounter.builder("account.striping.combines", balanceStripes,
+                BalanceStripes::getCombines).register(registry);
+
+        FunctionCounter.builder("account.group-commit.batches", groupCommitService,
+                GroupCommitService::getBatches).register(registry);
+        FunctionCounter.builder("account.group-commit.operations", groupCommitService,
+                GroupCommitService::getOperations).register(registry);
+
+        FunctionCounter.builder("account.journal.appended", transactionJournal,
+                TransactionJournal::getAppended).register(registry);
+        FunctionCounter.builder("account.journal.syncs", transactionJournal,
+                TransactionJournal::getSyncs).register(registry);
+        FunctionCounter.builder("account.journal.applied", transactionJournalApplier,
+                TransactionJournalApplier::getApplied).register(registry);
+        FunctionCounter.builder("account.journal.apply-failures", transactionJournalApplier,
+                TransactionJournalApplier::getApplyFailures).register(registry);
+        Gauge.builder("account.journal.unapplied", transactionJournalApplier,
+                TransactionJournalApplier::getUnappliedSize).register(registry);
+
+        FunctionCounter.builder("account.ledger.processed", ledgerEngine,
+                LedgerEngine::getProcessed).register(registry);
+        FunctionCounter.builder("account.ledger.rejected", ledgerEngine,
+                LedgerEngine::getRejected).register(registry);
+        FunctionCounter.builder("account.ledger.persisted-rows", ledgerEngine,
+                LedgerEngine::getPersistedRows).register(registry);
+        FunctionCounter.builder("account.ledger.persist-failures", ledgerEngine,
+                LedgerEngine::getPersistFailures).register(registry);
+        FunctionCounter.builder("account.ledger.snapshots", ledgerEngine,
+                LedgerEngine::getSnapshots).register(registry);
+        Gauge.builder("account.ledger.pending-writes", ledgerEngine,
+                LedgerEngine::getPendingWrites).register(registry);
+
+        FunctionCounter.builder("account.index.hits", accountIndex,
+                AccountIndex::getHits).register(registry);
+        FunctionCounter.builder("account.index.misses", accountIndex,
+                AccountIndex::getMisses).register(registry);
+        Gauge.builder("account.index.size", accountIndex, AccountIndex::size).register(registry);
+        Gauge.builder("account.index.capacity-bytes", accountIndex,
+                AccountIndex::getCapacityBytes).register(registry);
+
+        FunctionCounter.builder("account.lock.hot-account.dropped", hotAccountDetector,
+                HotAccountDetector::getDropped).register(registry);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.HotAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * lock 경합이 많은 계좌 상위 K 개를 구한다.
+ * 현재 구간과 직전 구간 두 개만 유지해서 최근 1~2 구간의 경합 횟수로 순위를 매긴다.
+ */
+@Component
+public class HotAccountDetector {
+    private final long windowMillis;
+    private final int topK;
+    // 구간당 추적하는 최대 계좌 수 (초과하면 새 계좌는 집계하지 않는다)
+    private final int maxTracked;
+
+    private volatile Window current;
+    private volatile Window previous;
+
+    private final LongAdder dropped = new LongAdder();
+
+    public HotAccountDetector(
+            @Value("${account.lock.hot-account.window-seconds:60}") long windowSeconds,
+            @Value("${account.lock.hot-account.top-k:10}") int topK,
+            @Value("${account.lock.hot-account.max-tracked:10000}") int maxTracked
+    ) {
+        this.windowMillis = windowSeconds * 1000L;
+        this.topK = topK;
+        this.maxTracked = maxTracked;
+        this.current = new Window(System.currentTimeMillis());
+        this.previous = new Window(0L);
+    }
+
+    public void recordContention(String accountNumber) {
+        Window window = currentWindow(System.currentTimeMillis());
+        LongAdder count = window.counts.get(accountNumber);
+        if (count == null) {
+            if (window.counts.size() >= maxTracked) {
+                dropped.increment();
+                return;
+            }
+            count = window.counts.computeIfAbsent(accountNumber, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    public List<HotAccount> getTopAccounts() {
+        Window window = currentWindow(System.currentTimeMillis());
+        Map<String, Long> merged = new HashMap<>();
+        previous.counts.forEach((accountNumber, count) ->
+                merged.merge(accountNumber, count.sum(), Long::sum));
+        window.counts.forEach((accountNumber, count) ->
+                merged.merge(accountNumber, count.sum(), Long::sum));
+
+        return merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> new HotAccount(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private Window currentWindow(long now) {
+        Window window = current;
+        if (now - window.startedAt < windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            if (current == window) {
+                // 두 구간 이상 지났다면 직전 구간도 오래된 데이터다.
+                previous = now - window.startedAt < windowMillis * 2 ? window : new Window(0L);
+                current = new Window(now);
+            }
+            return current;
+        }
+    }
+
+    private static final class Window {
+        private final long startedAt;
+        private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.account.metrics;
+
+import com.example.account.type.LockOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 lock 대기 시간, 보유 시간, 취득 결과별 횟수
+ * 대기/보유 시간은 HdrHistogram 기반 timer 로 p50, p99, p999 를 계산한다.
+ */
+@Component
+public class LockMetrics {
+    // 이보다 오래 기다렸다면 경합이 있었던 것으로 본다.
+    private static final long CONTENTION_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+    private final Map<LockOutcome, Counter> outcomeCounters = new EnumMap<>(LockOutcome.class);
+    private final HotAccountDetector hotAccountDetector;
+
+    public LockMetrics(MeterRegistry meterRegistry, HotAccountDetector hotAccountDetector) {
+        this.hotAccountDetector = hotAccountDetector;
+        this.waitTimer = Timer.builder("account.lock.wait")
+                .description("계좌 lock 취득까지 대기한 시간")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .description("계좌 lock 을 잡고 있던 시간")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        for (LockOutcome outcome : LockOutcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("account.lock.acquire")
+                    .description("계좌 lock 취득 시도 결과")
+                    .tag("outcome", outcome.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @param busy 도착했을 때 같은 노드의 다른 요청이 lock 을 잡고 있었는지 여부
+     */
+    public void recordAcquire(String accountNumber, LockOutcome outcome,
+                              long waitNanos, boolean busy) {
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        outcomeCounters.get(outcome).increment();
+        if (busy || waitNanos >= CONTENTION_THRESHOLD_NANOS || isFailure(outcome)) {
+            hotAccountDetector.recordContention(accountNumber);
+        }
+    }
+
+    public void recordHold(long holdNanos) {
+        holdTimer.record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer getWaitTimer() {
+        return waitTimer;
+    }
+
+    public Timer getHoldTimer() {
+        return holdTimer;
+    }
+
+    public long getCount(LockOutcome outcome) {
+        return (long) outcomeCounters.get(outcome).count();
+    }
+
+    private static boolean isFailure(LockOutcome outcome) {
+        return outcome != LockOutcome.ACQUIRED && outcome != LockOutcome.HANDOFF;
+    }
+}
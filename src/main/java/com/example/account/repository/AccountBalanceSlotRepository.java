@@ -0,0 +1,44 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.dto.AccountBalanceView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+    // slot 잔액을 증가시킨다. 변경된 row 수를 반환한다. (slot 이 아직 없으면 0)
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount, s.updatedAt = :now " +
+            "where s.account.id = :accountId and s.slotIndex = :slotIndex")
+    int addBalance(@Param("accountId") Long accountId,
+                   @Param("slotIndex") Integer slotIndex,
+                   @Param("amount") Long amount,
+                   @Param("now") LocalDateTime now);
+
+    // slot 잔액이 amount 이상일 때만 차감한다. 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance - :amount, s.updatedAt = :now " +
+            "where s.id = :id and s.balance >= :amount")
+    int takeBalance(@Param("id") Long id,
+                    @Param("amount") Long amount,
+                    @Param("now") LocalDateTime now);
+
+    @Query("select s.id as id, s.balance as balance from AccountBalanceSlot s " +
+            "where s.account.id = :accountId and s.balance > 0")
+    List<AccountBalanceView> findNonEmptyByAccountId(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s " +
+            "where s.account.id = :accountId")
+    long sumBalanceByAccountId(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s " +
+            "where s.account.accountNumber = :accountNumber")
+    long sumBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+}
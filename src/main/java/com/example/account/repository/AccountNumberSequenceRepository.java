@@ -0,0 +1,28 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AccountNumberSequenceRepository extends JpaRepository<AccountNumberSequence, String> {
+    // 카운터를 blockSize 만큼 올린다. 트랜잭션이 끝날 때까지 row lock 이 유지된다. 변경된 row 수를 반환한다.
+    @Modifying(clearAutomatically = true)
+    @Query("update AccountNumberSequence s set s.nextValue = s.nextValue + :blockSize " +
+            "where s.name = :name")
+    int increment(@Param("name") String name, @Param("blockSize") long blockSize);
+
+    // merge 로 기존 카운터를 덮어쓰지 않도록 insert 만 한다. 이미 있으면 키 중복으로 실패한다.
+    @Modifying
+    @Query(value = "insert into account_number_sequence(name, next_value) " +
+            "values (:name, :nextValue)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("nextValue") long nextValue);
+
+    @Query("select s.nextValue from AccountNumberSequence s where s.name = :name")
+    Optional<Long> findNextValueByName(@Param("name") String name);
+}
@@ -2,9 +2,19 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.AccountIndexView;
+import com.example.account.dto.AccountLedgerView;
+import com.example.account.dto.AccountSnapshotView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +27,83 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String AccountNumber);
 
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    boolean existsByAccountNumber(String accountNumber);
+
+    @Query("select a.accountUser.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findOwnerIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select a.id as id, a.balance as balance from Account a " +
+            "where a.accountNumber = :accountNumber")
+    Optional<AccountBalanceView> findBalanceByAccountNumber(
+            @Param("accountNumber") String accountNumber);
+
+    @Query("select a.accountStatus as accountStatus, a.balance as balance from Account a " +
+            "where a.accountNumber = :accountNumber")
+    Optional<AccountSnapshotView> findSnapshotByAccountNumber(
+            @Param("accountNumber") String accountNumber);
+
+    // 사용 중이고 소유주가 같고 잔액이 충분한 경우에만 잔액을 차감한다. 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount, " +
+            "a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber " +
+            "and a.accountStatus = com.example.account.type.AccountStatus.IN_USE " +
+            "and a.balance >= :amount and a.accountUser.id = :userId")
+    int debitBalance(@Param("accountNumber") String accountNumber,
+                     @Param("userId") Long userId,
+                     @Param("amount") Long amount,
+                     @Param("now") LocalDateTime now);
+
+    // 캐시된 version 과 같을 때만 잔액을 바꾼다. (AccountStateCache) 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update Account a set a.balance = :balance, " +
+            "a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.id = :id and a.version = :version")
+    int updateBalance(@Param("id") Long id,
+                      @Param("version") Long version,
+                      @Param("balance") Long balance,
+                      @Param("now") LocalDateTime now);
+
+    // 잔액을 증가시킨다. 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, " +
+            "a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber")
+    int creditBalance(@Param("accountNumber") String accountNumber,
+                      @Param("amount") Long amount,
+                      @Param("now") LocalDateTime now);
+
+    // 메모리 원장의 잔액을 그대로 쓴다. (LedgerEngine) 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update Account a set a.balance = :balance, " +
+            "a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.id = :id")
+    int setBalance(@Param("id") Long id,
+                   @Param("balance") Long balance,
+                   @Param("now") LocalDateTime now);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as ownerId, " +
+            "a.accountStatus as accountStatus, a.balance as balance from Account a")
+    List<AccountLedgerView> findLedgerViews();
+
+    // 기준 시각 이후 개설되거나 해지된 계좌
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as ownerId, " +
+            "a.accountStatus as accountStatus, a.balance as balance from Account a " +
+            "where a.createdAt >= :since or a.unregisteredAt >= :since")
+    List<AccountLedgerView> findLedgerViewsChangedSince(@Param("since") LocalDateTime since);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as ownerId, " +
+            "a.accountStatus as accountStatus, a.balance as balance, a.version as version " +
+            "from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountIndexView> findIndexViewByAccountNumber(
+            @Param("accountNumber") String accountNumber);
+
+    // id 순서로 이어서 읽는다. (AccountIndex 미리 채우기)
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.accountUser.id as ownerId, " +
+            "a.accountStatus as accountStatus, a.balance as balance, a.version as version " +
+            "from Account a where a.id > :afterId order by a.id")
+    List<AccountIndexView> findIndexViewsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
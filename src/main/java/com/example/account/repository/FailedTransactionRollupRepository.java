@@ -0,0 +1,33 @@
+package com.example.account.repository;
+
+import com.example.account.domain.FailedTransactionRollup;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FailedTransactionRollupRepository extends JpaRepository<FailedTransactionRollup, Long> {
+    // 이미 있는 집계 row 에 횟수와 금액을 더한다. 변경된 row 수를 반환한다.
+    @Modifying
+    @Query("update FailedTransactionRollup r set r.attempts = r.attempts + :attempts, " +
+            "r.totalAmount = r.totalAmount + :totalAmount, r.updatedAt = :now " +
+            "where r.accountNumber = :accountNumber and r.bucketStart = :bucketStart " +
+            "and r.transactionType = :transactionType and r.errorCode = :errorCode")
+    int addCounts(@Param("accountNumber") String accountNumber,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("transactionType") TransactionType transactionType,
+                  @Param("errorCode") ErrorCode errorCode,
+                  @Param("attempts") long attempts,
+                  @Param("totalAmount") long totalAmount,
+                  @Param("now") LocalDateTime now);
+
+    List<FailedTransactionRollup> findByAccountNumberAndBucketStartBetweenOrderByBucketStart(
+            String accountNumber, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,117 @@
+package com.example.account.repository;
+
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * reactive API 용 계좌/거래 저장소 (R2DBC)
+ * JPA 엔티티와 같은 테이블을 SQL 로 직접 읽고 쓴다.
+ * 잔액 변경은 JPA 의 @Version 과 같은 version 컬럼 조건으로 수정한다.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.reactive.enabled", havingValue = "true")
+public class ReactiveTransactionRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<Boolean> existsUserById(Long userId) {
+        return databaseClient.sql("select id from account_user where id = :id")
+                .bind("id", userId)
+                .map(row -> row.get("id", Long.class))
+                .first()
+                .hasElement();
+    }
+
+    public Mono<AccountRow> findAccountByAccountNumber(String accountNumber) {
+        return databaseClient.sql("select id, account_user_id, account_number, account_status, " +
+                        "balance, version from account where account_number = :accountNumber")
+                .bind("accountNumber", accountNumber)
+                .map(ReactiveTransactionRepository::toAccountRow)
+                .first();
+    }
+
+    // 변경된 row 수 (version 이 다르면 0)
+    public Mono<Long> updateBalance(Long id, Long version, Long balance, LocalDateTime now) {
+        return databaseClient.sql("update account set balance = :balance, " +
+                        "version = version + 1, updated_at = :now " +
+                        "where id = :id and version = :version")
+                .bind("balance", balance)
+                .bind("now", now)
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // id 는 JPA 와 같은 entity_id_seq 에서 받는다.
+    public Mono<Long> insertTransaction(TransactionRow transaction) {
+        return databaseClient.sql("insert into transaction(id, transaction_type, " +
+                        "transaction_result_type, account_id, amount, balance_snapshot, " +
+                        "transaction_id, transacted_at, created_at, updated_at) " +
+                        "values (next value for entity_id_seq, :transactionType, " +
+                        ":transactionResultType, :accountId, :amount, :balanceSnapshot, " +
+                        ":transactionId, :transactedAt, :transactedAt, :transactedAt)")
+                .bind("transactionType", transaction.transactionType().name())
+                .bind("transactionResultType", transaction.transactionResultType().name())
+                .bind("accountId", transaction.accountId())
+                .bind("amount", transaction.amount())
+                .bind("balanceSnapshot", transaction.balanceSnapshot())
+                .bind("transactionId", transaction.transactionId())
+                .bind("transactedAt", transaction.transactedAt())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<TransactionRow> findTransactionByTransactionId(String transactionId) {
+        return databaseClient.sql("select t.transaction_type, t.transaction_result_type, " +
+                        "t.account_id, a.account_number, t.amount, t.balance_snapshot, " +
+                        "t.transaction_id, t.transacted_at " +
+                        "from transaction t join account a on a.id = t.account_id " +
+                        "where t.transaction_id = :transactionId")
+                .bind("transactionId", transactionId)
+                .map(ReactiveTransactionRepository::toTransactionRow)
+                .first();
+    }
+
+    private static AccountRow toAccountRow(Readable row) {
+        return new AccountRow(
+                row.get("id", Long.class),
+                row.get("account_user_id", Long.class),
+                row.get("account_number", String.class),
+                AccountStatus.valueOf(row.get("account_status", String.class)),
+                row.get("balance", Long.class),
+                row.get("version", Long.class));
+    }
+
+    private static TransactionRow toTransactionRow(Readable row) {
+        return new TransactionRow(
+                TransactionType.valueOf(row.get("transaction_type", String.class)),
+                TransactionResultType.valueOf(row.get("transaction_result_type", String.class)),
+                row.get("account_id", Long.class),
+                row.get("account_number", String.class),
+                row.get("amount", Long.class),
+                row.get("balance_snapshot", Long.class),
+                row.get("transaction_id", String.class),
+                row.get("transacted_at", LocalDateTime.class));
+    }
+
+    public record AccountRow(Long id, Long accountUserId, String accountNumber,
+                             AccountStatus accountStatus, Long balance, Long version) {
+    }
+
+    public record TransactionRow(TransactionType transactionType,
+                                 TransactionResultType transactionResultType,
+                                 Long accountId, String accountNumber, Long amount,
+                                 Long balanceSnapshot, String transactionId,
+                                 LocalDateTime transactedAt) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.account.repository;
+
+import com.example.account.domain.TransactionJournalCommit;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TransactionJournalCommitRepository
+        extends JpaRepository<TransactionJournalCommit, TransactionJournalCommit.Key> {
+    // 진행 중인 트랜잭션 안에서 insert 만 한다. (merge 의 select 없이)
+    @Modifying
+    @Query(value = "insert into transaction_journal_commit(journal_id, seq) " +
+            "values (:journalId, :seq)", nativeQuery = true)
+    int insert(@Param("journalId") String journalId, @Param("seq") long seq);
+
+    boolean existsByJournalIdAndSeq(String journalId, Long seq);
+
+    // checkpoint 이하의 seq 는 다시 판단할 일이 없으므로 지운다. 지운 row 수를 반환한다.
+    @Transactional
+    @Modifying
+    @Query("delete from TransactionJournalCommit c where c.journalId = :journalId and c.seq <= :seq")
+    int deleteThrough(@Param("journalId") String journalId, @Param("seq") long seq);
+}
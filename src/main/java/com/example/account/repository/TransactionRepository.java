@@ -3,9 +3,14 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.TransactionCancelView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +19,24 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Transaction 테이블에서 transactionId 컬럼을 select 하는 쿼리
     Optional<Transaction> findByTransactionId(String transactionId);
 
+    // 취소 검증용으로 거래 종류, 결과, 계좌번호, 금액, 거래일시만 조회한다.
+    @Query("select t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, " +
+            "t.account.accountNumber as accountNumber, t.amount as amount, " +
+            "t.transactedAt as transactedAt from Transaction t " +
+            "where t.transactionId = :transactionId")
+    Optional<TransactionCancelView> findCancelViewByTransactionId(
+            @Param("transactionId") String transactionId);
+
+    // 이미 저장된 거래 id 만 조회한다. (저널 재적용 시 중복 저장 방지)
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<String> findTransactionIdsIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    // 기준 id 이후 계좌별 마지막 성공 거래의 거래 후 잔액 (메모리 원장 재구성)
+    @Query("select t.account.id as id, t.balanceSnapshot as balance from Transaction t " +
+            "where t.id in (select max(x.id) from Transaction x where x.id > :mark " +
+            "and x.transactionResultType = com.example.account.type.TransactionResultType.S " +
+            "group by x.account.id)")
+    List<AccountBalanceView> findLatestBalancesAfter(@Param("mark") Long mark);
+
 }
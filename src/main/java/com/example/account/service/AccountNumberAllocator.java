@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountNumberSequenceRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계좌번호 발급기 (hi/lo)
+ * DB 카운터에서 block 단위로 번호 구간을 예약하고, 예약한 구간은 메모리에서 lock 없이 발급한다.
+ * 예약은 카운터 row 의 원자적 증가로 이뤄지므로 여러 노드가 동시에 예약해도 구간이 겹치지 않는다.
+ * 노드가 재시작되면 쓰지 않은 구간은 버려진다. (번호에 빈 곳이 생길 수 있다.)
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    static final String SEQUENCE_NAME = "ACCOUNT_NUMBER";
+    static final long FIRST_ACCOUNT_NUMBER = 1000000000L;
+    // 계좌번호는 10자리
+    static final long MAX_ACCOUNT_NUMBER = 9999999999L;
+
+    private final AccountNumberSequenceRepository sequenceRepository;
+    private final AccountRepository accountRepository;
+    // 계좌 생성 트랜잭션이 롤백되어도 예약한 구간은 반납되지 않도록 별도 트랜잭션에서 예약한다.
+    private final TransactionTemplate reserveTransaction;
+    private final long blockSize;
+
+    private volatile Block block = new Block(0L, 0L);
+    // 예약 중에 DB 를 기다리므로 synchronized 대신 사용한다. (가상 스레드 pinning 방지)
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public AccountNumberAllocator(
+            AccountNumberSequenceRepository sequenceRepository,
+            AccountRepository accountRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${account.number.block-size:100}") long blockSize
+    ) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("block-size must be positive : " + blockSize);
+        }
+        this.sequenceRepository = sequenceRepository;
+        this.accountRepository = accountRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String nextAccountNumber() {
+        while (true) {
+            Block current = block;
+            long number = current.next.getAndIncrement();
+            if (number < current.end) {
+                return String.valueOf(number);
+            }
+            refill(current);
+        }
+    }
+
+    // 구간을 다 쓴 스레드 중 하나만 새 구간을 예약한다.
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block == exhausted) {
+                block = reserveBlock();
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Block reserveBlock() {
+        Long end = reserveTransaction.execute(status -> {
+            if (sequenceRepository.increment(SEQUENCE_NAME, blockSize) == 0) {
+                return null;
+            }
+            return sequenceRepository.findNextValueByName(SEQUENCE_NAME).orElse(null);
+        });
+        if (end == null) {
+            initializeSequence();
+            return reserveBlock();
+        }
+
+        long start = end - blockSize;
+        if (start > MAX_ACCOUNT_NUMBER) {
+            log.error("Account number exhausted : {}", start);
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+        }
+        log.debug("Reserved account number block [{}, {})", start, end);
+        return new Block(start, Math.min(end, MAX_ACCOUNT_NUMBER + 1));
+    }
+
+    /**
+     * 카운터가 없으면 기존 마지막 계좌번호 다음 번호로 만든다.
+     * 다른 노드가 먼저 만들었다면 그 카운터를 사용한다.
+     */
+    private void initializeSequence() {
+        long firstValue = accountRepository.findFirstByOrderByIdDesc()
+                .map(account -> Long.parseLong(account.getAccountNumber()) + 1)
+                .orElse(FIRST_ACCOUNT_NUMBER);
+        try {
+            reserveTransaction.executeWithoutResult(status ->
+                    sequenceRepository.insert(SEQUENCE_NAME, firstValue));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Account number sequence already initialized");
+        }
+    }
+
+    // [next, end) 구간의 번호를 발급한다.
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
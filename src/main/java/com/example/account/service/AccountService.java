@@ -4,8 +4,9 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
 import com.example.account.exception.AccountException;
+import com.example.account.index.AccountIndex;
+import com.example.account.ledger.LedgerEngine;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import jakarta.transaction.Transactional;
@@ -24,7 +25,12 @@ import static com.example.account.type.ErrorCode.*;
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
-    private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountStateCache accountStateCache;
+    private final BalanceStripes balanceStripes;
+    private final LedgerEngine ledgerEngine;
+    private final AccountIndex accountIndex;
 
     /**
      * 사용자가 있는지 조회
@@ -38,11 +44,9 @@ public class AccountService {
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
-        return AccountDto.fromEntity(accountRepository.save(
+        Account account = accountRepository.save(
                 Account.builder()
                         .accountUser(accountUser)
                         .accountStatus(IN_USE)
@@ -50,7 +54,10 @@ public class AccountService {
                         .balance(initialBalance)
                         .registeredAt(LocalDateTime.now())
                         .build()
-        ));
+        );
+        accountUserCache.putOwner(newAccountNumber, accountUser.getId());
+        ledgerEngine.onAccountChanged(account);
+        return AccountDto.fromEntity(account);
     }
 
     // 계좌 생성 시에 계좌가 10개 이상인 경우 예외처리
@@ -92,6 +99,8 @@ public class AccountService {
         account.setUnregisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountStateCache.invalidate(accountNumber);
+        ledgerEngine.onAccountChanged(account);
 
         return AccountDto.fromEntity(account);
     }
@@ -105,8 +114,8 @@ public class AccountService {
         if (account.getAccountStatus() == AccountStatus.UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        // 잔액 확인
-        if(account.getBalance() > 0) {
+        // 잔액 확인 (분할 계좌는 slot 잔액 포함)
+        if(currentBalance(account) > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
@@ -118,12 +127,37 @@ public class AccountService {
                 findByAccountUser(accountUser);
 
         return accounts.stream()
-                .map(AccountDto::fromEntity)
+                .map(account -> AccountDto.fromEntity(account, queryBalance(account)))
                 .collect(Collectors.toList());
     }
 
+    // 조회 API 의 잔액은 사전 검증과 같은 계좌 색인에서 읽는다. (색인에 없으면 DB 에서 읽어 채운다)
+    // 분할 계좌는 slot 잔액이 색인에 없으므로 합산한다.
+    private long queryBalance(Account account) {
+        String accountNumber = account.getAccountNumber();
+        if (!ledgerEngine.isEnabled() && accountIndex.isEnabled()
+                && !balanceStripes.isStriped(accountNumber)) {
+            AccountIndex.Entry entry = new AccountIndex.Entry();
+            if (accountIndex.read(accountNumber, entry)) {
+                return entry.getBalance();
+            }
+        }
+        return currentBalance(account);
+    }
+
+    // LEDGER 모드에서는 계좌 테이블의 잔액이 스냅샷 시점의 값이므로 메모리 원장의 잔액을 쓴다.
+    private long currentBalance(Account account) {
+        if (ledgerEngine.isEnabled()) {
+            Long balance = ledgerEngine.getBalance(account.getAccountNumber());
+            if (balance != null) {
+                return balance;
+            }
+        }
+        return account.getBalance() + balanceStripes.slotBalance(account);
+    }
+
     private AccountUser getAccountUser(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
+        AccountUser accountUser = accountUserCache.getUser(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         return accountUser;
     }
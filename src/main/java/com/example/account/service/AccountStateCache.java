@@ -0,0 +1,162 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * lock 범위 계좌 상태 캐시 (account.transaction.state-cache.enabled)
+ * 분산 lock 을 잡고 있는 노드만 계좌를 변경하므로, 이 노드가 lock 을 놓지 않는 동안
+ * (handoff 포함) 커밋된 계좌 상태를 메모리에 두고 SELECT 없이 사용한다.
+ * 항목은 저장할 때의 분산 lock 취득 번호와 함께 보관하고, lock 을 새로 취득했거나 놓았다면 쓰지 않는다.
+ * validate-every 번째 적중마다 캐시를 쓰지 않고 DB 에서 읽어 캐시와 비교한다.
+ */
+@Slf4j
+@Component
+public class AccountStateCache {
+    private final LocalLockTier localLockTier;
+    private final boolean enabled;
+    private final long validateEvery;
+
+    private final Cache<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder validations = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    public AccountStateCache(
+            LocalLockTier localLockTier,
+            @Value("${account.transaction.state-cache.enabled:false}") boolean enabled,
+            @Value("${account.transaction.state-cache.validate-every:100}") long validateEvery,
+            @Value("${account.transaction.state-cache.max-size:10000}") long maxSize
+    ) {
+        this.localLockTier = localLockTier;
+        this.enabled = enabled;
+        this.validateEvery = validateEvery;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 이 노드가 lock 을 잡은 뒤 커밋된 상태가 있으면 반환한다.
+     * 검증 차례라면 null 을 반환해 DB 에서 읽게 하고, 읽은 값은 verify 로 비교한다.
+     */
+    public AccountState get(String accountNumber) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(accountNumber);
+        long epoch = localLockTier.distributedEpoch(accountNumber);
+        if (entry == null || epoch == 0L || entry.lockEpoch() != epoch) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (validateEvery > 0 && hits.sum() % validateEvery == 0) {
+            return null;
+        }
+        return entry.state();
+    }
+
+    // DB 에서 읽은 계좌와 캐시된 상태를 비교한다. 다르면 캐시를 버린다.
+    public void verify(Account account) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = entries.getIfPresent(account.getAccountNumber());
+        if (entry == null
+                || entry.lockEpoch() != localLockTier.distributedEpoch(account.getAccountNumber())) {
+            return;
+        }
+        validations.increment();
+        if (!entry.state().equals(AccountState.from(account))) {
+            mismatches.increment();
+            log.error("Account state cache mismatch : {} cached={} db={}",
+                    account.getAccountNumber(), entry.state(), AccountState.from(account));
+            entries.invalidate(account.getAccountNumber());
+        }
+    }
+
+    // 커밋 후 엔티티의 상태(flush 로 증가한 version 포함)를 저장한다.
+    public void putAfterCommit(Account account) {
+        putAfterCommit(account.getAccountNumber(), () -> AccountState.from(account));
+    }
+
+    public void putAfterCommit(String accountNumber, AccountState state) {
+        putAfterCommit(accountNumber, () -> state);
+    }
+
+    private void putAfterCommit(String accountNumber, Supplier<AccountState> state) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // 커밋 시점에도 lock 을 잡고 있으므로 지금의 취득 번호로 저장한다.
+        long epoch = localLockTier.distributedEpoch(accountNumber);
+        if (epoch == 0L) {
+            entries.invalidate(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entries.put(accountNumber, new Entry(state.get(), epoch));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    entries.invalidate(accountNumber);
+                }
+            }
+        });
+    }
+
+    public void invalidate(String accountNumber) {
+        entries.invalidate(accountNumber);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getValidations() {
+        return validations.sum();
+    }
+
+    public long getMismatches() {
+        return mismatches.sum();
+    }
+
+    public record AccountState(Long id, Long ownerId, AccountStatus accountStatus,
+                               Long balance, Long version) {
+        static AccountState from(Account account) {
+            return new AccountState(account.getId(), account.getAccountUser().getId(),
+                    account.getAccountStatus(), account.getBalance(), account.getVersion());
+        }
+
+        AccountState withBalance(long newBalance) {
+            return new AccountState(id, ownerId, accountStatus, newBalance,
+                    Objects.requireNonNullElse(version, 0L) + 1);
+        }
+    }
+
+    private record Entry(AccountState state, long lockEpoch) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 사용자와 계좌 소유주(계좌번호 -> 사용자 id) 조회 캐시
+ * 사용자는 거의 바뀌지 않으므로 요청마다 DB 를 조회하지 않는다.
+ * 크기와 TTL 로 제한하고, 변경이 생기면 evict 로 직접 무효화한다.
+ * 캐시된 AccountUser 는 영속성 컨텍스트에 속하지 않으므로 id 비교, 연관관계 지정에만 사용한다.
+ * 적중/실패 횟수는 cache.gets 메트릭(cache=accountUser, accountOwner)으로 확인한다.
+ */
+@Component
+public class AccountUserCache {
+    private final AccountUserRepository accountUserRepository;
+    private final AccountRepository accountRepository;
+
+    private final Cache<Long, AccountUser> users;
+    private final Cache<String, Long> owners;
+
+    public AccountUserCache(
+            AccountUserRepository accountUserRepository,
+            AccountRepository accountRepository,
+            MeterRegistry meterRegistry,
+            @Value("${account.cache.user.max-size:10000}") long userMaxSize,
+            @Value("${account.cache.user.ttl-seconds:300}") long userTtlSeconds,
+            @Value("${account.cache.owner.max-size:100000}") long ownerMaxSize,
+            @Value("${account.cache.owner.ttl-seconds:3600}") long ownerTtlSeconds
+    ) {
+        this.accountUserRepository = accountUserRepository;
+        this.accountRepository = accountRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(userMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(userTtlSeconds))
+                .recordStats()
+                .build();
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(ownerMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(ownerTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "accountUser");
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "accountOwner");
+    }
+
+    // 없는 사용자는 캐시하지 않는다. (가입 직후 요청이 실패하지 않도록)
+    public Optional<AccountUser> getUser(Long userId) {
+        return Optional.ofNullable(users.get(userId,
+                id -> accountUserRepository.findById(id).orElse(null)));
+    }
+
+    // 계좌 소유주 id, 계좌가 없으면 empty
+    public Optional<Long> getOwnerId(String accountNumber) {
+        return Optional.ofNullable(owners.get(accountNumber,
+                key -> accountRepository.findOwnerIdByAccountNumber(key).orElse(null)));
+    }
+
+    public void putOwner(String accountNumber, Long userId) {
+        owners.put(accountNumber, userId);
+    }
+
+    public void evictUser(Long userId) {
+        users.invalidate(userId);
+    }
+
+    public void evictOwner(String accountNumber) {
+        owners.invalidate(accountNumber);
+    }
+
+    public void evictAll() {
+        users.invalidateAll();
+        owners.invalidateAll();
+    }
+
+    public long getUserHitCount() {
+        return users.stats().hitCount();
+    }
+
+    public long getUserMissCount() {
+        return users.stats().missCount();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * ATOMIC 모드의 잔액 사용/취소
+ * 계좌 엔티티를 읽고 dirty checking 하는 대신 조건부 UPDATE 한 번으로 잔액을 변경한다.
+ * 검증 조건이 UPDATE 의 where 절에 들어 있으므로 외부 lock 없이도 잔액이 음수가 되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AtomicBalanceService {
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountIndex accountIndex;
+
+    @Transactional
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        int updated = accountRepository.debitBalance(
+                accountNumber, userId, amount, LocalDateTime.now());
+        if (updated == 0) {
+            // 변경된 row 가 없으면 어떤 조건에 걸렸는지 확인한다.
+            throw new AccountException(diagnoseUseFailure(userId, accountNumber));
+        }
+        // 바뀐 version 을 모르므로 색인의 항목은 커밋 후 버린다.
+        accountIndex.invalidateAfterCommit(accountNumber);
+        return saveAndGetTransaction(USE, amount, accountNumber);
+    }
+
+    /**
+     * 한 계좌에 대한 여러 잔액 사용 (잔액 사용 일괄 API)
+     * 계좌 엔티티의 version 으로 한꺼번에 저장하지 않고 건마다 조건부 UPDATE 로 차감하므로,
+     * 같은 계좌의 다른 차감과 겹쳐도 전체가 실패하지 않고 건별로 성공, 실패가 정해진다.
+     * 성공한 건의 거래는 한 번에 저장한다.
+     *
+     * @return 요청과 같은 순서의 건별 결과
+     */
+    @Transactional
+    public List<UseBalanceBatch.Result> useBalanceGroup(String accountNumber,
+                                                        List<UseBalance.Request> requests) {
+        List<UseBalanceBatch.Result> results = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            int updated = accountRepository.debitBalance(accountNumber, request.getUserId(),
+                    request.getAmount(), LocalDateTime.now());
+            if (updated == 0) {
+                results.add(UseBalanceBatch.Result.failure(request,
+                        diagnoseUseFailure(request.getUserId(), accountNumber)));
+                continue;
+            }
+            Transaction transaction = newTransaction(USE, request.getAmount(), accountNumber);
+            transactions.add(transaction);
+            results.add(UseBalanceBatch.Result.success(toDto(transaction, accountNumber)));
+        }
+
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+            accountIndex.invalidateAfterCommit(accountNumber);
+        }
+        return results;
+    }
+
+    @Transactional
+    public TransactionDto cancelBalance(String transactionId, String accountNumber,
+                                        Long amount) {
+        TransactionCancelView transaction = transactionRepository
+                .findCancelViewByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        validateCancelBalance(transaction, accountNumber, amount);
+
+        if (accountRepository.creditBalance(accountNumber, amount, LocalDateTime.now()) == 0) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        accountIndex.invalidateAfterCommit(accountNumber);
+        return saveAndGetTransaction(CANCEL, amount, accountNumber);
+    }
+
+    // 잔액 사용 정책 순서대로 실패 원인을 찾는다.
+    private ErrorCode diagnoseUseFailure(Long userId, String accountNumber) {
+        if (!accountUserRepository.existsById(userId)) {
+            return ErrorCode.USER_NOT_FOUND;
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElse(null);
+        if (account == null) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        if (!Objects.equals(userId, account.getAccountUser().getId())) {
+            return ErrorCode.USER_ACCOUNT_UN_MATCH;
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        }
+        return ErrorCode.AMOUNT_EXCEED_BALANCE;
+    }
+
+    private void validateCancelBalance(TransactionCancelView transaction,
+                                       String accountNumber, Long amount) {
+        // 성공한 잔액 사용 거래만 취소할 수 있다.
+        if (transaction.getTransactionType() != USE || transaction.getTransactionResultType() != S) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_CANCELABLE);
+        }
+        // 거래계좌와 사용취소계좌가 일치하는지 확인
+        if (!Objects.equals(transaction.getAccountNumber(), accountNumber)) {
+            throw new AccountException(accountRepository.existsByAccountNumber(accountNumber)
+                    ? ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH
+                    : ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        if (!Objects.equals(transaction.getAmount(), amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+
+    private TransactionDto saveAndGetTransaction(TransactionType transactionType,
+                                                 Long amount, String accountNumber) {
+        Transaction transaction = transactionRepository.save(
+                newTransaction(transactionType, amount, accountNumber));
+        return toDto(transaction, accountNumber);
+    }
+
+    /**
+     * 변경 직후 같은 트랜잭션에서 잔액을 읽는다.
+     * UPDATE 로 잡은 row lock 이 커밋까지 유지되므로 다른 요청의 변경이 섞이지 않는다.
+     */
+    private Transaction newTransaction(TransactionType transactionType, Long amount,
+                                       String accountNumber) {
+        AccountBalanceView balance = accountRepository.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account account = accountRepository.getReferenceById(balance.getId());
+
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(S)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balance.getBalance())
+                .transactionId(transactionIdGenerator.generate())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    // 계좌 프록시를 초기화하지 않도록 계좌번호는 요청 값으로 채운다.
+    private static TransactionDto toDto(Transaction transaction, String accountNumber) {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .account(transaction.getAccount())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.type.ConcurrencyMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 잔액 분할 (account.transaction.striping)
+ * 입금(잔액 사용 취소)이 몰리는 계좌를 지정하면, 입금을 계좌 row 대신 slot-count 개의 보조 잔액 slot 에 나눠 더한다.
+ * slot 은 거래 id 로 고르고, LOCK 모드에서는 계좌 lock 대신 slot lock (계좌번호:slot) 을 잡으므로
+ * 한 계좌의 입금이 slot 수만큼 동시에 처리된다.
+ * 계좌 잔액은 계좌 row 잔액과 slot 잔액의 합이다.
+ * 잔액 사용은 계좌 lock 을 잡고 계좌 row 에서 하고, 계좌 row 잔액이 부족하면 slot 잔액을 계좌 row 로 모은다. (combine)
+ * slot 잔액은 조건부 UPDATE 로 옮기므로 slot lock 없이도 동시에 들어온 입금이 사라지지 않는다.
+ */
+@Slf4j
+@Component
+public class BalanceStripes {
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final boolean enabled;
+    private final int slotCount;
+    private final Set<String> accountNumbers;
+    // slot 입금은 slot lock 으로 직렬화되는 LOCK 모드에서만 한다.
+    private final boolean stripeCredits;
+
+    private final LongAdder combines = new LongAdder();
+
+    public BalanceStripes(
+            AccountBalanceSlotRepository accountBalanceSlotRepository,
+            @Value("${account.transaction.striping.enabled:false}") boolean enabled,
+            @Value("${account.transaction.striping.slot-count:8}") int slotCount,
+            @Value("${account.transaction.striping.accounts:}") List<String> accountNumbers,
+            @Value("${account.transaction.concurrency-mode:LOCK}") ConcurrencyMode concurrencyMode
+    ) {
+        this.accountBalanceSlotRepository = accountBalanceSlotRepository;
+        this.enabled = enabled;
+        this.slotCount = slotCount;
+        this.accountNumbers = new HashSet<>(accountNumbers);
+        this.stripeCredits = enabled && concurrencyMode == ConcurrencyMode.LOCK;
+        if (enabled && !stripeCredits) {
+            // 이미 slot 에 있는 잔액은 계속 합산하고 모으지만, 새 입금은 계좌 row 에 더한다.
+            log.warn("Balance striping credits only in LOCK mode : {}", concurrencyMode);
+        }
+    }
+
+    // 분할 계좌인지 (slot 잔액을 합산해야 하는지)
+    public boolean isStriped(String accountNumber) {
+        return enabled && accountNumbers.contains(accountNumber);
+    }
+
+    // 이 계좌의 입금을 slot 에 더하는지
+    public boolean stripesCredits(String accountNumber) {
+        return stripeCredits && accountNumbers.contains(accountNumber);
+    }
+
+    // 같은 거래의 취소는 항상 같은 slot 으로 간다.
+    public int slotOf(String transactionId) {
+        return Math.floorMod(transactionId.hashCode(), slotCount);
+    }
+
+    public String slotLockKey(String accountNumber, String transactionId) {
+        return accountNumber + ":" + slotOf(transactionId);
+    }
+
+    /**
+     * slot 잔액을 증가시킨다. slot 이 아직 없으면 만든다.
+     * slot lock 을 잡고 트랜잭션 안에서 호출해야 한다.
+     */
+    public void credit(Account account, int slotIndex, Long amount) {
+        if (accountBalanceSlotRepository.addBalance(account.getId(), slotIndex, amount,
+                LocalDateTime.now()) == 0) {
+            accountBalanceSlotRepository.save(AccountBalanceSlot.builder()
+                    .account(account)
+                    .slotIndex(slotIndex)
+                    .balance(amount)
+                    .build());
+        }
+    }
+
+    // slot 잔액 합계, 분할 계좌가 아니면 0
+    public long slotBalance(Account account) {
+        if (!isStriped(account.getAccountNumber())) {
+            return 0L;
+        }
+        return accountBalanceSlotRepository.sumBalanceByAccountId(account.getId());
+    }
+
+    public long slotBalance(String accountNumber) {
+        if (!isStriped(accountNumber)) {
+            return 0L;
+        }
+        return accountBalanceSlotRepository.sumBalanceByAccountNumber(accountNumber);
+    }
+
+    /**
+     * slot 잔액을 모두 계좌 row 로 옮긴다. 계좌 lock 을 잡고 트랜잭션 안에서 호출해야 한다.
+     * 읽은 만큼만 조건부로 차감하므로 그 사이 slot 에 들어온 입금은 slot 에 남는다.
+     *
+     * @return 계좌 row 로 옮긴 금액
+     */
+    public long combine(Account account) {
+        if (!isStriped(account.getAccountNumber())) {
+            return 0L;
+        }
+        long moved = 0L;
+        LocalDateTime now = LocalDateTime.now();
+        for (AccountBalanceView slot :
+                accountBalanceSlotRepository.findNonEmptyByAccountId(account.getId())) {
+            if (accountBalanceSlotRepository.takeBalance(slot.getId(), slot.getBalance(), now) == 1) {
+                moved += slot.getBalance();
+            }
+        }
+        account.setBalance(account.getBalance() + moved);
+        combines.increment();
+        log.debug("Combined balance slots : {} {}", account.getAccountNumber(), moved);
+        return moved;
+    }
+
+    public long getCombines() {
+        return combines.sum();
+    }
+}
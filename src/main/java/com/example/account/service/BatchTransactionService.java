@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 잔액 사용 일괄 처리
+ * 요청을 계좌번호별로 묶어, 계좌마다 lock 을 한 번만 잡고 한 트랜잭션에서 요청 순서대로 처리한다.
+ * (TransactionService.useBalanceGroup)
+ * 건별 결과는 요청과 같은 순서로 반환하고, 실패한 건은 FailedTransactionRecorder 로 기록한다.
+ * lock 취득이나 커밋에 실패하면 그 계좌의 모든 건이 같은 ErrorCode 로 실패한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchTransactionService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final PreLockValidator preLockValidator;
+    private final ShardedTransactionExecutor shardedTransactionExecutor;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final LedgerEngine ledgerEngine;
+
+    @Value("${account.transaction.concurrency-mode:LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.LOCK;
+
+    public List<UseBalanceBatch.Result> useBalance(List<UseBalance.Request> requests) {
+        UseBalanceBatch.Result[] results = new UseBalanceBatch.Result[requests.size()];
+
+        // 계좌번호별 요청 위치 (처음 나온 순서)
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            groups.computeIfAbsent(requests.get(i).getAccountNumber(), k -> new ArrayList<>())
+                    .add(i);
+        }
+        groups.forEach((accountNumber, indexes) ->
+                useBalanceGroup(accountNumber, indexes, requests, results));
+        return Arrays.asList(results);
+    }
+
+    private void useBalanceGroup(String accountNumber, List<Integer> indexes,
+                                 List<UseBalance.Request> requests,
+                                 UseBalanceBatch.Result[] results) {
+        // lock 전 검증에서 거절된 건은 이미 실패 거래로 기록되어 있다.
+        List<Integer> pending = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            UseBalance.Request request = requests.get(index);
+            try {
+                if (concurrencyMode == ConcurrencyMode.LOCK) {
+                    preLockValidator.validate(request);
+                }
+                pending.add(index);
+            } catch (AccountException e) {
+                results[index] = UseBalanceBatch.Result.failure(request, e.getErrorCode());
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<UseBalance.Request> pendingRequests = pending.stream().map(requests::get).toList();
+        List<UseBalanceBatch.Result> groupResults;
+        try {
+            groupResults = execute(accountNumber, pendingRequests);
+        } catch (AccountException e) {
+            groupResults = failAll(pendingRequests, e.getErrorCode());
+        } catch (RuntimeException e) {
+            log.error("Failed to use balance batch : {}", accountNumber, e);
+            groupResults = failAll(pendingRequests, ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            UseBalanceBatch.Result result = groupResults.get(i);
+            results[pending.get(i)] = result;
+            if (result.getErrorCode() != null) {
+                failedTransactionRecorder.recordUse(result.getAccountNumber(),
+                        result.getAmount(), result.getErrorCode());
+            }
+        }
+    }
+
+    // 동시성 모드에 따라 LockAopAspect 와 같은 방식으로 계좌 단위 직렬화를 한 번만 한다.
+    private List<UseBalanceBatch.Result> execute(String accountNumber,
+                                                 List<UseBalance.Request> requests) {
+        if (concurrencyMode == ConcurrencyMode.LEDGER) {
+            return ledgerEngine.useBalanceGroup(requests);
+        }
+        if (concurrencyMode == ConcurrencyMode.SHARDED) {
+            return shardedTransactionExecutor.call(accountNumber,
+                    () -> transactionService.useBalanceGroup(accountNumber, requests));
+        }
+        if (concurrencyMode != ConcurrencyMode.LOCK) {
+            return transactionService.useBalanceGroup(accountNumber, requests);
+        }
+
+        lockService.lock(accountNumber);
+        try {
+            List<UseBalanceBatch.Result> results =
+                    transactionService.useBalanceGroup(accountNumber, requests);
+            preLockValidator.onChanged(accountNumber);
+            return results;
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private static List<UseBalanceBatch.Result> failAll(List<UseBalance.Request> requests,
+                                                        ErrorCode errorCode) {
+        return requests.stream()
+                .map(request -> UseBalanceBatch.Result.failure(request, errorCode))
+                .toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureLogMode;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실패 거래 write-behind 기록기
+ * 요청 스레드는 실패 거래를 제한된 크기의 대기열에 넣기만 하고 (lock 을 잡은 채로 DB 를 기다리지 않는다),
+ * 백그라운드 스레드가 batchSize 단위로 모아 TransactionService.saveFailedTransactions 로 저장한다.
+ * 종료 시에는 대기열에 남은 실패 거래를 모두 저장한다.
+ * ROLLUP 모드에서는 대기열을 거치지 않고 FailedTransactionRollupStore 에 집계만 한다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+    private final TransactionService transactionService;
+    private final FailedTransactionRollupStore rollupStore;
+    private final FailureLogMode mode;
+    private final BlockingQueue<FailedTransaction> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    public FailedTransactionRecorder(
+            TransactionService transactionService,
+            FailedTransactionRollupStore rollupStore,
+            @Value("${account.transaction.failure-log.mode:ROW}") FailureLogMode mode,
+            @Value("${account.transaction.failure-log.queue-capacity:10000}") int queueCapacity,
+            @Value("${account.transaction.failure-log.batch-size:100}") int batchSize,
+            @Value("${account.transaction.failure-log.flush-interval-millis:200}") long flushIntervalMillis,
+            @Value("${account.transaction.failure-log.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy
+    ) {
+        this.transactionService = transactionService;
+        this.rollupStore = rollupStore;
+        this.mode = mode;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = new Thread(this::runWriter, "failed-transaction-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    public void recordUse(String accountNumber, Long amount, ErrorCode errorCode) {
+        record(TransactionType.USE, accountNumber, amount, errorCode);
+    }
+
+    public void recordCancel(String accountNumber, Long amount, ErrorCode errorCode) {
+        record(TransactionType.CANCEL, accountNumber, amount, errorCode);
+    }
+
+    // 계좌 이체 실패는 출금 계좌의 실패로 기록한다.
+    public void recordTransfer(String fromAccountNumber, Long amount, ErrorCode errorCode) {
+        record(TransactionType.TRANSFER_OUT, fromAccountNumber, amount, errorCode);
+    }
+
+    private void record(TransactionType transactionType, String accountNumber, Long amount,
+                        ErrorCode errorCode) {
+        FailedTransaction failed = FailedTransaction.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .errorCode(errorCode)
+                .transactedAt(LocalDateTime.now())
+                .build();
+        if (mode == FailureLogMode.ROLLUP) {
+            rollupStore.add(failed);
+            return;
+        }
+        if (queue.offer(failed)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> drop(failed);
+            case DROP_OLDEST -> {
+                // 자리를 비운 사이에 다른 요청이 먼저 넣으면 새 실패 거래를 버린다.
+                FailedTransaction oldest = queue.poll();
+                if (oldest != null) {
+                    drop(oldest);
+                }
+                if (!queue.offer(failed)) {
+                    drop(failed);
+                }
+            }
+            case CALLER_RUNS -> write(List.of(failed));
+        }
+    }
+
+    private void drop(FailedTransaction failed) {
+        dropped.increment();
+        log.warn("Failed transaction queue is full, dropped : {} {}",
+                failed.getTransactionType(), failed.getAccountNumber());
+    }
+
+    private void runWriter() {
+        while (running) {
+            try {
+                FailedTransaction first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<FailedTransaction> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+            written.add(batch.size());
+        } catch (Exception e) {
+            writeFailures.add(batch.size());
+            log.error("Failed to write failed transactions : {}", batch.size(), e);
+        }
+    }
+
+    /**
+     * 백그라운드 스레드를 멈추고 대기열에 남은 실패 거래를 저장한다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(flushIntervalMillis * 2 + 5000L);
+
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getWriteFailures() {
+        return writeFailures.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.account.service;
+
+import com.example.account.domain.FailedTransactionRollup;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.FailedTransactionRollupDto;
+import com.example.account.repository.FailedTransactionRollupRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 실패 거래 집계 저장소 (account.transaction.failure-log.mode=ROLLUP)
+ * 실패 거래를 (계좌번호, 거래 종류, 실패 사유, 시간 구간) 별로 메모리에서 세고,
+ * flush 주기마다 집계 row 에 더한다. 실패가 몰려도 키 하나당 row 하나만 쓴다.
+ * 조회 결과에는 아직 flush 되지 않은 집계는 포함되지 않는다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRollupStore {
+    private final FailedTransactionRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long bucketSeconds;
+    private final long flushIntervalMillis;
+
+    private final ConcurrentHashMap<RollupKey, RollupCount> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "failed-transaction-rollup");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+
+    public FailedTransactionRollupStore(
+            FailedTransactionRollupRepository rollupRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${account.transaction.failure-log.rollup.bucket-seconds:60}") long bucketSeconds,
+            @Value("${account.transaction.failure-log.rollup.flush-interval-millis:1000}") long flushIntervalMillis
+    ) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bucketSeconds = bucketSeconds;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis,
+                flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(FailedTransaction failed) {
+        LocalDateTime transactedAt = failed.getTransactedAt() == null
+                ? LocalDateTime.now() : failed.getTransactedAt();
+        RollupKey key = new RollupKey(failed.getAccountNumber(), failed.getTransactionType(),
+                failed.getErrorCode() == null ? ErrorCode.INTERNAL_SERVER_ERROR : failed.getErrorCode(),
+                bucketOf(transactedAt));
+        pending.merge(key, new RollupCount(1L, failed.getAmount()), RollupCount::plus);
+        recorded.increment();
+    }
+
+    /**
+     * 메모리의 집계를 DB 에 더한다.
+     * 키를 꺼낸 뒤에 들어온 실패는 새 항목으로 쌓여 다음 flush 에 반영된다.
+     * 저장에 실패한 집계는 다시 메모리에 합쳐 두고 다음 flush 에 재시도한다.
+     */
+    public synchronized void flush() {
+        for (RollupKey key : List.copyOf(pending.keySet())) {
+            RollupCount count = pending.remove(key);
+            if (count == null) {
+                continue;
+            }
+            try {
+                upsert(key, count);
+                flushedRows.increment();
+            } catch (Exception e) {
+                log.error("Failed to flush failed transaction rollup : {}", key, e);
+                pending.merge(key, count, RollupCount::plus);
+            }
+        }
+    }
+
+    private void upsert(RollupKey key, RollupCount count) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (addCounts(key, count) == 0) {
+                    rollupRepository.saveAndFlush(FailedTransactionRollup.builder()
+                            .accountNumber(key.accountNumber())
+                            .transactionType(key.transactionType())
+                            .errorCode(key.errorCode())
+                            .bucketStart(key.bucketStart())
+                            .attempts(count.attempts())
+                            .totalAmount(count.totalAmount())
+                            .build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 다른 노드가 같은 키의 row 를 먼저 만든 경우
+            transactionTemplate.executeWithoutResult(status -> addCounts(key, count));
+        }
+    }
+
+    private int addCounts(RollupKey key, RollupCount count) {
+        return rollupRepository.addCounts(key.accountNumber(), key.bucketStart(),
+                key.transactionType(), key.errorCode(),
+                count.attempts(), count.totalAmount(), LocalDateTime.now());
+    }
+
+    public List<FailedTransactionRollupDto> getRollups(String accountNumber,
+                                                       LocalDateTime from, LocalDateTime to) {
+        return rollupRepository
+                .findByAccountNumberAndBucketStartBetweenOrderByBucketStart(accountNumber, from, to)
+                .stream()
+                .map(FailedTransactionRollupDto::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    LocalDateTime bucketOf(LocalDateTime transactedAt) {
+        long epochSecond = transactedAt.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, bucketSeconds),
+                0, ZoneOffset.UTC);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+
+    public int getPendingSize() {
+        return pending.size();
+    }
+
+    record RollupKey(String accountNumber, TransactionType transactionType,
+                     ErrorCode errorCode, LocalDateTime bucketStart) {
+    }
+
+    record RollupCount(long attempts, long totalAmount) {
+        RollupCount plus(RollupCount other) {
+            return new RollupCount(attempts + other.attempts, totalAmount + other.totalAmount);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.AccountOperation;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 그룹 커밋 (account.transaction.group-commit.enabled, LOCK 모드)
+ * 같은 계좌에 동시에 들어온 잔액 사용, 잔액 사용 취소를 한 묶음으로 모아 lock 한 번, 커밋 한 번으로 처리한다.
+ * 1. 묶음에 처음 들어온 요청(leader)이 계좌 lock 을 잡는다. lock 을 기다리는 동안 들어온 요청은 같은 묶음에 들어간다.
+ * 2. lock 을 잡은 뒤 묶음이 max-batch-size 보다 작으면 window-millis 까지 더 모은다.
+ * 3. 묶음을 닫고 TransactionService.applyGroup 으로 요청 순서대로 처리한다. 이후 요청은 다음 묶음에 들어간다.
+ * 요청마다 자기 결과(거래 또는 ErrorCode)를 받는다.
+ * lock 은 leader 가 잡으므로 LockAopAspect 는 이 요청들에 lock 을 잡지 않는다.
+ * 분할 계좌의 잔액 사용 취소는 slot 에 더하므로 모으지 않는다. (BalanceStripes)
+ */
+@Slf4j
+@Service
+public class GroupCommitService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final PreLockValidator preLockValidator;
+    private final BalanceStripes balanceStripes;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long waitMillis;
+
+    // 계좌번호 -> 아직 닫히지 않은 묶음
+    private final ConcurrentHashMap<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+
+    public GroupCommitService(
+            TransactionService transactionService,
+            LockService lockService,
+            PreLockValidator preLockValidator,
+            BalanceStripes balanceStripes,
+            @Value("${account.transaction.group-commit.enabled:false}") boolean enabled,
+            @Value("${account.transaction.concurrency-mode:LOCK}") ConcurrencyMode concurrencyMode,
+            @Value("${account.transaction.group-commit.window-millis:2}") long windowMillis,
+            @Value("${account.transaction.group-commit.max-batch-size:64}") int maxBatchSize,
+            @Value("${account.transaction.group-commit.wait-millis:3000}") long waitMillis
+    ) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.preLockValidator = preLockValidator;
+        this.balanceStripes = balanceStripes;
+        this.enabled = enabled && concurrencyMode == ConcurrencyMode.LOCK;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.waitMillis = waitMillis;
+        if (enabled && !this.enabled) {
+            log.warn("Group commit works only in LOCK mode : {}", concurrencyMode);
+        }
+    }
+
+    // 이 요청을 묶음으로 처리하는지 (LockAopAspect 와 컨트롤러가 같은 판단을 한다)
+    public boolean coalesces(AccountLockIdInterface request) {
+        if (!enabled) {
+            return false;
+        }
+        if (request instanceof UseBalance.Request) {
+            return true;
+        }
+        return request instanceof CancelBalance.Request cancel
+                && !balanceStripes.stripesCredits(cancel.getAccountNumber());
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return submit(AccountOperation.use(userId, accountNumber, amount));
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        return submit(AccountOperation.cancel(transactionId, accountNumber, amount));
+    }
+
+    // 묶음에 넣고 결과를 기다린다. 실패하면 건별 ErrorCode 의 AccountException
+    private TransactionDto submit(AccountOperation operation) {
+        Pending pending = new Pending(operation);
+        Batch[] joined = new Batch[1];
+        boolean[] leader = new boolean[1];
+        openBatches.compute(operation.getAccountNumber(), (accountNumber, batch) -> {
+            if (batch == null || batch.pendings.size() >= maxBatchSize) {
+                // 가득 찬 묶음은 leader 가 닫기 전이라도 더 받지 않는다.
+                batch = new Batch();
+                leader[0] = true;
+            }
+            batch.pendings.add(pending);
+            if (batch.pendings.size() >= maxBatchSize) {
+                batch.full.complete(null);
+            }
+            joined[0] = batch;
+            return batch;
+        });
+        if (leader[0]) {
+            lead(operation.getAccountNumber(), joined[0]);
+        }
+
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException accountException) {
+                throw accountException;
+            }
+            throw e;
+        }
+    }
+
+    private void lead(String accountNumber, Batch batch) {
+        try {
+            lockAndApply(accountNumber, batch);
+        } finally {
+            // Error 로 빠져나와도 따르는 요청이 영원히 기다리지 않도록 남은 요청을 실패시킨다.
+            failAll(close(accountNumber, batch), new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    private void lockAndApply(String accountNumber, Batch batch) {
+        try {
+            lockService.lock(accountNumber, waitMillis, LockService.DEFAULT_LEASE_MILLIS);
+        } catch (AccountException e) {
+            failAll(close(accountNumber, batch), e);
+            return;
+        } catch (RuntimeException e) {
+            log.error("Failed to lock group : {}", accountNumber, e);
+            failAll(close(accountNumber, batch),
+                    new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+            return;
+        }
+        try {
+            awaitMore(batch);
+            List<Pending> pendings = close(accountNumber, batch);
+            List<AccountOperation.Result> results = transactionService.applyGroup(accountNumber,
+                    pendings.stream().map(pending -> pending.operation).toList());
+            preLockValidator.onChanged(accountNumber);
+            batches.increment();
+            operations.add(pendings.size());
+
+            for (int i = 0; i < pendings.size(); i++) {
+                AccountOperation.Result result = results.get(i);
+                if (result.errorCode() == null) {
+                    pendings.get(i).result.complete(result.transaction());
+                } else {
+                    pendings.get(i).result.completeExceptionally(
+                            new AccountException(result.errorCode()));
+                }
+            }
+        } catch (AccountException e) {
+            failAll(close(accountNumber, batch), e);
+        } catch (RuntimeException e) {
+            log.error("Failed to commit group : {}", accountNumber, e);
+            failAll(close(accountNumber, batch),
+                    new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    // lock 을 잡은 뒤 묶음이 작으면 window-millis 까지 더 모은다.
+    private void awaitMore(Batch batch) {
+        if (windowMillis <= 0) {
+            return;
+        }
+        try {
+            batch.full.get(windowMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 모은 만큼 처리한다.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 묶음을 닫는다. 이후 요청은 새 묶음에 들어가고, 닫힌 묶음의 요청 목록은 바뀌지 않는다.
+    // 요청 목록은 openBatches.compute 안에서만 바뀌므로 같은 키의 compute 안에서 복사한다.
+    private List<Pending> close(String accountNumber, Batch batch) {
+        List<List<Pending>> closed = new ArrayList<>(1);
+        openBatches.compute(accountNumber, (key, current) -> {
+            closed.add(List.copyOf(batch.pendings));
+            return current == batch ? null : current;
+        });
+        return closed.get(0);
+    }
+
+    private static void failAll(List<Pending> pendings, AccountException e) {
+        pendings.forEach(pending -> pending.result.completeExceptionally(e));
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    private static final class Batch {
+        // openBatches.compute 안에서만 추가한다.
+        private final List<Pending> pendings = new ArrayList<>();
+        private final CompletableFuture<Void> full = new CompletableFuture<>();
+    }
+
+    private static final class Pending {
+        private final AccountOperation operation;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        private Pending(AccountOperation operation) {
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.account.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계좌 lock 의 JVM 내부 계층
+ * 같은 노드의 요청은 먼저 계좌별 로컬 lock 에서 줄을 서고,
+ * 로컬 lock 을 잡은 요청만 분산 lock 을 취득한다.
+ * 분산 lock 은 로컬 대기자가 있으면 해제하지 않고 다음 대기자에게 넘겨준다(handoff).
+ * 로컬 lock 은 스레드가 아니라 요청 단위로 소유하므로 대기 중에 스레드를 붙잡지 않는다.
+ */
+@Component
+public class LocalLockTier {
+    // 분산 lock 을 새로 취득할 때마다 증가하는 번호 (handoff 로 넘겨받은 경우는 그대로)
+    private static final AtomicLong DISTRIBUTED_EPOCH = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    // 연속으로 handoff 할 수 있는 최대 횟수 (다른 노드의 기아 방지), 0 이면 handoff 하지 않는다.
+    @Getter
+    private final int maxHandoffs;
+
+    private final LongAdder distributedAcquires = new LongAdder();
+    private final LongAdder handoffHits = new LongAdder();
+    private final LongAdder localTimeouts = new LongAdder();
+
+    public LocalLockTier(@Value("${account.lock.local.max-handoffs:16}") int maxHandoffs) {
+        this.maxHandoffs = maxHandoffs;
+    }
+
+    /**
+     * 계좌별 slot 을 참조 카운트와 함께 가져온다.
+     * 반드시 leave 와 짝을 맞춰 호출해야 한다.
+     */
+    Slot join(String accountNumber) {
+        return slots.compute(accountNumber, (key, slot) -> {
+            Slot joined = slot == null ? new Slot() : slot;
+            joined.refCount++;
+            return joined;
+        });
+    }
+
+    // 참조 카운트를 줄이고 아무도 사용하지 않는 slot 은 제거한다.
+    void leave(String accountNumber) {
+        slots.computeIfPresent(accountNumber, (key, slot) ->
+                --slot.refCount == 0 ? null : slot);
+    }
+
+    Slot current(String accountNumber) {
+        return slots.get(accountNumber);
+    }
+
+    /**
+     * 이 노드가 계좌의 분산 lock 을 잡고 있으면 그 취득 번호, 아니면 0
+     * lock 을 잡은 요청 안에서만 의미가 있다.
+     */
+    long distributedEpoch(String accountNumber) {
+        Slot slot = slots.get(accountNumber);
+        if (slot == null || !slot.isLocked() || !slot.distributedHeld) {
+            return 0L;
+        }
+        return slot.distributedEpoch;
+    }
+
+    void recordDistributedAcquire() {
+        distributedAcquires.increment();
+    }
+
+    void recordHandoffHit() {
+        handoffHits.increment();
+    }
+
+    void recordLocalTimeout() {
+        localTimeouts.increment();
+    }
+
+    public long getDistributedAcquires() {
+        return distributedAcquires.sum();
+    }
+
+    public long getHandoffHits() {
+        return handoffHits.sum();
+    }
+
+    public long getLocalTimeouts() {
+        return localTimeouts.sum();
+    }
+
+    // 분산 lock 을 거치지 않고 로컬 handoff 로 lock 을 얻은 비율
+    public double getHandoffHitRate() {
+        long hits = getHandoffHits();
+        long total = hits + getDistributedAcquires();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * 계좌별 로컬 lock (FIFO)
+     * 대기자는 CompletableFuture 로 줄을 서고, 해제 시 다음 대기자의 future 를 완료해 소유권을 넘긴다.
+     */
+    static final class Slot {
+        // slots.compute 안에서만 변경된다.
+        private int refCount;
+
+        // synchronized(this) 로 보호된다.
+        private boolean locked;
+        private final ArrayDeque<CompletableFuture<Boolean>> waiters = new ArrayDeque<>();
+
+        // 아래 필드는 lock 을 소유한 요청만 접근한다.
+        boolean distributedHeld;
+        long distributedEpoch;
+        long distributedAcquiredAt;
+        long leaseMillis;
+        int handoffs;
+        // 현재 소유자가 lock 을 잡은 시각 (nanoTime)
+        long heldSince;
+
+        /**
+         * lock 을 얻으면 true, 대기 시간이 지나면 false 로 완료된다.
+         * 대기 시간이 0 이면 줄을 서지 않고 바로 결과를 돌려준다.
+         */
+        CompletableFuture<Boolean> acquireAsync(long waitMillis) {
+            CompletableFuture<Boolean> waiter;
+            synchronized (this) {
+                if (!locked) {
+                    locked = true;
+                    return CompletableFuture.completedFuture(true);
+                }
+                if (waitMillis <= 0) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+            }
+            // 시간 초과로 먼저 완료된 대기자는 release 에서 건너뛴다.
+            return waiter.completeOnTimeout(false, waitMillis, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (locked) {
+                return false;
+            }
+            locked = true;
+            return true;
+        }
+
+        // 다음 대기자에게 소유권을 넘기고, 대기자가 없으면 lock 을 푼다.
+        void release() {
+            while (true) {
+                CompletableFuture<Boolean> next;
+                synchronized (this) {
+                    next = waiters.poll();
+                    if (next == null) {
+                        locked = false;
+                        return;
+                    }
+                }
+                // 대기자의 후속 처리가 이 스레드에서 실행될 수 있으므로 monitor 밖에서 완료한다.
+                if (next.complete(true)) {
+                    return;
+                }
+            }
+        }
+
+        synchronized boolean isLocked() {
+            return locked;
+        }
+
+        synchronized boolean hasWaiters() {
+            waiters.removeIf(CompletableFuture::isDone);
+            return !waiters.isEmpty();
+        }
+
+        void markDistributedHeld(long now, long leaseMillis) {
+            distributedHeld = true;
+            distributedEpoch = DISTRIBUTED_EPOCH.incrementAndGet();
+            distributedAcquiredAt = now;
+            this.leaseMillis = leaseMillis;
+            handoffs = 0;
+        }
+
+        void clearDistributed() {
+            distributedHeld = false;
+            distributedEpoch = 0L;
+            handoffs = 0;
+        }
+
+        /**
+         * 로컬 대기자가 있고, 연속 handoff 횟수와 lease 여유가 남아 있을 때만
+         * 분산 lock 을 해제하지 않고 다음 대기자에게 넘긴다.
+         */
+        boolean canHandoff(int maxHandoffs, long now) {
+            return distributedHeld
+                    && handoffs < maxHandoffs
+                    && now - distributedAcquiredAt < leaseMillis / 2
+                    && hasWaiters();
+        }
+    }
+}
@@ -1,32 +1,108 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.CancelBalance;
+import com.example.account.type.ConcurrencyMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
+    private final PreLockValidator preLockValidator;
+    private final BalanceStripes balanceStripes;
+    private final GroupCommitService groupCommitService;
+
+    @Value("${account.transaction.concurrency-mode:LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.LOCK;
 
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    @Around("@annotation(accountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
+            AccountLock accountLock,
             AccountLockIdInterface request
     ) throws Throwable {
+        boolean async = isAsync(pjp);
+        // SHARDED 모드는 메소드가 계좌 변경만 shard 스레드에 제출해 노드 안에서 직렬화한다.
+        // OPTIMISTIC, ATOMIC 모드는 분산 lock 없이 DB 에서 동시성을 처리한다.
+        if (concurrencyMode != ConcurrencyMode.LOCK) {
+            return pjp.proceed();
+        }
+
+        // 성공할 수 없는 요청은 lock 을 기다리지 않는다.
+        preLockValidator.validate(request);
+
+        // 그룹 커밋으로 처리하는 요청은 묶음의 leader 가 lock 을 잡는다.
+        if (!async && groupCommitService.coalesces(request)) {
+            return pjp.proceed();
+        }
+
+        long waitTime = accountLock.failFast() ? 0L : accountLock.waitTime();
+        String lockKey = lockKey(request);
+        if (async) {
+            return aroundAsync(pjp, request.getAccountNumber(), lockKey, waitTime,
+                    accountLock.leaseTime());
+        }
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        lockService.lock(lockKey, waitTime, accountLock.leaseTime());
         try {
-            return pjp.proceed();
+            Object result = pjp.proceed();
+            preLockValidator.onChanged(request.getAccountNumber());
+            return result;
         } finally {
             // lock 해제
-            lockService.unlock(request.getAccountNumber());
+            lockService.unlock(lockKey);
         }
     }
+
+    // 분할 계좌의 잔액 사용 취소는 계좌 lock 대신 입금할 slot 의 lock 을 잡는다. (BalanceStripes)
+    private String lockKey(AccountLockIdInterface request) {
+        if (request instanceof CancelBalance.Request cancel
+                && balanceStripes.stripesCredits(cancel.getAccountNumber())) {
+            return balanceStripes.slotLockKey(cancel.getAccountNumber(), cancel.getTransactionId());
+        }
+        return request.getAccountNumber();
+    }
+
+    // lock 을 비동기로 취득한 뒤 메소드를 실행하고, 반환된 future 가 끝나면 lock 을 해제한다.
+    private CompletableFuture<Object> aroundAsync(ProceedingJoinPoint pjp, String accountNumber,
+                                                  String lockKey, long waitTime, long leaseTime) {
+        return lockService.lockAsync(lockKey, waitTime, leaseTime)
+                .thenCompose(locked -> {
+                    CompletableFuture<Object> result;
+                    try {
+                        result = castFuture(pjp.proceed());
+                    } catch (Throwable e) {
+                        result = CompletableFuture.failedFuture(e);
+                    }
+                    return result.whenComplete((value, e) -> {
+                        if (e == null) {
+                            preLockValidator.onChanged(accountNumber);
+                        }
+                        lockService.unlock(lockKey);
+                    });
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> castFuture(Object result) {
+        return (CompletableFuture<Object>) result;
+    }
+
+    private static boolean isAsync(ProceedingJoinPoint pjp) {
+        return CompletableFuture.class.isAssignableFrom(
+                ((MethodSignature) pjp.getSignature()).getReturnType());
+    }
 }
@@ -2,45 +2,324 @@ package com.example.account.service;
 
 
 import com.example.account.exception.AccountException;
+import com.example.account.lock.LockProvider;
+import com.example.account.metrics.LockMetrics;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockOutcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    private final RedissonClient redissonClient;
+    public static final long DEFAULT_WAIT_MILLIS = 1000L;
+    public static final long DEFAULT_LEASE_MILLIS = 15000L;
+    // 분산 lock 을 스레드와 무관하게 로컬 대기자에게 넘기기 위한 lock 소유자 id
+    static final long LOCAL_TIER_OWNER_ID = -1L;
+
+    private final LockProvider lockProvider;
+    private final LocalLockTier localLockTier;
+    private final LockMetrics lockMetrics;
 
     public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        lock(accountNumber, DEFAULT_WAIT_MILLIS, DEFAULT_LEASE_MILLIS);
+    }
 
+    // lockAsync 를 기다린다. 취득하지 못하면 ACCOUNT_TRANSACTION_LOCK
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
         try {
-            boolean isLock = lock.tryLock(1,15, TimeUnit.SECONDS);
-            if (!isLock) {
-                log.error("=====Lock acquisition failed=====");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            lockAsync(accountNumber, waitMillis, leaseMillis).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException accountException) {
+                throw accountException;
             }
-        }catch (AccountException e) {
             throw e;
         }
-        catch (Exception e) {
-            log.error("=====Lock acquisition failed=====");
-        }
     }
 
+    /**
+     * 1. 계좌별 로컬 lock 에서 대기
+     * 2. 이전 로컬 소유자가 분산 lock 을 넘겨줬다면 LockProvider 를 거치지 않는다.
+     * 3. 아니라면 남은 대기 시간 안에서 LockProvider 로 분산 lock 을 취득한다.
+     * 대기하는 동안 호출 스레드를 붙잡지 않고, 실패하면 ACCOUNT_TRANSACTION_LOCK 으로 완료된다.
+     *
+     * @param waitMillis 0 이면 기다리지 않고 바로 실패한다 (fail-fast)
+     */
+    public CompletableFuture<Void> lockAsync(String accountNumber, long waitMillis,
+                                             long leaseMillis) {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        long startedAt = System.nanoTime();
+        long deadline = System.currentTimeMillis() + waitMillis;
+        LocalLockTier.Slot slot = localLockTier.join(accountNumber);
+        boolean busy = slot.isLocked();
+
+        return slot.acquireAsync(waitMillis).<Void>thenCompose(acquired -> {
+            if (!acquired) {
+                localLockTier.recordLocalTimeout();
+                releaseAbandonedHandoff(accountNumber, slot);
+                localLockTier.leave(accountNumber);
+                throw failLock(accountNumber, LockOutcome.LOCAL_TIMEOUT, startedAt, busy);
+            }
+
+            long now = System.currentTimeMillis();
+            if (slot.distributedHeld && now - slot.distributedAcquiredAt < slot.leaseMillis / 2) {
+                localLockTier.recordHandoffHit();
+                onAcquired(accountNumber, slot, LockOutcome.HANDOFF, startedAt, busy);
+                return CompletableFuture.completedFuture(null);
+            }
+            if (slot.distributedHeld) {
+                // lease 가 얼마 남지 않은 분산 lock 은 넘겨받지 않고 새로 취득한다.
+                releaseDistributed(accountNumber, slot);
+            }
+            return acquireDistributed(accountNumber, Math.max(deadline - now, 0L), leaseMillis)
+                    .<Void>thenApply(outcome -> {
+                        if (outcome != LockOutcome.ACQUIRED) {
+                            slot.release();
+                            localLockTier.leave(accountNumber);
+                            throw failLock(accountNumber, outcome, startedAt, busy);
+                        }
+                        slot.markDistributedHeld(System.currentTimeMillis(), leaseMillis);
+                        localLockTier.recordDistributedAcquire();
+                        onAcquired(accountNumber, slot, outcome, startedAt, busy);
+                        return null;
+                    });
+        });
+    }
+
+    /**
+     * 로컬 대기자가 있으면 분산 lock 을 넘겨주고, 없으면 해제한다.
+     * lock 을 취득한 요청이 스레드와 무관하게 한 번만 호출해야 한다.
+     */
     public void unlock(String accountNumber) {
         log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        LocalLockTier.Slot slot = localLockTier.current(accountNumber);
+        if (slot == null || !slot.isLocked()) {
+            log.error("Unlock requested without holding lock : {}", accountNumber);
+            return;
+        }
+
+        lockMetrics.recordHold(System.nanoTime() - slot.heldSince);
+        releaseSlot(accountNumber, slot);
+    }
+
+    // 로컬 대기자가 있으면 분산 lock 을 넘기고, 없으면 해제한 뒤 로컬 lock 을 푼다.
+    private void releaseSlot(String accountNumber, LocalLockTier.Slot slot) {
+        try {
+            if (slot.canHandoff(localLockTier.getMaxHandoffs(), System.currentTimeMillis())) {
+                // 로컬 대기자에게 분산 lock 을 넘긴다.
+                slot.handoffs++;
+            } else if (slot.distributedHeld) {
+                releaseDistributed(accountNumber, slot);
+            }
+        } finally {
+            slot.release();
+            localLockTier.leave(accountNumber);
+        }
+    }
+
+    public void lockAll(Collection<String> accountNumbers, long waitMillis, long leaseMillis) {
+        try {
+            lockAllAsync(accountNumbers, waitMillis, leaseMillis).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AccountException accountException) {
+                throw accountException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 여러 계좌의 lock 을 모두 취득한다. (계좌 이체)
+     * 1. 교착을 피하도록 계좌번호 순서로 로컬 lock 을 하나씩 잡는다.
+     * 2. handoff 받지 못한 계좌들의 분산 lock 은 LockProvider.tryLockAllAsync 로 한 번에 취득한다.
+     * 하나라도 취득하지 못하면 잡은 lock 을 모두 놓고 ACCOUNT_TRANSACTION_LOCK 으로 완료된다.
+     * 해제는 unlockAll 로 한다.
+     */
+    public CompletableFuture<Void> lockAllAsync(Collection<String> accountNumbers,
+                                                long waitMillis, long leaseMillis) {
+        List<String> sorted = accountNumbers.stream().distinct().sorted().toList();
+        log.debug("Trying lock for accountNumbers : {}", sorted);
+        MultiLock multiLock = new MultiLock(sorted, System.nanoTime(),
+                System.currentTimeMillis() + waitMillis);
+        return acquireLocalFrom(multiLock, 0)
+                .thenCompose(ignored -> acquireDistributedAll(multiLock, leaseMillis));
+    }
+
+    // lockAll 로 취득한 lock 을 취득의 역순으로 해제한다.
+    public void unlockAll(Collection<String> accountNumbers) {
+        List<String> sorted = accountNumbers.stream().distinct().sorted().toList();
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            unlock(sorted.get(i));
+        }
+    }
+
+    private CompletableFuture<Void> acquireLocalFrom(MultiLock multiLock, int index) {
+        if (index == multiLock.accountNumbers.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String accountNumber = multiLock.accountNumbers.get(index);
+        LocalLockTier.Slot slot = localLockTier.join(accountNumber);
+        boolean busy = slot.isLocked();
+        long remaining = Math.max(multiLock.deadline - System.currentTimeMillis(), 0L);
+
+        return slot.acquireAsync(remaining).thenCompose(acquired -> {
+            if (!acquired) {
+                localLockTier.recordLocalTimeout();
+                releaseAbandonedHandoff(accountNumber, slot);
+                localLockTier.leave(accountNumber);
+                multiLock.releaseAll();
+                throw failLock(accountNumber, LockOutcome.LOCAL_TIMEOUT,
+                        multiLock.startedAt, busy);
+            }
+            multiLock.slots.add(slot);
+            multiLock.busy.add(busy);
+            return acquireLocalFrom(multiLock, index + 1);
+        });
+    }
+
+    private CompletableFuture<Void> acquireDistributedAll(MultiLock multiLock, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        boolean[] handoff = new boolean[multiLock.accountNumbers.size()];
+        for (int i = 0; i < handoff.length; i++) {
+            String accountNumber = multiLock.accountNumbers.get(i);
+            LocalLockTier.Slot slot = multiLock.slots.get(i);
+            if (slot.distributedHeld && now - slot.distributedAcquiredAt < slot.leaseMillis / 2) {
+                handoff[i] = true;
+                localLockTier.recordHandoffHit();
+                continue;
+            }
+            if (slot.distributedHeld) {
+                // lease 가 얼마 남지 않은 분산 lock 은 넘겨받지 않고 새로 취득한다.
+                releaseDistributed(accountNumber, slot);
+            }
+            keys.add(getLockKey(accountNumber));
+        }
+
+        CompletableFuture<LockOutcome> distributed = keys.isEmpty()
+                ? CompletableFuture.completedFuture(LockOutcome.ACQUIRED)
+                : lockProvider.tryLockAllAsync(keys, LOCAL_TIER_OWNER_ID,
+                                Math.max(multiLock.deadline - now, 0L), leaseMillis)
+                        .handle((isLock, e) -> {
+                            if (e != null) {
+                                log.error("Lock request failed : {}", multiLock.accountNumbers, e);
+                                return LockOutcome.ERROR;
+                            }
+                            return isLock ? LockOutcome.ACQUIRED : LockOutcome.REDIS_TIMEOUT;
+                        });
+
+        return distributed.thenApply(outcome -> {
+            if (outcome != LockOutcome.ACQUIRED) {
+                multiLock.releaseAll();
+                AccountException failure = null;
+                for (int i = 0; i < handoff.length; i++) {
+                    failure = failLock(multiLock.accountNumbers.get(i), outcome,
+                            multiLock.startedAt, multiLock.busy.get(i));
+                }
+                throw failure;
+            }
+            long acquiredAt = System.currentTimeMillis();
+            for (int i = 0; i < handoff.length; i++) {
+                String accountNumber = multiLock.accountNumbers.get(i);
+                LocalLockTier.Slot slot = multiLock.slots.get(i);
+                if (!handoff[i]) {
+                    slot.markDistributedHeld(acquiredAt, leaseMillis);
+                    localLockTier.recordDistributedAcquire();
+                }
+                onAcquired(accountNumber, slot,
+                        handoff[i] ? LockOutcome.HANDOFF : LockOutcome.ACQUIRED,
+                        multiLock.startedAt, multiLock.busy.get(i));
+            }
+            return null;
+        });
+    }
+
+    private void onAcquired(String accountNumber, LocalLockTier.Slot slot,
+                            LockOutcome outcome, long startedAt, boolean busy) {
+        slot.heldSince = System.nanoTime();
+        lockMetrics.recordAcquire(accountNumber, outcome, slot.heldSince - startedAt, busy);
+    }
+
+    private AccountException failLock(String accountNumber, LockOutcome outcome,
+                                      long startedAt, boolean busy) {
+        lockMetrics.recordAcquire(accountNumber, outcome, System.nanoTime() - startedAt, busy);
+        log.error("=====Lock acquisition failed===== {} : {}", outcome, accountNumber);
+        return new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    private CompletableFuture<LockOutcome> acquireDistributed(String accountNumber,
+                                                             long waitMillis, long leaseMillis) {
+        return lockProvider.tryLockAsync(getLockKey(accountNumber),
+                        LOCAL_TIER_OWNER_ID, waitMillis, leaseMillis)
+                .handle((isLock, e) -> {
+                    if (e != null) {
+                        log.error("Lock request failed : {}", accountNumber, e);
+                        return LockOutcome.ERROR;
+                    }
+                    return isLock ? LockOutcome.ACQUIRED : LockOutcome.REDIS_TIMEOUT;
+                });
     }
+
+    /**
+     * 해제 결과를 기다리지 않는다.
+     * 해제가 반영되기 전에 같은 노드가 다시 취득해도 같은 소유자 id 의 재진입으로 처리되므로
+     * 어느 순서로 반영되든 이 노드가 lock 을 가진 상태가 유지된다.
+     */
+    private void releaseDistributed(String accountNumber, LocalLockTier.Slot slot) {
+        slot.clearDistributed();
+        lockProvider.unlockAsync(getLockKey(accountNumber), LOCAL_TIER_OWNER_ID)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Unlock failed : {}", accountNumber, e);
+                    }
+                });
+    }
+
+    // handoff 받을 대기자가 시간 초과로 떠난 경우, 남겨진 분산 lock 을 정리한다.
+    private void releaseAbandonedHandoff(String accountNumber, LocalLockTier.Slot slot) {
+        if (!slot.tryAcquire()) {
+            return;
+        }
+        try {
+            if (slot.distributedHeld && !slot.hasWaiters()) {
+                releaseDistributed(accountNumber, slot);
+            }
+        } finally {
+            slot.release();
+        }
+    }
+
     private static String getLockKey(String accountNumber) {
         return "ACLK" + accountNumber;
     }
+
+    // lockAllAsync 진행 상태 - 정렬된 계좌번호와 지금까지 잡은 로컬 slot
+    private final class MultiLock {
+        private final List<String> accountNumbers;
+        private final long startedAt;
+        private final long deadline;
+        private final List<LocalLockTier.Slot> slots = new ArrayList<>();
+        private final List<Boolean> busy = new ArrayList<>();
+
+        private MultiLock(List<String> accountNumbers, long startedAt, long deadline) {
+            this.accountNumbers = accountNumbers;
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+
+        // 취득에 실패하면 지금까지 잡은 lock 을 역순으로 놓는다.
+        private void releaseAll() {
+            for (int i = slots.size() - 1; i >= 0; i--) {
+                releaseSlot(accountNumbers.get(i), slots.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OPTIMISTIC 모드의 재시도 처리
+ * 트랜잭션 interceptor 바깥에서 동작해야 매 시도마다 새 트랜잭션으로 계좌를 다시 읽는다.
+ */
+@Aspect
+@Component
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+    private final ConcurrencyMode concurrencyMode;
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticRetryAspect(
+            @Value("${account.transaction.concurrency-mode:LOCK}") ConcurrencyMode concurrencyMode,
+            @Value("${account.transaction.optimistic.max-retries:3}") int maxRetries,
+            @Value("${account.transaction.optimistic.backoff-millis:10}") long backoffMillis
+    ) {
+        this.concurrencyMode = concurrencyMode;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Around("@annotation(com.example.account.aop.OptimisticRetry)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (concurrencyMode != ConcurrencyMode.OPTIMISTIC) {
+            return pjp.proceed();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxRetries) {
+                    exhausted.increment();
+                    log.error("Optimistic lock retry exhausted : {}", pjp.getSignature());
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // 지수 backoff 구간 안에서 무작위로 대기한다 (full jitter).
+    private void backoff(int attempt) {
+        long bound = backoffMillis << Math.min(attempt, 10);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+}
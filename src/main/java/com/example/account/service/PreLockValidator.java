@@ -0,0 +1,193 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lock 전 검증 (account.transaction.pre-validation.enabled)
+ * 성공할 수 없는 요청은 계좌 lock 을 기다리지 않고 바로 실패시킨다.
+ * 1. 사용자 없음, 계좌 없음, 소유주 불일치 - AccountUserCache
+ * 2. 해지된 계좌, 잔액이 명백히 부족한 경우 - 짧은 TTL 의 계좌 상태 스냅샷
+ * 스냅샷은 이 노드에서 계좌 변경이 성공하면 버리고, 다른 노드의 변경은 TTL 동안 반영되지 않을 수 있다.
+ * 그래서 캐시된 값이 잔액 부족이면 DB 에서 다시 읽어 부족할 때만 거절한다. (다른 노드의 입금)
+ * 계좌 색인(AccountIndex)을 켜면 1 의 소유주와 2 를 색인에서 읽는다. (분할 계좌는 스냅샷을 쓴다)
+ * 거절한 요청도 실패 거래로 기록한다.
+ */
+@Slf4j
+@Component
+public class PreLockValidator {
+    private final AccountUserCache accountUserCache;
+    private final AccountRepository accountRepository;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final BalanceStripes balanceStripes;
+    private final AccountIndex accountIndex;
+    private final boolean enabled;
+
+    private final Cache<String, Snapshot> snapshots;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public PreLockValidator(
+            AccountUserCache accountUserCache,
+            AccountRepository accountRepository,
+            FailedTransactionRecorder failedTransactionRecorder,
+            BalanceStripes balanceStripes,
+            AccountIndex accountIndex,
+            @Value("${account.transaction.pre-validation.enabled:true}") boolean enabled,
+            @Value("${account.transaction.pre-validation.snapshot-ttl-millis:1000}") long snapshotTtlMillis,
+            @Value("${account.transaction.pre-validation.snapshot-max-size:100000}") long snapshotMaxSize
+    ) {
+        this.accountUserCache = accountUserCache;
+        this.accountRepository = accountRepository;
+        this.failedTransactionRecorder = failedTransactionRecorder;
+        this.balanceStripes = balanceStripes;
+        this.accountIndex = accountIndex;
+        this.enabled = enabled;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(snapshotMaxSize)
+                .expireAfterWrite(Duration.ofMillis(snapshotTtlMillis))
+                .build();
+    }
+
+    // 실패할 요청이면 실패 거래를 기록하고 AccountException 을 던진다.
+    public void validate(AccountLockIdInterface request) {
+        if (!enabled) {
+            return;
+        }
+        if (request instanceof UseBalance.Request use) {
+            ErrorCode errorCode = validateUse(use);
+            if (errorCode != null) {
+                failedTransactionRecorder.recordUse(use.getAccountNumber(), use.getAmount(), errorCode);
+                throw reject(use.getAccountNumber(), errorCode);
+            }
+        } else if (request instanceof CancelBalance.Request cancel) {
+            if (!exists(cancel.getAccountNumber())) {
+                failedTransactionRecorder.recordCancel(cancel.getAccountNumber(),
+                        cancel.getAmount(), ErrorCode.ACCOUNT_NOT_FOUND);
+                throw reject(cancel.getAccountNumber(), ErrorCode.ACCOUNT_NOT_FOUND);
+            }
+        }
+    }
+
+    // 계좌 변경이 성공하면 스냅샷을 버린다.
+    public void onChanged(String accountNumber) {
+        snapshots.invalidate(accountNumber);
+    }
+
+    // TransactionService.useBalance 와 같은 순서로 검증한다.
+    private ErrorCode validateUse(UseBalance.Request request) {
+        if (accountUserCache.getUser(request.getUserId()).isEmpty()) {
+            return ErrorCode.USER_NOT_FOUND;
+        }
+        if (indexes(request.getAccountNumber())) {
+            return validateUseByIndex(request);
+        }
+        Long ownerId = accountUserCache.getOwnerId(request.getAccountNumber()).orElse(null);
+        if (ownerId == null) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        if (!Objects.equals(ownerId, request.getUserId())) {
+            return ErrorCode.USER_ACCOUNT_UN_MATCH;
+        }
+
+        String accountNumber = request.getAccountNumber();
+        Snapshot snapshot = snapshots.getIfPresent(accountNumber);
+        boolean cached = snapshot != null;
+        if (!cached) {
+            snapshot = loadSnapshot(accountNumber);
+            if (snapshot == null) {
+                return null;
+            }
+            snapshots.put(accountNumber, snapshot);
+        }
+        if (snapshot.accountStatus() != AccountStatus.IN_USE) {
+            return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        }
+        if (snapshot.balance() < request.getAmount()
+                && (!cached || shortAfterReload(accountNumber, request.getAmount()))) {
+            return ErrorCode.AMOUNT_EXCEED_BALANCE;
+        }
+        return null;
+    }
+
+    // 캐시된 스냅샷의 잔액 부족은 DB 에서 다시 읽어 확인한다. (판단할 수 없으면 lock 경로에 맡긴다)
+    private boolean shortAfterReload(String accountNumber, long amount) {
+        Snapshot reloaded = loadSnapshot(accountNumber);
+        if (reloaded == null) {
+            snapshots.invalidate(accountNumber);
+            return false;
+        }
+        snapshots.put(accountNumber, reloaded);
+        return reloaded.balance() < amount;
+    }
+
+    private ErrorCode validateUseByIndex(UseBalance.Request request) {
+        AccountIndex.Entry entry = new AccountIndex.Entry();
+        if (!accountIndex.read(request.getAccountNumber(), entry)) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        if (entry.getOwnerId() != request.getUserId()) {
+            return ErrorCode.USER_ACCOUNT_UN_MATCH;
+        }
+        if (entry.getAccountStatus() != AccountStatus.IN_USE) {
+            return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        }
+        // 색인도 이 노드의 변경만 무효화하므로 부족하면 DB 에서 다시 읽어 확인한다.
+        if (entry.getBalance() < request.getAmount()) {
+            accountIndex.invalidate(request.getAccountNumber());
+            if (accountIndex.read(request.getAccountNumber(), entry)
+                    && entry.getBalance() < request.getAmount()) {
+                return ErrorCode.AMOUNT_EXCEED_BALANCE;
+            }
+        }
+        return null;
+    }
+
+    private boolean exists(String accountNumber) {
+        if (indexes(accountNumber)) {
+            return accountIndex.read(accountNumber, new AccountIndex.Entry());
+        }
+        return accountUserCache.getOwnerId(accountNumber).isPresent();
+    }
+
+    // 분할 계좌의 잔액은 slot 에도 있으므로 색인의 잔액만으로 판단하지 않는다.
+    private boolean indexes(String accountNumber) {
+        return accountIndex.isEnabled() && !balanceStripes.isStriped(accountNumber);
+    }
+
+    // 분할 계좌는 slot 잔액을 합산한다.
+    private Snapshot loadSnapshot(String accountNumber) {
+        return accountRepository.findSnapshotByAccountNumber(accountNumber)
+                .map(view -> new Snapshot(view.getAccountStatus(),
+                        view.getBalance() + balanceStripes.slotBalance(accountNumber)))
+                .orElse(null);
+    }
+
+    private AccountException reject(String accountNumber, ErrorCode errorCode) {
+        rejected.increment();
+        log.debug("Rejected before lock : {} {}", errorCode, accountNumber);
+        return new AccountException(errorCode);
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private record Snapshot(AccountStatus accountStatus, long balance) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * reactive API 의 계좌 lock (@AccountLock 에 해당)
+ * LockService.lockAsync 로 취득하므로 대기 중에 이벤트 루프 스레드를 붙잡지 않고,
+ * MVC 요청과 같은 로컬 lock 대기열 / 분산 lock 을 공유한다.
+ * 작업이 끝나거나 실패하거나 취소되면 lock 을 해제한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.reactive.enabled", havingValue = "true")
+public class ReactiveAccountLock {
+    private final LockService lockService;
+    private final PreLockValidator preLockValidator;
+
+    public <T> Mono<T> withLock(String accountNumber, long waitMillis, long leaseMillis,
+                                Supplier<Mono<T>> action) {
+        return Mono.usingWhen(
+                Mono.defer(() -> lock(accountNumber, waitMillis, leaseMillis)),
+                locked -> action.get()
+                        .doOnSuccess(result -> preLockValidator.onChanged(accountNumber)),
+                locked -> Mono.fromRunnable(() -> lockService.unlock(accountNumber)));
+    }
+
+    // 취득을 기다리는 중에 요청이 취소되면, 나중에 취득된 lock 을 바로 해제한다.
+    private Mono<String> lock(String accountNumber, long waitMillis, long leaseMillis) {
+        CompletableFuture<Void> locked =
+                lockService.lockAsync(accountNumber, waitMillis, leaseMillis);
+        return Mono.fromFuture(locked, true)
+                .thenReturn(accountNumber)
+                .doOnCancel(() -> locked.thenRun(() -> lockService.unlock(accountNumber)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.ReactiveTransactionRepository;
+import com.example.account.repository.ReactiveTransactionRepository.AccountRow;
+import com.example.account.repository.ReactiveTransactionRepository.TransactionRow;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * reactive API 의 잔액 사용/취소/거래 확인 (account.reactive.enabled)
+ * TransactionService 와 같은 순서로 검증하고 같은 ErrorCode 로 실패한다.
+ * 계좌 lock 은 호출하는 쪽(ReactiveAccountLock)이 잡는다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.reactive.enabled", havingValue = "true")
+public class ReactiveTransactionService {
+    private final ReactiveTransactionRepository reactiveTransactionRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountStateCache accountStateCache;
+    private final AccountIndex accountIndex;
+
+    public ReactiveTransactionService(
+            ReactiveTransactionRepository reactiveTransactionRepository,
+            @Qualifier("reactiveTransactionalOperator") TransactionalOperator transactionalOperator,
+            TransactionIdGenerator transactionIdGenerator,
+            AccountStateCache accountStateCache,
+            AccountIndex accountIndex
+    ) {
+        this.reactiveTransactionRepository = reactiveTransactionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.accountStateCache = accountStateCache;
+        this.accountIndex = accountIndex;
+    }
+
+    // 잔액 사용 - TransactionService.useBalance 와 같은 정책
+    public Mono<TransactionDto> useBalance(Long userId, String accountNumber, Long amount) {
+        Mono<TransactionDto> use = reactiveTransactionRepository.existsUserById(userId)
+                .flatMap(exists -> exists ? findAccount(accountNumber)
+                        : Mono.error(new AccountException(ErrorCode.USER_NOT_FOUND)))
+                .flatMap(account -> {
+                    validateUseBalance(userId, account, amount);
+                    return changeBalance(USE, account, account.balance() - amount, amount);
+                });
+        // 트랜잭션이 커밋된 뒤 색인의 항목을 버린다.
+        return transactionalOperator.transactional(use)
+                .doOnSuccess(transactionDto -> accountIndex.invalidate(accountNumber));
+    }
+
+    // 잔액 사용 취소 - TransactionService.cancelBalance 와 같은 정책
+    public Mono<TransactionDto> cancelBalance(String transactionId, String accountNumber,
+                                              Long amount) {
+        Mono<TransactionDto> cancel = reactiveTransactionRepository
+                .findTransactionByTransactionId(transactionId)
+                .switchIfEmpty(Mono.error(new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .flatMap(transaction -> findAccount(accountNumber)
+                        .flatMap(account -> {
+                            validateCancelBalance(transaction, account, amount);
+                            return changeBalance(CANCEL, account, account.balance() + amount, amount);
+                        }));
+        return transactionalOperator.transactional(cancel)
+                .doOnSuccess(transactionDto -> accountIndex.invalidate(accountNumber));
+    }
+
+    // 거래 확인
+    public Mono<TransactionDto> queryTransaction(String transactionId) {
+        return reactiveTransactionRepository.findTransactionByTransactionId(transactionId)
+                .switchIfEmpty(Mono.error(new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .map(ReactiveTransactionService::toDto);
+    }
+
+    private Mono<AccountRow> findAccount(String accountNumber) {
+        return reactiveTransactionRepository.findAccountByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+    }
+
+    private void validateUseBalance(Long userId, AccountRow account, Long amount) {
+        // 사용자 아이디와 계좌 소유주가 다른 경우
+        if (!Objects.equals(userId, account.accountUserId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        // 계좌가 이미 해지 상태인 경우
+        if (account.accountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        // 거래금액이 잔액보다 큰 경우
+        if (account.balance() < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    private void validateCancelBalance(TransactionRow transaction, AccountRow account, Long amount) {
+        if (transaction.transactionType() != USE || transaction.transactionResultType() != S) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_CANCELABLE);
+        }
+        if (!Objects.equals(transaction.accountId(), account.id())) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (!Objects.equals(transaction.amount(), amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (transaction.transactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+
+    /**
+     * 읽은 version 조건으로 잔액을 바꾸고 성공 거래를 저장한다.
+     * lock 을 잡고 있으므로 version 이 달라지는 일은 없어야 한다.
+     */
+    private Mono<TransactionDto> changeBalance(TransactionType transactionType, AccountRow account,
+                                               long balance, Long amount) {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionRow transaction = new TransactionRow(transactionType, S, account.id(),
+                account.accountNumber(), amount, balance, transactionIdGenerator.generate(), now);
+        return reactiveTransactionRepository
+                .updateBalance(account.id(), account.version(), balance, now)
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        log.error("Account changed while locked : {}", account.accountNumber());
+                        return Mono.error(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+                    }
+                    // MVC 경로가 캐시한 계좌 상태는 더 이상 맞지 않는다.
+                    accountStateCache.invalidate(account.accountNumber());
+                    return reactiveTransactionRepository.insertTransaction(transaction);
+                })
+                .thenReturn(transaction)
+                .map(ReactiveTransactionService::toDto);
+    }
+
+    private static TransactionDto toDto(TransactionRow transaction) {
+        return TransactionDto.builder()
+                .accountNumber(transaction.accountNumber())
+                .transactionType(transaction.transactionType())
+                .transactionResultType(transaction.transactionResultType())
+                .amount(transaction.amount())
+                .balanceSnapshot(transaction.balanceSnapshot())
+                .transactionId(transaction.transactionId())
+                .transactedAt(transaction.transactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계좌번호 hash 로 고른 단일 스레드 shard 에서 계좌 변경을 순서대로 실행한다.
+ * 한 계좌의 변경은 항상 같은 shard 스레드가 처리하므로 SHARDED 모드에서는 노드 안에서 lock 이 필요 없다.
+ * shard 에는 계좌 변경(서비스 호출)만 제출한다. 요청 처리의 나머지는 호출한 스레드에서 하므로
+ * 같은 shard 의 다른 계좌를 기다리게 하지 않는다.
+ * 다른 모드에서는 호출하는 쪽(@AccountLock)이 lock 을 잡은 뒤 제출한다.
+ * shard 의 대기열(mailbox)이 가득 차면 ACCOUNT_TRANSACTION_LOCK 으로 거절한다.
+ */
+@Slf4j
+@Component
+public class ShardedTransactionExecutor {
+    // 현재 스레드가 실행 중인 shard 번호 (shard 안에서 다시 제출하면 바로 실행한다)
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor[] shards;
+    private final boolean sharded;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ShardedTransactionExecutor(
+            @Value("${account.transaction.shard.count:8}") int shardCount,
+            @Value("${account.transaction.shard.mailbox-capacity:1024}") int mailboxCapacity,
+            @Value("${account.transaction.concurrency-mode:LOCK}") ConcurrencyMode concurrencyMode
+    ) {
+        this.sharded = concurrencyMode == ConcurrencyMode.SHARDED;
+        this.shards = new ThreadPoolExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String threadName = "account-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(mailboxCapacity),
+                    runnable -> new Thread(runnable, threadName),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String accountNumber, ShardTask<T> task) {
+        int shard = shardOf(accountNumber);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (Integer.valueOf(shard).equals(CURRENT_SHARD.get())) {
+            run(task, future);
+            return future;
+        }
+
+        try {
+            shards[shard].execute(() -> {
+                CURRENT_SHARD.set(shard);
+                try {
+                    run(task, future);
+                } finally {
+                    CURRENT_SHARD.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.error("Shard mailbox is full : {}", accountNumber);
+            future.completeExceptionally(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        }
+        return future;
+    }
+
+    /**
+     * 계좌의 shard 에서 실행하고 끝날 때까지 기다린다. (SHARDED 모드의 동기 요청)
+     * 작업이 던진 예외는 그대로 다시 던진다.
+     */
+    public <T> T call(String accountNumber, ShardTask<T> task) {
+        try {
+            return submit(accountNumber, task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> void run(ShardTask<T> task, CompletableFuture<T> future) {
+        try {
+            future.complete(task.call());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    int shardOf(String accountNumber) {
+        return Math.floorMod(accountNumber.hashCode(), shards.length);
+    }
+
+    // 동기 요청의 계좌 변경도 shard 에서 실행하는지 (SHARDED 모드)
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getQueueSize(int shard) {
+        return shards[shard].getQueue().size();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        for (ThreadPoolExecutor shard : shards) {
+            shard.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ShardTask<T> {
+        T call() throws Throwable;
+    }
+}
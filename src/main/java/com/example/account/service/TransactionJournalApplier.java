@@ -0,0 +1,241 @@
+package com.example.account.service;
+
+import com.example.account.journal.JournalEntry;
+import com.example.account.journal.JournalRecord;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.repository.TransactionJournalCommitRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 저널 기록을 DB 에 반영하는 백그라운드 적용기
+ * 커밋된 거래는 DB 에 저장될 때까지 거래 id 로 조회할 수 있도록 unapplied 에 둔다. (TransactionJournalAspect)
+ * 백그라운드 스레드가 커밋 결과를 apply-batch-size 단위로 모아 TransactionService.saveJournaledTransactions 로 저장하고,
+ * 빈틈없이 처리된 seq 까지 저널 checkpoint 를 올리고, 그 이하의 DB 커밋 표시를 지운다.
+ * 시작 시에는 저널에서 복구한 기록을 먼저 모두 저장한다.
+ */
+@Slf4j
+@Component
+public class TransactionJournalApplier {
+    private static final long RETRY_MILLIS = 1000L;
+
+    private final TransactionJournal transactionJournal;
+    private final TransactionService transactionService;
+    private final TransactionJournalCommitRepository transactionJournalCommitRepository;
+    private final int batchSize;
+    private final long applyIntervalMillis;
+
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    // 거래 id -> 커밋되었지만 아직 DB 에 저장하지 않은 거래
+    private final ConcurrentHashMap<String, JournalRecord> unapplied = new ConcurrentHashMap<>();
+    // 처리했지만 앞선 seq 가 남아 checkpoint 를 올리지 못한 seq (applier 스레드만 사용)
+    private final TreeSet<Long> resolved = new TreeSet<>();
+    private long checkpoint;
+
+    private final Thread applier;
+    private volatile boolean running;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder applyFailures = new LongAdder();
+
+    public TransactionJournalApplier(
+            TransactionJournal transactionJournal,
+            TransactionService transactionService,
+            TransactionJournalCommitRepository transactionJournalCommitRepository,
+            @Value("${account.transaction.journal.apply-batch-size:500}") int batchSize,
+            @Value("${account.transaction.journal.apply-interval-millis:50}") long applyIntervalMillis
+    ) {
+        this.transactionJournal = transactionJournal;
+        this.transactionService = transactionService;
+        this.transactionJournalCommitRepository = transactionJournalCommitRepository;
+        this.batchSize = batchSize;
+        this.applyIntervalMillis = applyIntervalMillis;
+        this.applier = new Thread(this::runApplier, "transaction-journal-applier");
+        this.applier.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!transactionJournal.isEnabled()) {
+            return;
+        }
+        replay();
+        running = true;
+        applier.start();
+    }
+
+    /**
+     * 복구한 기록을 저장한다. 저장하지 못하면 기록을 잃지 않도록 기동을 멈춘다.
+     */
+    void replay() {
+        List<JournalRecord> records = new ArrayList<>();
+        for (JournalEntry entry : transactionJournal.takeRecovered()) {
+            if (entry.inDoubt() && !committedInDb(entry.seq())) {
+                log.warn("Skip in-doubt journal entry not committed : {}", entry.seq());
+                continue;
+            }
+            records.addAll(entry.records());
+        }
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<JournalRecord> batch = records.subList(from, Math.min(from + batchSize, records.size()));
+            transactionService.saveJournaledTransactions(batch);
+            applied.add(batch.size());
+        }
+        checkpoint = transactionJournal.getRecoveredThrough();
+        transactionJournal.markApplied(checkpoint);
+        clearCommitMarks(checkpoint);
+        if (!records.isEmpty()) {
+            log.info("Replayed transaction journal : {}", records.size());
+        }
+    }
+
+    public void committed(long seq, List<JournalRecord> records) {
+        records.forEach(record -> {
+            if (record.transactionId() != null) {
+                unapplied.put(record.transactionId(), record);
+            }
+        });
+        events.add(new Event(seq, records, false));
+    }
+
+    public void aborted(long seq) {
+        events.add(new Event(seq, List.of(), false));
+    }
+
+    // DB 커밋 결과를 알 수 없는 기록은 적용할 때 DB 의 커밋 표시로 판단한다.
+    public void inDoubt(long seq, List<JournalRecord> records) {
+        events.add(new Event(seq, records, true));
+    }
+
+    public JournalRecord findUnapplied(String transactionId) {
+        return transactionId == null ? null : unapplied.get(transactionId);
+    }
+
+    /**
+     * 커밋 여부가 불분명한 기록은 같은 트랜잭션에서 넣은 커밋 표시가 DB 에 있을 때만 커밋된 것으로 본다.
+     * (저널 fsync 뒤, DB 커밋 전에 종료되었다면 표시가 없다)
+     */
+    boolean committedInDb(long seq) {
+        return transactionJournalCommitRepository.existsByJournalIdAndSeq(
+                transactionJournal.getJournalId(), seq);
+    }
+
+    // checkpoint 이하의 커밋 표시를 지운다. 실패하면 다음 checkpoint 때 함께 지운다.
+    private void clearCommitMarks(long seq) {
+        try {
+            transactionJournalCommitRepository.deleteThrough(transactionJournal.getJournalId(), seq);
+        } catch (RuntimeException e) {
+            log.warn("Failed to clear journal commit marks : {}", seq, e);
+        }
+    }
+
+    private void runApplier() {
+        while (running) {
+            try {
+                Event first = events.poll(applyIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Event> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                events.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // DB 에 저장할 때까지 다시 시도한다. 멈추는 중이면 한 번만 시도하고, 남은 기록은 다음 기동 때 replay 한다.
+    void apply(List<Event> batch) throws InterruptedException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (Event event : batch) {
+            if (event.inDoubt() && !committedInDb(event.seq())) {
+                log.warn("Skip in-doubt journal entry not committed : {}", event.seq());
+                continue;
+            }
+            records.addAll(event.records());
+        }
+
+        while (true) {
+            try {
+                if (!records.isEmpty()) {
+                    transactionService.saveJournaledTransactions(records);
+                }
+                applied.add(records.size());
+                break;
+            } catch (Exception e) {
+                applyFailures.increment();
+                log.error("Failed to apply transaction journal : {}", records.size(), e);
+                if (!running) {
+                    return;
+                }
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+
+        for (Event event : batch) {
+            event.records().forEach(record -> {
+                if (record.transactionId() != null) {
+                    unapplied.remove(record.transactionId(), record);
+                }
+            });
+            resolved.add(event.seq());
+        }
+        long previous = checkpoint;
+        while (resolved.remove(checkpoint + 1)) {
+            checkpoint++;
+        }
+        if (checkpoint > previous) {
+            transactionJournal.markApplied(checkpoint);
+            clearCommitMarks(checkpoint);
+        }
+    }
+
+    /**
+     * 백그라운드 스레드를 멈추고 남은 커밋 결과를 반영한다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!transactionJournal.isEnabled()) {
+            return;
+        }
+        running = false;
+        applier.join(applyIntervalMillis * 2 + RETRY_MILLIS + 5000L);
+
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (events.drainTo(batch, batchSize) > 0) {
+            apply(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    public long getApplied() {
+        return applied.sum();
+    }
+
+    public long getApplyFailures() {
+        return applyFailures.sum();
+    }
+
+    public int getUnappliedSize() {
+        return unapplied.size();
+    }
+
+    // 저널 seq 하나의 DB 커밋 결과 (롤백이면 records 가 비어 있다)
+    record Event(long seq, List<JournalRecord> records, boolean inDoubt) {
+    }
+}
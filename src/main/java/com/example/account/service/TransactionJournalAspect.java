@@ -0,0 +1,200 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.journal.JournalRecord;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionJournalCommitRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 성공 거래 저널링 (account.transaction.journal.enabled)
+ * 트랜잭션 안에서 저장하는 성공 거래는 INSERT 하지 않고 모아 두었다가, 커밋 직전에 저널에 기록하고 fsync 를 기다린다.
+ * 잔액 변경은 그대로 DB 에 커밋하고, 거래 INSERT 는 TransactionJournalApplier 가 뒤에서 묶어서 저장한다.
+ * 커밋 결과는 저널에 COMMIT / ABORT 로 남기고, DB 에 저장되기 전의 거래는 거래 id 조회에서 저널 기록으로 응답한다.
+ * 같은 트랜잭션에서 저널 seq 의 커밋 표시(transaction_journal_commit)도 넣어, 결과를 모르는 기록은 그 표시로 판단한다.
+ * 실패 거래와 TransactionService.saveJournaledTransactions 의 saveAllAndFlush 는 저널을 거치지 않는다.
+ */
+@Aspect
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TransactionJournalAspect {
+    private final TransactionJournal transactionJournal;
+    private final TransactionJournalApplier transactionJournalApplier;
+    private final AccountRepository accountRepository;
+    private final TransactionJournalCommitRepository transactionJournalCommitRepository;
+    private final EntityManager entityManager;
+
+    @Around("execution(* save(..)) && args(transaction) " +
+            "&& target(com.example.account.repository.TransactionRepository)")
+    public Object aroundSave(ProceedingJoinPoint pjp, Transaction transaction) throws Throwable {
+        if (!journals(transaction)) {
+            return pjp.proceed();
+        }
+        currentBatch().transactions.add(transaction);
+        return transaction;
+    }
+
+    @Around("execution(* saveAll(..)) && args(transactions) " +
+            "&& target(com.example.account.repository.TransactionRepository)")
+    public Object aroundSaveAll(ProceedingJoinPoint pjp, Iterable<?> transactions) throws Throwable {
+        List<Transaction> journaled = new ArrayList<>();
+        List<Transaction> others = new ArrayList<>();
+        for (Object entity : transactions) {
+            Transaction transaction = (Transaction) entity;
+            if (journals(transaction)) {
+                journaled.add(transaction);
+            } else {
+                others.add(transaction);
+            }
+        }
+        if (journaled.isEmpty()) {
+            return pjp.proceed();
+        }
+        currentBatch().transactions.addAll(journaled);
+
+        List<Transaction> saved = new ArrayList<>(journaled);
+        if (!others.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            List<Transaction> savedOthers = (List<Transaction>) pjp.proceed(new Object[]{others});
+            saved.addAll(savedOthers);
+        }
+        return saved;
+    }
+
+    @Around("execution(* findByTransactionId(..)) && args(transactionId) " +
+            "&& target(com.example.account.repository.TransactionRepository)")
+    public Object aroundFind(ProceedingJoinPoint pjp, String transactionId) throws Throwable {
+        JournalRecord record = transactionJournalApplier.findUnapplied(transactionId);
+        if (record == null) {
+            return pjp.proceed();
+        }
+        return Optional.of(record.toEntity(accountRepository.getReferenceById(record.accountId())));
+    }
+
+    @Around("execution(* findCancelViewByTransactionId(..)) && args(transactionId) " +
+            "&& target(com.example.account.repository.TransactionRepository)")
+    public Object aroundFindCancelView(ProceedingJoinPoint pjp, String transactionId) throws Throwable {
+        JournalRecord record = transactionJournalApplier.findUnapplied(transactionId);
+        if (record == null) {
+            return pjp.proceed();
+        }
+        return accountRepository.findById(record.accountId())
+                .map(account -> new JournaledCancelView(record.transactionType(),
+                        record.transactionResultType(), account.getAccountNumber(),
+                        record.amount(), record.transactedAt()));
+    }
+
+    private boolean journals(Transaction transaction) {
+        return transactionJournal.isEnabled()
+                && transaction.getTransactionResultType() == TransactionResultType.S
+                && TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    // 트랜잭션마다 하나의 묶음을 만들어 커밋 시점에 한 번 기록한다.
+    private JournalBatch currentBatch() {
+        JournalBatch batch = (JournalBatch) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            batch = new JournalBatch();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(batch);
+        }
+        return batch;
+    }
+
+    private final class JournalBatch implements TransactionSynchronization {
+        private final List<Transaction> transactions = new ArrayList<>();
+        private List<JournalRecord> records;
+        private Long seq;
+
+        /**
+         * 계좌 변경을 먼저 flush 해 DB 오류가 저널에 기록하기 전에 드러나게 한다.
+         * 기록한 seq 의 커밋 표시를 같은 트랜잭션에 넣고, fsync 가 끝날 때까지 기다린다.
+         * 기록에 실패하면 예외로 트랜잭션을 롤백한다.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush();
+            records = transactions.stream().map(JournalRecord::from).toList();
+            TransactionJournal.Appended appended = transactionJournal.append(records);
+            seq = appended.seq();
+            transactionJournalCommitRepository.insert(transactionJournal.getJournalId(), seq);
+            try {
+                appended.durable().join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Failed to sync transaction journal", e.getCause());
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionJournalAspect.this);
+            if (seq == null) {
+                return;
+            }
+            switch (status) {
+                case STATUS_COMMITTED -> {
+                    transactionJournal.commit(seq);
+                    transactionJournalApplier.committed(seq, records);
+                }
+                case STATUS_ROLLED_BACK -> {
+                    transactionJournal.abort(seq);
+                    transactionJournalApplier.aborted(seq);
+                }
+                default -> {
+                    log.warn("Unknown commit status of journal entry : {}", seq);
+                    transactionJournalApplier.inDoubt(seq, records);
+                }
+            }
+        }
+    }
+
+    private record JournaledCancelView(TransactionType transactionType,
+                                       TransactionResultType transactionResultType,
+                                       String accountNumber, Long amount,
+                                       LocalDateTime transactedAt) implements TransactionCancelView {
+        @Override
+        public TransactionType getTransactionType() {
+            return transactionType;
+        }
+
+        @Override
+        public TransactionResultType getTransactionResultType() {
+            return transactionResultType;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        @Override
+        public Long getAmount() {
+            return amount;
+        }
+
+        @Override
+        public LocalDateTime getTransactedAt() {
+            return transactedAt;
+        }
+    }
+}
@@ -1,29 +1,47 @@
 package com.example.account.service;
 
+import com.example.account.aop.OptimisticRetry;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountOperation;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
+import com.example.account.journal.JournalRecord;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 
 @Slf4j
@@ -31,8 +49,16 @@ import static com.example.account.type.TransactionType.USE;
 @RequiredArgsConstructor
 public class TransactionService {
     private final TransactionRepository transactionRepository;
-    private final AccountUserRepository accountUserRepository;
+    private final AccountUserCache accountUserCache;
+    private final AccountStateCache accountStateCache;
     private final AccountRepository accountRepository;
+    private final AtomicBalanceService atomicBalanceService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final BalanceStripes balanceStripes;
+    private final AccountIndex accountIndex;
+
+    @Value("${account.transaction.concurrency-mode:LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.LOCK;
 
     /**
      * 잔액 사용 정책
@@ -40,24 +66,230 @@ public class TransactionService {
      * 계좌가 이미 해지 상태인 경우, 거래금액이 잔액보다 큰 경우,
      * 거래금액이 너무 작거나 큰 경우 실패 응답
      */
+    @OptimisticRetry
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber,
                                      Long amount) {
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            return atomicBalanceService.useBalance(userId, accountNumber, amount);
+        }
         // 1. 사용자 조회
-        AccountUser user = accountUserRepository.findById(userId)
+        AccountUser user = accountUserCache.getUser(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-        // 2. 계좌 조회
+        // 2. 계좌 조회 - lock 을 잡은 뒤 커밋된 상태가 캐시에 있으면 SELECT 하지 않는다.
+        // 분할 계좌는 slot 잔액을 모아야 할 수 있으므로 캐시를 쓰지 않는다.
+        AccountStateCache.AccountState cached = balanceStripes.isStriped(accountNumber)
+                ? null : accountStateCache.get(accountNumber);
+        if (cached != null) {
+            TransactionDto transactionDto = useCachedBalance(user, cached, accountNumber, amount);
+            if (transactionDto != null) {
+                return transactionDto;
+            }
+        }
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountStateCache.verify(account);
+        combineIfShort(account, amount);
         // 잔액 사용 정책에 따른 validation 처리
         validateUseBalance(user, account, amount);
         // 잔액 사용 후 account 잔액 수정
         account.useBalance(amount);
+        accountStateCache.putAfterCommit(account);
         // 잔액 사용 성공 transaction 저장
         return TransactionDto.fromEntity(saveAndGetTransaction(USE, S, amount, account)
         );
 
     }
+
+    /**
+     * 캐시된 계좌 상태로 검증하고, 계좌 id 와 version 으로 잔액을 바로 변경한다.
+     * version 이 달라 변경되지 않았다면 캐시를 버리고 null 을 반환한다. (DB 조회로 다시 처리)
+     */
+    private TransactionDto useCachedBalance(AccountUser user, AccountStateCache.AccountState cached,
+                                            String accountNumber, Long amount) {
+        if (!Objects.equals(user.getId(), cached.ownerId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (cached.accountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (cached.balance() < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+
+        long balance = cached.balance() - amount;
+        if (accountRepository.updateBalance(cached.id(), cached.version(), balance,
+                LocalDateTime.now()) == 0) {
+            log.error("Stale account state cache : {}", accountNumber);
+            accountStateCache.invalidate(accountNumber);
+            return null;
+        }
+        AccountStateCache.AccountState changed = cached.withBalance(balance);
+        accountStateCache.putAfterCommit(accountNumber, changed);
+        accountIndex.putAfterCommit(accountNumber, changed.ownerId(), changed.accountStatus(),
+                changed.balance(), changed.version());
+
+        // 계좌 프록시를 초기화하지 않도록 거래 후 잔액과 계좌번호는 직접 채운다.
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .transactionType(USE)
+                .transactionResultType(S)
+                .account(accountRepository.getReferenceById(cached.id()))
+                .amount(amount)
+                .balanceSnapshot(balance)
+                .transactionId(transactionIdGenerator.generate())
+                .transactedAt(LocalDateTime.now())
+                .build());
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .account(transaction.getAccount())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+    /**
+     * 한 계좌에 대한 여러 잔액 사용을 요청 순서대로 처리한다. (잔액 사용 일괄 API)
+     * 계좌는 한 번만 조회하고, 건별로 잔액 사용 정책을 검증해 실패한 건은 건너뛴다.
+     * 성공한 건의 거래는 커밋 시 한 번의 batch insert 로 저장한다.
+     * 계좌가 없으면 ACCOUNT_NOT_FOUND 로 전체가 실패한다.
+     *
+     * @return 요청과 같은 순서의 건별 결과
+     */
+    @OptimisticRetry
+    @Transactional
+    public List<UseBalanceBatch.Result> useBalanceGroup(String accountNumber,
+                                                        List<UseBalance.Request> requests) {
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            return atomicBalanceService.useBalanceGroup(accountNumber, requests);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountStateCache.verify(account);
+
+        List<UseBalanceBatch.Result> results = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                Transaction transaction = useInGroup(account, request.getUserId(),
+                        request.getAmount());
+                transactions.add(transaction);
+                results.add(UseBalanceBatch.Result.success(TransactionDto.fromEntity(transaction)));
+            } catch (AccountException e) {
+                results.add(UseBalanceBatch.Result.failure(request, e.getErrorCode()));
+            }
+        }
+
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+            accountStateCache.putAfterCommit(account);
+        }
+        return results;
+    }
+
+    /**
+     * 한 계좌에 모인 잔액 사용, 잔액 사용 취소를 요청 순서대로 처리한다. (GroupCommitService)
+     * 계좌는 한 번만 조회하고, 계좌 잔액은 커밋 시 한 번만 UPDATE 하며 성공한 건의 거래는 batch insert 로 저장한다.
+     * 실패한 건은 건별 ErrorCode 로 반환하고 나머지 건은 처리한다.
+     * 계좌가 없으면 ACCOUNT_NOT_FOUND 로 전체가 실패한다.
+     *
+     * @return 요청과 같은 순서의 건별 결과
+     */
+    @OptimisticRetry
+    @Transactional
+    public List<AccountOperation.Result> applyGroup(String accountNumber,
+                                                    List<AccountOperation> operations) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountStateCache.verify(account);
+
+        List<AccountOperation.Result> results = new ArrayList<>(operations.size());
+        List<Transaction> transactions = new ArrayList<>(operations.size());
+        for (AccountOperation operation : operations) {
+            try {
+                Transaction transaction = operation.getTransactionType() == CANCEL
+                        ? cancelInGroup(account, operation.getTransactionId(),
+                                operation.getAmount())
+                        : useInGroup(account, operation.getUserId(), operation.getAmount());
+                transactions.add(transaction);
+                results.add(AccountOperation.Result.success(TransactionDto.fromEntity(transaction)));
+            } catch (AccountException e) {
+                results.add(AccountOperation.Result.failure(e.getErrorCode()));
+            }
+        }
+
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+            accountStateCache.putAfterCommit(account);
+        }
+        return results;
+    }
+
+    // 조회한 계좌에 잔액 사용을 적용하고 저장할 거래를 반환한다.
+    private Transaction useInGroup(Account account, Long userId, Long amount) {
+        AccountUser user = accountUserCache.getUser(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        combineIfShort(account, amount);
+        validateUseBalance(user, account, amount);
+        account.useBalance(amount);
+        return buildTransaction(USE, S, amount, account, LocalDateTime.now());
+    }
+
+    // 조회한 계좌에 잔액 사용 취소를 적용하고 저장할 거래를 반환한다.
+    private Transaction cancelInGroup(Account account, String transactionId, Long amount) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        validateCancelBalance(transaction, account, amount);
+        account.cancelBalance(amount);
+        return buildTransaction(CANCEL, S, amount, account, LocalDateTime.now());
+    }
+
+    /**
+     * 계좌 이체 - 한 트랜잭션에서 출금 계좌의 잔액을 사용하고 입금 계좌의 잔액을 늘린다.
+     * 두 계좌 모두 사용자 소유의 사용 중인 계좌여야 하고, 출금 계좌는 잔액 사용 정책을 따른다.
+     * 계좌 lock 은 호출하는 쪽(TransferService)이 두 계좌 모두 잡는다.
+     */
+    @OptimisticRetry
+    @Transactional
+    public TransferDto transfer(Long userId, String fromAccountNumber, String toAccountNumber,
+                                Long amount) {
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        AccountUser user = accountUserCache.getUser(userId)
+                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        Account from = accountRepository.findByAccountNumber(fromAccountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Account to = accountRepository.findByAccountNumber(toAccountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountStateCache.verify(from);
+        accountStateCache.verify(to);
+        combineIfShort(from, amount);
+        validateUseBalance(user, from, amount);
+        validateUseBalance(user, to, 0L);
+
+        from.useBalance(amount);
+        to.cancelBalance(amount);
+        accountStateCache.putAfterCommit(from);
+        accountStateCache.putAfterCommit(to);
+
+        LocalDateTime now = LocalDateTime.now();
+        Transaction withdraw = buildTransaction(TRANSFER_OUT, S, amount, from, now);
+        Transaction deposit = buildTransaction(TRANSFER_IN, S, amount, to, now);
+        transactionRepository.saveAll(List.of(withdraw, deposit));
+        return new TransferDto(TransactionDto.fromEntity(withdraw),
+                TransactionDto.fromEntity(deposit));
+    }
+
+    // 분할 계좌는 계좌 row 잔액이 부족하면 slot 잔액을 계좌 row 로 모은다.
+    private void combineIfShort(Account account, Long amount) {
+        if (account.getBalance() < amount) {
+            balanceStripes.combine(account);
+        }
+    }
+
     // 잔액 사용 정책에 따른 validation 처리
     private void validateUseBalance(AccountUser user, Account account, Long amount) {
         // 사용자 아이디와 계좌 소유주가 다른 경우
@@ -88,33 +320,50 @@ public class TransactionService {
     private Transaction saveAndGetTransaction(TransactionType transactionType,
             TransactionResultType transactionResultType, Long amount, Account account) {
         // transaction 을 저장하고 Transaction Entity 객체를 반환한다.
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+        return transactionRepository.save(buildTransaction(transactionType,
+                transactionResultType, amount, account, LocalDateTime.now()));
+    }
+
+    private Transaction buildTransaction(TransactionType transactionType,
+            TransactionResultType transactionResultType, Long amount, Account account,
+            LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                // 분할 계좌는 slot 잔액을 합산한다.
+                .balanceSnapshot(account.getBalance() + balanceStripes.slotBalance(account))
+                .transactionId(transactionIdGenerator.generate())
+                .transactedAt(transactedAt)
+                .build();
     }
 
     // 잔액 사용 취소
+    @OptimisticRetry
     @Transactional
     public TransactionDto cancelBalance(String transactionId, String accountNumber,
                                         Long amount) {
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            return atomicBalanceService.cancelBalance(transactionId, accountNumber, amount);
+        }
         // 취소하려는 거래 조회
         Transaction transaction = transactionRepository.findByTransactionId(transactionId)
                 .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
         // 계좌 조회
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountStateCache.verify(account);
         // 잔액사용취소 메소드를 호출하고 해당 거래, 사용자 계좌, 거래 금액을 인자로 전달한다.
         validateCancelBalance(transaction, account, amount);
 
-        account.cancelBalance(amount);
+        if (balanceStripes.stripesCredits(accountNumber)) {
+            // 분할 계좌는 계좌 row 대신 slot 에 더한다. (LockAopAspect 가 계좌 lock 대신 slot lock 을 잡았다.)
+            balanceStripes.credit(account, balanceStripes.slotOf(transactionId), amount);
+        } else {
+            account.cancelBalance(amount);
+            accountStateCache.putAfterCommit(account);
+        }
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(CANCEL, S, amount, account)
@@ -123,6 +372,10 @@ public class TransactionService {
 
     // 잔액 사용취소 유효성 검사
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+        // 성공한 잔액 사용 거래만 취소할 수 있다. (이체, 취소 거래를 취소하면 잔액이 생겨난다)
+        if (transaction.getTransactionType() != USE || transaction.getTransactionResultType() != S) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_CANCELABLE);
+        }
         // 거래계좌와 사용취소계좌가 일치하는지 확인
         if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
             throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
@@ -145,6 +398,56 @@ public class TransactionService {
         saveAndGetTransaction(CANCEL, F, amount, account);
     }
 
+    /**
+     * 여러 실패 거래를 한 번의 flush 로 저장한다. (jdbc batch insert)
+     * 계좌는 계좌번호별로 한 번만 조회하고, 없는 계좌의 거래는 저장하지 않는다.
+     *
+     * @return 저장한 거래 수
+     */
+    @Transactional
+    public int saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        failedTransactions.stream()
+                                .map(FailedTransaction::getAccountNumber)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failed : failedTransactions) {
+            Account account = accounts.get(failed.getAccountNumber());
+            if (account == null) {
+                log.error("Failed transaction for unknown account : {}", failed.getAccountNumber());
+                continue;
+            }
+            transactions.add(buildTransaction(failed.getTransactionType(), F,
+                    failed.getAmount(), account,
+                    failed.getTransactedAt() == null ? LocalDateTime.now() : failed.getTransactedAt()));
+        }
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+        return transactions.size();
+    }
+
+    /**
+     * 저널에 기록된 성공 거래를 저장한다. (TransactionJournalApplier)
+     * 이미 저장된 거래 id 는 건너뛰므로 재시작 후 같은 기록을 다시 적용해도 된다.
+     * saveAllAndFlush 는 저널을 거치지 않는다. (TransactionJournalAspect 는 save, saveAll 만 가로챈다)
+     *
+     * @return 저장한 거래 수
+     */
+    @Transactional
+    public int saveJournaledTransactions(List<JournalRecord> records) {
+        Set<String> saved = new HashSet<>(transactionRepository.findTransactionIdsIn(
+                records.stream().map(JournalRecord::transactionId).toList()));
+        List<Transaction> transactions = records.stream()
+                .filter(record -> !saved.contains(record.transactionId()))
+                .map(record -> record.toEntity(accountRepository.getReferenceById(record.accountId())))
+                .toList();
+        transactionRepository.saveAllAndFlush(transactions);
+        return transactions.size();
+    }
+
     // 거래 확인
     @Transactional
     public TransactionDto queryTransaction(String transactionId) {
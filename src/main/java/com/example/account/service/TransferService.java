@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransferDto;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 계좌 이체
+ * LOCK 모드에서는 두 계좌의 lock 을 LockService.lockAll 로 정해진 순서에 따라 함께 잡고 (분산 lock 은 한 번에 취득),
+ * TransactionService.transfer 로 한 트랜잭션에서 출금과 입금을 처리한다.
+ * 다른 모드에서는 두 계좌가 서로 다른 shard 에 있을 수 있으므로 계좌 version 으로 동시 변경을 감지하고,
+ * 충돌하면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다. (OPTIMISTIC 모드는 먼저 재시도한다.)
+ * LEDGER 모드에서는 메모리 원장의 명령 하나로 처리한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferService {
+    // 두 계좌를 기다리므로 잔액 사용보다 조금 더 기다린다.
+    static final long TRANSFER_WAIT_MILLIS = 3000L;
+
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final PreLockValidator preLockValidator;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final LedgerEngine ledgerEngine;
+
+    @Value("${account.transaction.concurrency-mode:LOCK}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.LOCK;
+
+    public TransferDto transfer(Long userId, String fromAccountNumber, String toAccountNumber,
+                                Long amount) {
+        try {
+            return execute(userId, fromAccountNumber, toAccountNumber, amount);
+        } catch (AccountException e) {
+            log.error("Failed to transfer. ");
+            failedTransactionRecorder.recordTransfer(fromAccountNumber, amount, e.getErrorCode());
+            throw e;
+        }
+    }
+
+    private TransferDto execute(Long userId, String fromAccountNumber, String toAccountNumber,
+                                Long amount) {
+        if (concurrencyMode == ConcurrencyMode.LEDGER) {
+            return ledgerEngine.transfer(userId, fromAccountNumber, toAccountNumber, amount);
+        }
+        if (concurrencyMode != ConcurrencyMode.LOCK) {
+            try {
+                return transactionService.transfer(userId, fromAccountNumber, toAccountNumber, amount);
+            } catch (OptimisticLockingFailureException e) {
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        }
+
+        List<String> accountNumbers = List.of(fromAccountNumber, toAccountNumber);
+        lockService.lockAll(accountNumbers, TRANSFER_WAIT_MILLIS, LockService.DEFAULT_LEASE_MILLIS);
+        try {
+            TransferDto transferDto =
+                    transactionService.transfer(userId, fromAccountNumber, toAccountNumber, amount);
+            preLockValidator.onChanged(fromAccountNumber);
+            preLockValidator.onChanged(toAccountNumber);
+            return transferDto;
+        } finally {
+            lockService.unlockAll(accountNumbers);
+        }
+    }
+}
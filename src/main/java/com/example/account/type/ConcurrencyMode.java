@@ -0,0 +1,17 @@
+package com.example.account.type;
+
+// 잔액 변경 동시성 제어 방식
+public enum ConcurrencyMode {
+    // Redis 분산 lock 으로 계좌별 요청을 직렬화한다.
+    LOCK,
+    // lock 없이 @Version 충돌 시 재시도한다.
+    OPTIMISTIC,
+    // lock 없이 조건부 UPDATE 한 번으로 잔액을 변경한다.
+    ATOMIC,
+    // 계좌번호 hash 로 고른 단일 스레드 shard 에서 순서대로 처리한다.
+    // 계좌별 요청이 한 노드로 라우팅되는 배포에서만 사용한다.
+    SHARDED,
+    // 모든 계좌 잔액을 메모리에 두고 단일 스레드가 ring buffer 의 명령을 순서대로 처리한다. (LedgerEngine)
+    // 한 노드가 모든 계좌를 처리하는 배포에서만 사용한다.
+    LEDGER
+}
@@ -17,8 +17,10 @@ public enum ErrorCode {
     TRANSACTION_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 다릅니다."),
     ACCOUNT_ALREADY_UNREGISTERED("이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
+    TRANSACTION_NOT_CANCELABLE("성공한 잔액 사용 거래만 취소할 수 있습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
     MAX_ACCOUNT_PER_USER_10("사용자 최대 계좌는 10개입니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("발급할 수 있는 계좌번호가 없습니다."),
     INVALID_REQUEST("잘못된 요청입니다.");
 
 
@@ -0,0 +1,9 @@
+package com.example.account.type;
+
+// 실패 거래 기록 방식
+public enum FailureLogMode {
+    // 실패 한 건마다 결과 F 인 Transaction row 를 저장한다.
+    ROW,
+    // (계좌, 거래 종류, 실패 사유, 시간 구간) 별 횟수만 집계해서 저장한다.
+    ROLLUP
+}
@@ -0,0 +1,15 @@
+package com.example.account.type;
+
+// 계좌 lock 취득 결과 (메트릭 tag)
+public enum LockOutcome {
+    // Redis lock 을 새로 취득
+    ACQUIRED,
+    // 같은 노드의 이전 소유자에게서 Redis lock 을 넘겨받음
+    HANDOFF,
+    // 로컬 대기 시간 초과
+    LOCAL_TIMEOUT,
+    // Redis lock 대기 시간 초과
+    REDIS_TIMEOUT,
+    // Redis 요청 실패 또는 인터럽트
+    ERROR
+}
@@ -0,0 +1,11 @@
+package com.example.account.type;
+
+// 실패 거래 대기열이 가득 찼을 때의 처리 방식
+public enum OverflowPolicy {
+    // 새 실패 거래를 버린다.
+    DROP_NEWEST,
+    // 가장 오래된 실패 거래를 버리고 새 실패 거래를 넣는다.
+    DROP_OLDEST,
+    // 요청 스레드에서 바로 저장한다. (기존 동기 저장과 같다)
+    CALLER_RUNS
+}
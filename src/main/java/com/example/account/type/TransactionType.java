@@ -1,5 +1,7 @@
 package com.example.account.type;
 
 public enum TransactionType {
-    USE, CANCEL
+    USE, CANCEL,
+    // 계좌 이체의 출금 / 입금
+    TRANSFER_OUT, TRANSFER_IN
 }
@@ -0,0 +1,61 @@
+-- BaseEntity id (pooled-lo, allocationSize 50), 초기 데이터(V2)의 id 와 겹치지 않도록 100 부터 시작
+create sequence entity_id_seq start with 100 increment by 50;
+
+create table account_user
+(
+    id         bigint       not null,
+    name       varchar(255),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table account
+(
+    id              bigint      not null,
+    account_user_id bigint,
+    account_number  varchar(10) not null,
+    account_status  varchar(20),
+    balance         bigint,
+    registered_at   timestamp(6),
+    unregistered_at timestamp(6),
+    version         bigint,
+    created_at      timestamp(6),
+    updated_at      timestamp(6),
+    primary key (id),
+    constraint fk_account_account_user foreign key (account_user_id) references account_user (id)
+);
+
+-- 계좌번호로 잔액 사용/취소/해지 대상 조회
+create unique index uk_account_account_number on account (account_number);
+-- 사용자별 계좌 목록, 계좌 수 조회
+create index idx_account_account_user_id on account (account_user_id);
+
+create table transaction
+(
+    id                      bigint      not null,
+    transaction_type        varchar(20),
+    transaction_result_type varchar(20),
+    account_id              bigint,
+    amount                  bigint,
+    balance_snapshot        bigint,
+    transaction_id          varchar(32) not null,
+    transacted_at           timestamp(6),
+    created_at              timestamp(6),
+    updated_at              timestamp(6),
+    primary key (id),
+    constraint fk_transaction_account foreign key (account_id) references account (id)
+);
+
+-- 거래 id 로 거래 확인/취소 대상 조회
+create unique index uk_transaction_transaction_id on transaction (transaction_id);
+-- 계좌별 거래 내역 (기간순)
+create index idx_transaction_account_id_transacted_at on transaction (account_id, transacted_at);
+
+-- 계좌번호 발급 카운터 (AccountNumberAllocator)
+create table account_number_sequence
+(
+    name       varchar(50) not null,
+    next_value bigint,
+    primary key (name)
+);
@@ -1,3 +1,4 @@
+-- 로컬 개발용 기본 사용자
 insert into account_user(id, name, created_at, updated_at)
 values (1, 'Pororo', now(), now());
 insert into account_user(id, name, created_at, updated_at)
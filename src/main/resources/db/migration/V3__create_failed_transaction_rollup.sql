@@ -0,0 +1,17 @@
+create table failed_transaction_rollup
+(
+    id               bigint      not null,
+    account_number   varchar(10) not null,
+    transaction_type varchar(20) not null,
+    error_code       varchar(50) not null,
+    bucket_start     timestamp(6) not null,
+    attempts         bigint      not null,
+    total_amount     bigint      not null,
+    created_at       timestamp(6),
+    updated_at       timestamp(6),
+    primary key (id)
+);
+
+-- 집계 키, 계좌별 기간 조회
+create unique index uk_failed_transaction_rollup_key
+    on failed_transaction_rollup (account_number, bucket_start, transaction_type, error_code);
@@ -0,0 +1,16 @@
+-- 입금이 몰리는 계좌의 보조 잔액 (BalanceStripes), 계좌 잔액 = account.balance + slot 잔액 합
+create table account_balance_slot
+(
+    id         bigint  not null,
+    account_id bigint  not null,
+    slot_index integer not null,
+    balance    bigint  not null,
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    primary key (id),
+    constraint fk_account_balance_slot_account foreign key (account_id) references account (id)
+);
+
+-- 계좌별 slot 조회, slot 입금
+create unique index uk_account_balance_slot_account_id_slot_index
+    on account_balance_slot (account_id, slot_index);
@@ -0,0 +1,7 @@
+-- 조건부 UPDATE (version = version + 1 ... where version = :version) 는 NULL version 을 올리지 못하므로 0 부터 시작한다.
+update account
+set version = 0
+where version is null;
+
+alter table account alter column version set default 0;
+alter table account alter column version set not null;
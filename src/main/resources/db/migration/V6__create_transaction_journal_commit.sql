@@ -0,0 +1,8 @@
+-- 저널 기록(seq)의 DB 커밋 표시 (TransactionJournalAspect), 거래와 같은 트랜잭션에서 넣는다.
+-- 커밋 여부가 불분명한 저널 기록은 이 row 가 있을 때만 적용하고, checkpoint 이하의 row 는 지운다.
+create table transaction_journal_commit
+(
+    journal_id varchar(36) not null,
+    seq        bigint      not null,
+    primary key (journal_id, seq)
+);
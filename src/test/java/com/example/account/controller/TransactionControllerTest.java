@@ -2,9 +2,21 @@ package com.example.account.controller;
 
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.CancelBalance;
+import com.example.account.dto.FailedTransactionRollupDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.Transfer;
+import com.example.account.dto.TransferDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.service.BatchTransactionService;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.FailedTransactionRollupStore;
+import com.example.account.service.GroupCommitService;
+import com.example.account.service.ShardedTransactionExecutor;
 import com.example.account.service.TransactionService;
+import com.example.account.service.TransferService;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,6 +35,7 @@ import java.util.List;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -37,6 +50,27 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private ShardedTransactionExecutor shardedTransactionExecutor;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    private FailedTransactionRollupStore failedTransactionRollupStore;
+
+    @MockBean
+    private BatchTransactionService batchTransactionService;
+
+    @MockBean
+    private TransferService transferService;
+
+    @MockBean
+    private GroupCommitService groupCommitService;
+
+    @MockBean
+    private LedgerEngine ledgerEngine;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -70,6 +104,78 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(12345));
     }
 
+    @Test
+    @DisplayName("잔액 사용 일괄 - 건별 결과")
+    void successUseBalanceBatch() throws Exception {
+        //given
+        given(batchTransactionService.useBalance(any()))
+                .willReturn(List.of(
+                        UseBalanceBatch.Result.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(S)
+                                .transactionId("transactionId")
+                                .amount(1000L)
+                                .transactionAt(LocalDateTime.now())
+                                .build(),
+                        UseBalanceBatch.Result.failure(
+                                new UseBalance.Request(1L, "1000000000", 2000L),
+                                ErrorCode.AMOUNT_EXCEED_BALANCE)));
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "1000000000", 1000L),
+                                        new UseBalance.Request(1L, "1000000000", 2000L)))
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    @DisplayName("계좌 이체 성공")
+    void successTransfer() throws Exception {
+        //given
+        given(transferService.transfer(anyLong(), anyString(), anyString(), anyLong()))
+                .willReturn(new TransferDto(
+                        TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TransactionType.TRANSFER_OUT)
+                                .transactionResultType(S)
+                                .amount(3000L)
+                                .transactionId("withdrawId")
+                                .transactedAt(LocalDateTime.now())
+                                .build(),
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .transactionType(TransactionType.TRANSFER_IN)
+                                .transactionResultType(S)
+                                .amount(3000L)
+                                .transactionId("depositId")
+                                .transactedAt(LocalDateTime.now())
+                                .build()));
+        //when
+        //then
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new Transfer.Request(1L, "1000000000", "1000000001", 3000L)
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromAccountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.toAccountNumber").value("1000000001"))
+                .andExpect(jsonPath("$.transactionResult").value("S"))
+                .andExpect(jsonPath("$.withdrawTransactionId").value("withdrawId"))
+                .andExpect(jsonPath("$.depositTransactionId").value("depositId"))
+                .andExpect(jsonPath("$.amount").value(3000));
+    }
+
     @Test
     @DisplayName("잔액 사용 취소 성공")
     void successCancelBalance() throws Exception {
@@ -122,4 +228,30 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("실패 거래 집계 조회 성공")
+    void successGetFailedTransactionRollups() throws Exception {
+        //given
+        given(failedTransactionRollupStore.getRollups(anyString(), any(), any()))
+                .willReturn(List.of(FailedTransactionRollupDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(USE)
+                        .errorCode(ErrorCode.AMOUNT_EXCEED_BALANCE)
+                        .bucketStart(LocalDateTime.of(2024, 2, 23, 23, 26))
+                        .attempts(120L)
+                        .totalAmount(1200000L)
+                        .build()));
+        //when
+        //then
+        mockMvc.perform(get("/transaction/failures")
+                        .param("account_number", "1000000000")
+                        .param("from", "2024-02-23T00:00:00")
+                        .param("to", "2024-02-24T00:00:00"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$[0].errorCode").value("AMOUNT_EXCEED_BALANCE"))
+                .andExpect(jsonPath("$[0].attempts").value(120));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.account.id;
+
+import com.example.account.config.TransactionIdGeneratorConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedTransactionIdGeneratorTest {
+    @Test
+    void generate32LowerHexCharacters() {
+        //given
+        TimeOrderedTransactionIdGenerator generator =
+                new TimeOrderedTransactionIdGenerator(0xABCD, () -> 0x123456789AL);
+        //when
+        String transactionId = generator.generate();
+        //then
+        assertEquals("00123456789aabcd0000000000000000", transactionId);
+        assertEquals(32, transactionId.length());
+        assertTrue(transactionId.matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    void increaseEvenWhenClockGoesBackwards() {
+        //given
+        AtomicLong clock = new AtomicLong(1000L);
+        TimeOrderedTransactionIdGenerator generator =
+                new TimeOrderedTransactionIdGenerator(1, clock::get);
+        //when
+        String first = generator.generate();
+        clock.set(999L);
+        String second = generator.generate();
+        clock.set(1001L);
+        String third = generator.generate();
+        //then
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(third) < 0);
+    }
+
+    @Test
+    void differentNodesDoNotCollide() {
+        //given
+        TimeOrderedTransactionIdGenerator node1 = new TimeOrderedTransactionIdGenerator(1, () -> 1000L);
+        TimeOrderedTransactionIdGenerator node2 = new TimeOrderedTransactionIdGenerator(2, () -> 1000L);
+        //when
+        //then
+        assertNotEquals(node1.generate(), node2.generate());
+    }
+
+    @Test
+    void rejectInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeOrderedTransactionIdGenerator(0x10000));
+    }
+
+    @Test
+    void requireNodeId() {
+        assertThrows(IllegalStateException.class,
+                () -> new TransactionIdGeneratorConfig().timeOrderedTransactionIdGenerator(-1));
+    }
+}
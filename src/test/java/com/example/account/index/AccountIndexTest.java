@@ -0,0 +1,113 @@
+package com.example.account.index;
+
+import com.example.account.dto.AccountIndexView;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountIndexTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Test
+    void keepEntriesAcrossResizeAndRemoval() {
+        //given
+        // 작은 segment 하나에서 여러 번 늘어나고, 지운 칸 뒤의 항목이 당겨진다.
+        AccountIndexTable table = new AccountIndexTable(1, 16L);
+        for (long key = 1; key <= 10_000; key++) {
+            assertTrue(table.put(key, key * 10, key % 7, AccountStatus.IN_USE, 1L, table.stamp(key)));
+        }
+        //when
+        for (long key = 1; key <= 10_000; key += 2) {
+            table.invalidate(key);
+        }
+        //then
+        AccountIndex.Entry entry = new AccountIndex.Entry();
+        for (long key = 1; key <= 10_000; key++) {
+            if (key % 2 == 1) {
+                assertFalse(table.read(key, entry));
+            } else {
+                assertTrue(table.read(key, entry));
+                assertEquals(key * 10, entry.getBalance());
+                assertEquals(key % 7, entry.getOwnerId());
+                assertEquals(AccountStatus.IN_USE, entry.getAccountStatus());
+            }
+        }
+        assertEquals(5_000, table.size());
+    }
+
+    @Test
+    void clampSegmentCapacityToIntBufferSize() {
+        //given
+        long accounts = 100_000_000L;
+        //when
+        int small = AccountIndexTable.segmentCapacity(4, 1000L);
+        int clamped = AccountIndexTable.segmentCapacity(1, accounts);
+        int huge = AccountIndexTable.segmentCapacity(1, Long.MAX_VALUE);
+        //then
+        assertEquals(512, small);
+        assertEquals(1 << 25, AccountIndexTable.MAX_CAPACITY);
+        assertEquals(AccountIndexTable.MAX_CAPACITY, clamped);
+        assertEquals(AccountIndexTable.MAX_CAPACITY, huge);
+        // 가장 큰 segment 도 allocateDirect 의 int 크기 안에 들어간다.
+        assertTrue((long) clamped * 32 <= Integer.MAX_VALUE);
+    }
+
+    @Test
+    void skipOlderVersionAndValueReadBeforeInvalidation() {
+        //given
+        AccountIndexTable table = new AccountIndexTable(1, 16L);
+        table.put(1L, 1000L, 12L, AccountStatus.IN_USE, 5L, table.stamp(1L));
+        // DB 에서 읽기 시작한 뒤 다른 변경이 무효화한다.
+        long stamp = table.stamp(2L);
+        table.invalidate(2L);
+        //when
+        boolean older = table.put(1L, 2000L, 12L, AccountStatus.IN_USE, 4L, table.stamp(1L));
+        boolean invalidated = table.put(2L, 3000L, 12L, AccountStatus.IN_USE, 1L, stamp);
+        //then
+        AccountIndex.Entry entry = new AccountIndex.Entry();
+        assertFalse(older);
+        assertFalse(invalidated);
+        assertTrue(table.read(1L, entry));
+        assertEquals(1000L, entry.getBalance());
+        assertEquals(5L, entry.getVersion());
+        assertFalse(table.read(2L, entry));
+    }
+
+    @Test
+    void readThroughOnceForNumericAccountNumber() {
+        //given
+        AccountIndex accountIndex = new AccountIndex(accountRepository, true, 4, 16L, false, 100);
+        AccountIndexView view = mock(AccountIndexView.class);
+        given(view.getOwnerId()).willReturn(12L);
+        given(view.getAccountStatus()).willReturn(AccountStatus.UNREGISTERED);
+        given(view.getBalance()).willReturn(0L);
+        given(view.getVersion()).willReturn(7L);
+        given(accountRepository.findIndexViewByAccountNumber("1000000000"))
+                .willReturn(Optional.of(view));
+        //when
+        AccountIndex.Entry entry = new AccountIndex.Entry();
+        boolean first = accountIndex.read("1000000000", entry);
+        boolean second = accountIndex.read("1000000000", entry);
+        //then
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(AccountStatus.UNREGISTERED, entry.getAccountStatus());
+        assertEquals(12L, entry.getOwnerId());
+        verify(accountRepository, times(1)).findIndexViewByAccountNumber("1000000000");
+        assertEquals(1L, accountIndex.getHits());
+        assertEquals(1000000001L, AccountIndex.keyOf("1000000000"));
+        assertEquals(-1L, AccountIndex.keyOf("100000000a"));
+        assertEquals(-1L, AccountIndex.keyOf("123"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.account.journal;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    @TempDir
+    Path dir;
+
+    private TransactionJournal open(int segmentBytes) throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, dir.toString(), segmentBytes,
+                true, 10L);
+        journal.open();
+        return journal;
+    }
+
+    private static JournalRecord record(String transactionId) {
+        return new JournalRecord(TransactionType.USE, TransactionResultType.S, 1L, 1000L, 9000L,
+                transactionId, LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123));
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    @Test
+    void recoverUnappliedEntriesAfterRestart() throws Exception {
+        //given
+        TransactionJournal journal = open(4096);
+        TransactionJournal.Appended committed = journal.append(List.of(record("committed")));
+        TransactionJournal.Appended aborted = journal.append(List.of(record("aborted")));
+        TransactionJournal.Appended inDoubt = journal.append(List.of(record("inDoubt")));
+        committed.durable().get();
+        inDoubt.durable().get();
+        journal.commit(committed.seq());
+        journal.abort(aborted.seq());
+        journal.close();
+        //when
+        TransactionJournal reopened = open(4096);
+        List<JournalEntry> entries = reopened.takeRecovered();
+        reopened.close();
+        //then
+        // 커밋 표시가 어느 저널의 seq 인지 구분하는 id 는 다시 열어도 같다.
+        assertNotNull(journal.getJournalId());
+        assertEquals(journal.getJournalId(), reopened.getJournalId());
+        assertEquals(2, entries.size());
+        assertEquals(record("committed"), entries.get(0).records().get(0));
+        assertFalse(entries.get(0).inDoubt());
+        assertEquals(record("inDoubt"), entries.get(1).records().get(0));
+        assertTrue(entries.get(1).inDoubt());
+        assertEquals(inDoubt.seq(), reopened.getRecoveredThrough());
+    }
+
+    @Test
+    void skipAppliedEntriesAndDeleteSegments() throws Exception {
+        //given
+        // 항목 몇 개만 들어가는 segment 로 여러 번 바꾼다.
+        TransactionJournal journal = open(256);
+        long last = 0L;
+        for (int i = 0; i < 10; i++) {
+            TransactionJournal.Appended appended = journal.append(List.of(record("id-" + i)));
+            appended.durable().get();
+            journal.commit(appended.seq());
+            last = appended.seq();
+        }
+        long segmentsBefore = segmentCount();
+        //when
+        journal.markApplied(last);
+        journal.close();
+        TransactionJournal reopened = open(256);
+        List<JournalEntry> entries = reopened.takeRecovered();
+        reopened.close();
+        //then
+        assertTrue(segmentsBefore > 1);
+        assertTrue(segmentCount() < segmentsBefore);
+        assertTrue(entries.isEmpty());
+        assertEquals(last, reopened.getRecoveredThrough());
+    }
+
+    @Test
+    void stopAtCorruptedEntry() throws Exception {
+        //given
+        TransactionJournal journal = open(4096);
+        TransactionJournal.Appended first = journal.append(List.of(record("first")));
+        TransactionJournal.Appended second = journal.append(List.of(record("second")));
+        second.durable().get();
+        journal.commit(first.seq());
+        journal.commit(second.seq());
+        journal.close();
+        // 두 번째 항목의 내용 한 바이트를 바꾼다.
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        int firstEntryBytes = 4 + java.nio.ByteBuffer.wrap(bytes).getInt() + 4;
+        bytes[firstEntryBytes + 20] ^= 1;
+        Files.write(segment, bytes);
+        //when
+        TransactionJournal reopened = open(4096);
+        List<JournalEntry> entries = reopened.takeRecovered();
+        reopened.close();
+        //then
+        assertEquals(1, entries.size());
+        assertEquals("first", entries.get(0).records().get(0).transactionId());
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.AccountLedgerView;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.service.AccountUserCache;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+    @Mock
+    private LedgerStore ledgerStore;
+    @Mock
+    private AccountUserCache accountUserCache;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @TempDir
+    Path dir;
+
+    private LedgerEngine engine;
+
+    private LedgerEngine start() throws Exception {
+        engine = new LedgerEngine(ledgerStore, accountUserCache, transactionIdGenerator,
+                ConcurrencyMode.LEDGER, false, 16, 100, 100, true, dir.toString(), 3600L);
+        engine.start();
+        return engine;
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    private static AccountLedgerView view(Long id, String accountNumber, Long ownerId,
+                                          AccountStatus accountStatus, Long balance) {
+        return new AccountLedgerView() {
+            public Long getId() { return id; }
+            public String getAccountNumber() { return accountNumber; }
+            public Long getOwnerId() { return ownerId; }
+            public AccountStatus getAccountStatus() { return accountStatus; }
+            public Long getBalance() { return balance; }
+        };
+    }
+
+    private void givenUser(Long userId) {
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(userId);
+        given(accountUserCache.getUser(userId)).willReturn(Optional.of(user));
+    }
+
+    @Test
+    void useBalanceAfterPersist() throws Exception {
+        //given
+        given(ledgerStore.loadAccounts()).willReturn(List.of(
+                view(1L, "1000000000", 12L, AccountStatus.IN_USE, 10000L)));
+        givenUser(12L);
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        given(ledgerStore.saveRows(anyList())).willReturn(100L);
+        LedgerEngine engine = start();
+        //when
+        TransactionDto transactionDto = engine.useBalance(12L, "1000000000", 1000L);
+        //then
+        ArgumentCaptor<List<LedgerRow>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerStore, times(1)).saveRows(captor.capture());
+        assertEquals(9000L, captor.getValue().get(0).balanceSnapshot());
+        assertEquals(TransactionResultType.S, transactionDto.getTransactionResultType());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals("transactionId", transactionDto.getTransactionId());
+        assertEquals(9000L, engine.getBalance("1000000000"));
+    }
+
+    @Test
+    void rejectUseWithSameErrorCodes() throws Exception {
+        //given
+        given(ledgerStore.loadAccounts()).willReturn(List.of(
+                view(1L, "1000000000", 12L, AccountStatus.IN_USE, 1000L),
+                view(2L, "1000000001", 12L, AccountStatus.UNREGISTERED, 0L)));
+        givenUser(12L);
+        givenUser(13L);
+        LedgerEngine engine = start();
+        //when
+        AccountException exceed = assertThrows(AccountException.class,
+                () -> engine.useBalance(12L, "1000000000", 1001L));
+        AccountException unMatch = assertThrows(AccountException.class,
+                () -> engine.useBalance(13L, "1000000000", 100L));
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> engine.useBalance(12L, "1000000001", 100L));
+        AccountException notFound = assertThrows(AccountException.class,
+                () -> engine.useBalance(12L, "9999999999", 100L));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, unMatch.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, notFound.getErrorCode());
+        assertEquals(1000L, engine.getBalance("1000000000"));
+        verify(ledgerStore, never()).saveRows(anyList());
+    }
+
+    @Test
+    void rejectCancelOfTransferRows() throws Exception {
+        //given
+        given(ledgerStore.loadAccounts()).willReturn(List.of(
+                view(1L, "1000000000", 12L, AccountStatus.IN_USE, 10000L)));
+        LedgerEngine engine = start();
+        for (TransactionType transactionType : List.of(TRANSFER_OUT, TRANSFER_IN)) {
+            given(ledgerStore.findCancelView("transferId")).willReturn(Optional.of(
+                    new LedgerRow(1L, "1000000000", transactionType, 1000L, 9000L,
+                            "transferId", LocalDateTime.now())));
+            //when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> engine.cancelBalance("transferId", "1000000000", 1000L));
+            //then
+            assertEquals(ErrorCode.TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+        }
+        assertEquals(10000L, engine.getBalance("1000000000"));
+        verify(ledgerStore, never()).saveRows(anyList());
+    }
+
+    @Test
+    void rebuildFromSnapshotAndLaterTransactions() throws Exception {
+        //given
+        given(ledgerStore.loadAccounts()).willReturn(List.of(
+                view(1L, "1000000000", 12L, AccountStatus.IN_USE, 10000L)));
+        givenUser(12L);
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        given(ledgerStore.saveRows(anyList())).willReturn(100L);
+        start().useBalance(12L, "1000000000", 1000L);
+        // 종료할 때 스냅샷을 쓰고 바뀐 잔액을 계좌 테이블에 쓴다.
+        engine.close();
+        engine = null;
+        verify(ledgerStore, times(1)).writeBalances(aryEq(new long[]{1L}),
+                aryEq(new long[]{9000L}), eq(0), eq(1));
+        // 스냅샷 이후 저장된 거래
+        AccountBalanceView latest = mock(AccountBalanceView.class);
+        given(latest.getId()).willReturn(1L);
+        given(latest.getBalance()).willReturn(7000L);
+        given(ledgerStore.loadLatestBalancesAfter(100L)).willReturn(List.of(latest));
+        //when
+        LedgerEngine restarted = start();
+        //then
+        verify(ledgerStore, times(1)).loadAccounts();
+        verify(ledgerStore, times(1)).loadAccountsChangedSince(any());
+        assertEquals(7000L, restarted.getBalance("1000000000"));
+    }
+}
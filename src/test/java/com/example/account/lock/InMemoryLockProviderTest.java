@@ -0,0 +1,83 @@
+package com.example.account.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLockProviderTest {
+    private final InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+
+    @Test
+    void lockAndUnlock() {
+        //given
+        //when
+        boolean locked = lockProvider.tryLockAsync("ACLK1", 1L, 0L, 15000L).join();
+        lockProvider.unlockAsync("ACLK1", 1L).join();
+        //then
+        assertTrue(locked);
+        assertTrue(lockProvider.tryLockAsync("ACLK1", 2L, 0L, 15000L).join());
+    }
+
+    @Test
+    void failWhenOtherOwnerHoldsLock() {
+        //given
+        lockProvider.tryLockAsync("ACLK1", 1L, 0L, 15000L).join();
+        //when
+        boolean locked = lockProvider.tryLockAsync("ACLK1", 2L, 20L, 15000L).join();
+        //then
+        assertFalse(locked);
+    }
+
+    @Test
+    void acquireAfterLeaseExpired() {
+        //given
+        lockProvider.tryLockAsync("ACLK1", 1L, 0L, 10L).join();
+        //when
+        boolean locked = lockProvider.tryLockAsync("ACLK1", 2L, 1000L, 15000L).join();
+        //then
+        assertTrue(locked);
+        assertThrows(CompletionException.class,
+                () -> lockProvider.unlockAsync("ACLK1", 1L).join());
+    }
+
+    @Test
+    void reentrantForSameOwner() {
+        //given
+        lockProvider.tryLockAsync("ACLK1", 1L, 0L, 15000L).join();
+        lockProvider.tryLockAsync("ACLK1", 1L, 0L, 15000L).join();
+        //when
+        lockProvider.unlockAsync("ACLK1", 1L).join();
+        //then
+        assertFalse(lockProvider.tryLockAsync("ACLK1", 2L, 0L, 15000L).join());
+        lockProvider.unlockAsync("ACLK1", 1L).join();
+        assertTrue(lockProvider.tryLockAsync("ACLK1", 2L, 0L, 15000L).join());
+    }
+
+    @Test
+    void lockAllOrNothing() {
+        //given
+        lockProvider.tryLockAsync("ACLK2", 2L, 0L, 15000L).join();
+        //when
+        boolean locked = lockProvider
+                .tryLockAllAsync(List.of("ACLK1", "ACLK2"), 1L, 20L, 15000L).join();
+        //then
+        assertFalse(locked);
+        // 먼저 취득한 ACLK1 은 해제된다.
+        assertTrue(lockProvider.tryLockAsync("ACLK1", 3L, 0L, 15000L).join());
+    }
+
+    @Test
+    void lockAllKeys() {
+        //given
+        //when
+        boolean locked = lockProvider
+                .tryLockAllAsync(List.of("ACLK1", "ACLK2"), 1L, 0L, 15000L).join();
+        //then
+        assertTrue(locked);
+        assertFalse(lockProvider.tryLockAsync("ACLK1", 2L, 0L, 15000L).join());
+        assertFalse(lockProvider.tryLockAsync("ACLK2", 2L, 0L, 15000L).join());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.account.lock;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * embedded Redis 두 개를 띄워 실제 key 분산, 여러 key 취득 스크립트, lease 만료를 확인한다.
+ */
+class ShardedRedissonLockProviderIntegrationTest {
+    private static final List<Integer> PORTS = List.of(6390, 6391);
+
+    private static final List<RedisServer> redisServers = new ArrayList<>();
+    private static final List<RedissonClient> clients = new ArrayList<>();
+    private static ShardedRedissonLockProvider lockProvider;
+
+    @BeforeAll
+    static void startRedis() {
+        List<RedissonLockProvider> shards = new ArrayList<>();
+        for (Integer port : PORTS) {
+            RedisServer redisServer = new RedisServer(port);
+            redisServer.start();
+            redisServers.add(redisServer);
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+            RedissonClient client = Redisson.create(config);
+            clients.add(client);
+            shards.add(new RedissonLockProvider(client));
+        }
+        lockProvider = new ShardedRedissonLockProvider(shards);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        lockProvider.shutdown();
+        redisServers.forEach(RedisServer::stop);
+    }
+
+    @AfterEach
+    void flush() {
+        clients.forEach(client -> client.getKeys().flushall());
+    }
+
+    private static int shardIndexOf(String key) {
+        return Math.floorMod(key.hashCode(), PORTS.size());
+    }
+
+    private static boolean existsOn(int shard, String key) {
+        return clients.get(shard).getKeys().countExists(key) == 1L;
+    }
+
+    // shard 에 있는 key 를 찾는다.
+    private static String keyOnShard(int shard, long from) {
+        String key = "ACLK" + from;
+        for (long i = from + 1; shardIndexOf(key) != shard; i++) {
+            key = "ACLK" + i;
+        }
+        return key;
+    }
+
+    @Test
+    void storeLockOnlyOnHashedServer() {
+        //given
+        String key0 = keyOnShard(0, 1000000000L);
+        String key1 = keyOnShard(1, 1000000000L);
+        //when
+        boolean locked0 = lockProvider.tryLockAsync(key0, 1L, 1000L, 15000L).join();
+        boolean locked1 = lockProvider.tryLockAsync(key1, 1L, 1000L, 15000L).join();
+        //then
+        assertTrue(locked0);
+        assertTrue(locked1);
+        assertTrue(existsOn(0, key0));
+        assertFalse(existsOn(1, key0));
+        assertTrue(existsOn(1, key1));
+        assertFalse(existsOn(0, key1));
+        lockProvider.unlockAsync(key0, 1L).join();
+        lockProvider.unlockAsync(key1, 1L).join();
+        assertFalse(existsOn(0, key0));
+        assertFalse(existsOn(1, key1));
+    }
+
+    @Test
+    void lockAllWithScriptOnSameServerAndRejectOtherOwner() {
+        //given
+        String first = keyOnShard(1, 1000000000L);
+        String second = keyOnShard(1, 1000000100L);
+        List<String> keys = List.of(first, second);
+        //when
+        boolean locked = lockProvider.tryLockAllAsync(keys, 1L, 1000L, 15000L).join();
+        boolean otherOwner = lockProvider.tryLockAsync(second, 2L, 0L, 15000L).join();
+        //then
+        assertTrue(locked);
+        assertFalse(otherOwner);
+        assertTrue(existsOn(1, first));
+        assertTrue(existsOn(1, second));
+        // 스크립트로 잡은 lock 도 RLock 형식이라 하나씩 해제된다.
+        lockProvider.unlockAsync(first, 1L).join();
+        lockProvider.unlockAsync(second, 1L).join();
+        assertTrue(lockProvider.tryLockAsync(second, 2L, 0L, 15000L).join());
+        lockProvider.unlockAsync(second, 2L).join();
+    }
+
+    @Test
+    void lockAllAcrossServersReleasesOnConflict() {
+        //given
+        String key0 = keyOnShard(0, 1000000000L);
+        String key1 = keyOnShard(1, 1000000000L);
+        lockProvider.tryLockAsync(key1, 2L, 0L, 15000L).join();
+        //when
+        boolean locked = lockProvider.tryLockAllAsync(List.of(key0, key1), 1L, 200L, 15000L)
+                .join();
+        //then
+        // 두 번째 서버에서 실패하면 첫 번째 서버에서 잡은 lock 도 해제한다. (해제는 비동기)
+        assertFalse(locked);
+        assertTrue(existsOn(1, key1));
+        assertTrue(lockProvider.tryLockAsync(key0, 3L, 1000L, 15000L).join());
+        lockProvider.unlockAsync(key0, 3L).join();
+        lockProvider.unlockAsync(key1, 2L).join();
+    }
+
+    @Test
+    void leaseExpiresOnlyOnItsServer() {
+        //given
+        String shortLease = keyOnShard(0, 1000000000L);
+        String longLease = keyOnShard(1, 1000000000L);
+        lockProvider.tryLockAsync(shortLease, 1L, 0L, 200L).join();
+        lockProvider.tryLockAsync(longLease, 1L, 0L, 15000L).join();
+        //when
+        // 소유자가 해제하지 않아도 lease 가 지나면 다른 소유자가 잡는다.
+        boolean afterExpiry = lockProvider.tryLockAsync(shortLease, 2L, 2000L, 15000L).join();
+        boolean stillHeld = lockProvider.tryLockAsync(longLease, 2L, 0L, 15000L).join();
+        //then
+        assertTrue(afterExpiry);
+        assertFalse(stillHeld);
+        lockProvider.unlockAsync(shortLease, 2L).join();
+        lockProvider.unlockAsync(longLease, 1L).join();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.account.lock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedRedissonLockProviderTest {
+    @Mock
+    private RedissonLockProvider shard0;
+
+    @Mock
+    private RedissonLockProvider shard1;
+
+    @Test
+    void sameKeyAlwaysRoutedToSameShard() {
+        //given
+        ShardedRedissonLockProvider lockProvider =
+                new ShardedRedissonLockProvider(List.of(shard0, shard1));
+        RedissonLockProvider target = lockProvider.shardOf("ACLK1000000000");
+        RedissonLockProvider other = target == shard0 ? shard1 : shard0;
+        given(target.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(target.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        //when
+        boolean locked = lockProvider
+                .tryLockAsync("ACLK1000000000", 1L, 1000L, 15000L).join();
+        lockProvider.unlockAsync("ACLK1000000000", 1L).join();
+        //then
+        assertTrue(locked);
+        verify(target, times(1)).tryLockAsync("ACLK1000000000", 1L, 1000L, 15000L);
+        verify(target, times(1)).unlockAsync("ACLK1000000000", 1L);
+        verifyNoInteractions(other);
+    }
+
+    @Test
+    void lockAllOnSingleShardInOneCall() {
+        //given
+        ShardedRedissonLockProvider lockProvider =
+                new ShardedRedissonLockProvider(List.of(shard0, shard1));
+        RedissonLockProvider target = lockProvider.shardOf("ACLK1000000000");
+        String sameShardKey = "ACLK1000000001";
+        for (long i = 1000000001L; lockProvider.shardOf(sameShardKey) != target; i++) {
+            sameShardKey = "ACLK" + i;
+        }
+        List<String> keys = List.of("ACLK1000000000", sameShardKey);
+        given(target.tryLockAllAsync(keys, 1L, 1000L, 15000L))
+                .willReturn(CompletableFuture.completedFuture(true));
+        //when
+        boolean locked = lockProvider.tryLockAllAsync(keys, 1L, 1000L, 15000L).join();
+        //then
+        assertTrue(locked);
+        verify(target, never()).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void requireAtLeastOneShard() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShardedRedissonLockProvider(List.of()));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.account.metrics;
+
+import com.example.account.dto.HotAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotAccountDetectorTest {
+    @Test
+    void topAccountsOrderedByContention() {
+        //given
+        HotAccountDetector detector = new HotAccountDetector(60L, 2, 100);
+        for (int i = 0; i < 5; i++) {
+            detector.recordContention("1000000001");
+        }
+        for (int i = 0; i < 3; i++) {
+            detector.recordContention("1000000002");
+        }
+        detector.recordContention("1000000003");
+        //when
+        List<HotAccount> topAccounts = detector.getTopAccounts();
+        //then
+        assertEquals(2, topAccounts.size());
+        assertEquals("1000000001", topAccounts.get(0).getAccountNumber());
+        assertEquals(5, topAccounts.get(0).getContentionCount());
+        assertEquals("1000000002", topAccounts.get(1).getAccountNumber());
+    }
+
+    @Test
+    void dropNewAccountOverMaxTracked() {
+        //given
+        HotAccountDetector detector = new HotAccountDetector(60L, 10, 1);
+        detector.recordContention("1000000001");
+        //when
+        detector.recordContention("1000000002");
+        detector.recordContention("1000000001");
+        //then
+        assertEquals(1, detector.getTopAccounts().size());
+        assertEquals(2, detector.getTopAccounts().get(0).getContentionCount());
+        assertEquals(1, detector.getDropped());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountNumberSequenceRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberSequenceRepository sequenceRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void serveNumbersFromReservedBlock() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(
+                sequenceRepository, accountRepository, transactionManager, 3L);
+        given(sequenceRepository.increment(anyString(), anyLong())).willReturn(1);
+        given(sequenceRepository.findNextValueByName(anyString()))
+                .willReturn(Optional.of(1000000003L), Optional.of(1000000006L));
+        //when
+        //then
+        assertEquals("1000000000", allocator.nextAccountNumber());
+        assertEquals("1000000001", allocator.nextAccountNumber());
+        assertEquals("1000000002", allocator.nextAccountNumber());
+        assertEquals("1000000003", allocator.nextAccountNumber());
+        verify(sequenceRepository, times(2))
+                .increment(AccountNumberAllocator.SEQUENCE_NAME, 3L);
+    }
+
+    @Test
+    void initializeSequenceAfterLastAccountNumber() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(
+                sequenceRepository, accountRepository, transactionManager, 100L);
+        given(sequenceRepository.increment(anyString(), anyLong())).willReturn(0, 1);
+        given(accountRepository.findFirstByOrderByIdDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber("2147483647").build()));
+        given(sequenceRepository.findNextValueByName(anyString()))
+                .willReturn(Optional.of(2147483748L));
+        //when
+        String accountNumber = allocator.nextAccountNumber();
+        //then
+        verify(sequenceRepository, times(1))
+                .insert(AccountNumberAllocator.SEQUENCE_NAME, 2147483648L);
+        assertEquals("2147483648", accountNumber);
+    }
+
+    @Test
+    void failWhenAccountNumberExhausted() {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(
+                sequenceRepository, accountRepository, transactionManager, 100L);
+        given(sequenceRepository.increment(anyString(), anyLong())).willReturn(1);
+        given(sequenceRepository.findNextValueByName(anyString()))
+                .willReturn(Optional.of(10000000100L));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                allocator::nextAccountNumber);
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+    }
+
+    @Test
+    void noDuplicateNumbersUnderConcurrency() throws Exception {
+        //given
+        AccountNumberAllocator allocator = new AccountNumberAllocator(
+                sequenceRepository, accountRepository, transactionManager, 10L);
+        long[] counter = {1000000000L};
+        given(sequenceRepository.increment(anyString(), anyLong())).willAnswer(invocation -> {
+            counter[0] += 10L;
+            return 1;
+        });
+        given(sequenceRepository.findNextValueByName(anyString()))
+                .willAnswer(invocation -> Optional.of(counter[0]));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        //when
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> accountNumbers.add(allocator.nextAccountNumber()));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        //then
+        assertEquals(1000, accountNumbers.size());
+    }
+}
@@ -4,8 +4,10 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.AccountIndexView;
 import com.example.account.exception.AccountException;
-import com.example.account.repository.AccountUserRepository;
+import com.example.account.index.AccountIndex;
+import com.example.account.ledger.LedgerEngine;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
@@ -32,6 +34,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -52,12 +55,22 @@ class AccountServiceTest {
     @MockBean
     private AccountRepository accountRepository;
     @MockBean
-    private AccountUserRepository accountUserRepository;
+    private AccountUserCache accountUserCache;
+    @MockBean
+    private AccountNumberAllocator accountNumberAllocator;
+    @MockBean
+    private AccountStateCache accountStateCache;
+    @MockBean
+    private BalanceStripes balanceStripes;
+    @MockBean
+    private LedgerEngine ledgerEngine;
+    @MockBean
+    private AccountIndex accountIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    @InjectMocks // AccountRepository,AccountUserRepository Mock이 주입된 accountService가 생성된다.
+    @InjectMocks // AccountRepository,AccountUserCache Mock이 주입된 accountService가 생성된다.
     private AccountService accountService;
 
     @Test
@@ -67,12 +80,10 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1000000012").build()));
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -87,6 +98,7 @@ class AccountServiceTest {
         verify(accountRepository,times(1)).save(captor.capture());
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000013", accountDto.getAccountNumber());
+        assertEquals("1000000013", captor.getValue().getAccountNumber());
 
     }
 
@@ -94,7 +106,7 @@ class AccountServiceTest {
     @DisplayName("계좌 생성 실패 - 해당 유저 없음")
     void createAccount_UserNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -110,7 +122,7 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(1L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -134,7 +146,7 @@ class AccountServiceTest {
     @DisplayName("계좌 해지 실패 - 사용자 없음")
     void deleteAccountFail_userNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -151,7 +163,7 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
@@ -173,7 +185,7 @@ class AccountServiceTest {
         AccountUser harry = AccountUser.builder()
                 .name("Harry").build();
         harry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -195,7 +207,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -217,7 +229,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -256,7 +268,7 @@ class AccountServiceTest {
                         .balance(3000L)
                         .build()
                 );
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountUser(any()))
                 .willReturn(accounts);
@@ -273,11 +285,48 @@ class AccountServiceTest {
         assertEquals(3000, accountDtos.get(2).getBalance());
     }
 
+    @Test
+    @DisplayName("사용자 소유 계좌 조회 성공 - 계좌 색인의 잔액")
+    void successGetAccountsByUserIdFromIndex() {
+        //given
+        AccountUser pobi = AccountUser.builder()
+                .name("Pobi").build();
+        pobi.setId(12L);
+        Account account = Account.builder()
+                .accountUser(pobi)
+                .accountNumber("1111111111")
+                .balance(1000L)
+                .build();
+        AccountIndexView view = mock(AccountIndexView.class);
+        given(view.getOwnerId()).willReturn(12L);
+        given(view.getAccountStatus()).willReturn(AccountStatus.IN_USE);
+        given(view.getBalance()).willReturn(700L);
+        given(view.getVersion()).willReturn(3L);
+        given(accountRepository.findIndexViewByAccountNumber("1111111111"))
+                .willReturn(Optional.of(view));
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(pobi));
+        given(accountRepository.findByAccountUser(any()))
+                .willReturn(List.of(account));
+        // 실제 색인 (DB 에서 읽어 채운 뒤로는 색인에서 읽는다)
+        AccountService indexed = new AccountService(accountRepository, accountUserCache,
+                accountNumberAllocator, accountStateCache, balanceStripes, ledgerEngine,
+                new AccountIndex(accountRepository, true, 4, 16L, false, 100));
+        //when
+        List<AccountDto> first = indexed.getAccountsByUserId(12L);
+        List<AccountDto> second = indexed.getAccountsByUserId(12L);
+
+        //then
+        assertEquals(700L, first.get(0).getBalance());
+        assertEquals(700L, second.get(0).getBalance());
+        verify(accountRepository, times(1)).findIndexViewByAccountNumber("1111111111");
+    }
+
     @Test
     @DisplayName("사용자 소유 계좌 조회 실패")
     void failedToGetAccounts() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class,
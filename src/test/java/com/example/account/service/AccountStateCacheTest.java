@@ -0,0 +1,124 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountStateCacheTest {
+    private static final String ACCOUNT_NUMBER = "1000000000";
+
+    private LocalLockTier localLockTier;
+    private AccountStateCache accountStateCache;
+
+    @BeforeEach
+    void setUp() {
+        localLockTier = new LocalLockTier(16);
+        accountStateCache = new AccountStateCache(localLockTier, true, 3L, 100L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private LocalLockTier.Slot holdLock() {
+        LocalLockTier.Slot slot = localLockTier.join(ACCOUNT_NUMBER);
+        slot.tryAcquire();
+        slot.markDistributedHeld(System.currentTimeMillis(), 15000L);
+        return slot;
+    }
+
+    private void releaseLock(LocalLockTier.Slot slot) {
+        slot.clearDistributed();
+        slot.release();
+        localLockTier.leave(ACCOUNT_NUMBER);
+    }
+
+    private Account account(long balance) {
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber(ACCOUNT_NUMBER)
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .version(3L)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+
+    private void commit() {
+        for (TransactionSynchronization synchronization
+                : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    @Test
+    void serveCommittedStateWhileLockIsHeld() {
+        //given
+        holdLock();
+        accountStateCache.putAfterCommit(account(10000L));
+        //when
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+        commit();
+        AccountStateCache.AccountState cached = accountStateCache.get(ACCOUNT_NUMBER);
+        //then
+        assertEquals(10000L, cached.balance());
+        assertEquals(12L, cached.ownerId());
+        assertEquals(3L, cached.version());
+    }
+
+    @Test
+    void ignoreStateAfterLockIsReacquired() {
+        //given
+        LocalLockTier.Slot slot = holdLock();
+        accountStateCache.putAfterCommit(account(10000L));
+        commit();
+        //when
+        releaseLock(slot);
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+        holdLock();
+        //then
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void validateEveryNthHitAndDropMismatch() {
+        //given
+        holdLock();
+        accountStateCache.putAfterCommit(account(10000L));
+        commit();
+        //when
+        assertNotNull(accountStateCache.get(ACCOUNT_NUMBER));
+        assertNotNull(accountStateCache.get(ACCOUNT_NUMBER));
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+        accountStateCache.verify(account(9000L));
+        //then
+        assertEquals(1, accountStateCache.getValidations());
+        assertEquals(1, accountStateCache.getMismatches());
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void doNotCacheWithoutLock() {
+        //given
+        accountStateCache.putAfterCommit(account(10000L));
+        //when
+        commit();
+        //then
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        holdLock();
+        assertNull(accountStateCache.get(ACCOUNT_NUMBER));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountUserCacheTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+    @Mock
+    private AccountRepository accountRepository;
+
+    private AccountUserCache accountUserCache;
+
+    @BeforeEach
+    void setUp() {
+        accountUserCache = new AccountUserCache(accountUserRepository, accountRepository,
+                new SimpleMeterRegistry(), 100L, 60L, 100L, 60L);
+    }
+
+    @Test
+    void loadUserOnceAndServeFromCache() {
+        //given
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(user));
+        //when
+        accountUserCache.getUser(12L);
+        Optional<AccountUser> cached = accountUserCache.getUser(12L);
+        //then
+        assertEquals(12L, cached.get().getId());
+        verify(accountUserRepository, times(1)).findById(12L);
+        assertEquals(1, accountUserCache.getUserHitCount());
+        assertEquals(1, accountUserCache.getUserMissCount());
+    }
+
+    @Test
+    void doNotCacheMissingUser() {
+        //given
+        given(accountUserRepository.findById(anyLong())).willReturn(Optional.empty());
+        //when
+        accountUserCache.getUser(12L);
+        accountUserCache.getUser(12L);
+        //then
+        verify(accountUserRepository, times(2)).findById(12L);
+    }
+
+    @Test
+    void reloadAfterEvict() {
+        //given
+        given(accountRepository.findOwnerIdByAccountNumber(anyString()))
+                .willReturn(Optional.of(12L));
+        accountUserCache.getOwnerId("1000000000");
+        //when
+        accountUserCache.evictOwner("1000000000");
+        Optional<Long> ownerId = accountUserCache.getOwnerId("1000000000");
+        //then
+        assertEquals(12L, ownerId.get());
+        verify(accountRepository, times(2)).findOwnerIdByAccountNumber("1000000000");
+    }
+
+    @Test
+    void putOwnerWithoutQuery() {
+        //given
+        accountUserCache.putOwner("1000000000", 12L);
+        //when
+        Optional<Long> ownerId = accountUserCache.getOwnerId("1000000000");
+        //then
+        assertEquals(12L, ownerId.get());
+        verify(accountRepository, never()).findOwnerIdByAccountNumber(anyString());
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.dto.TransactionCancelView;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicBalanceServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountUserRepository accountUserRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountIndex accountIndex;
+    @InjectMocks
+    private AtomicBalanceService atomicBalanceService;
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 성공")
+    void successUseBalance() {
+        //given
+        Account account = Account.builder().accountNumber("1000000012").build();
+        account.setId(1L);
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.findBalanceByAccountNumber(anyString()))
+                .willReturn(Optional.of(balanceView(1L, 9800L)));
+        given(accountRepository.getReferenceById(anyLong()))
+                .willReturn(account);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        //when
+        TransactionDto transactionDto =
+                atomicBalanceService.useBalance(12L, "1000000012", 200L);
+        //then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(9800L, captor.getValue().getBalanceSnapshot());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 실패 - 잔액 부족")
+    void useBalanceFail_exceedAmount() {
+        //given
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(100L)
+                        .accountNumber("1000000012").build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> atomicBalanceService.useBalance(12L, "1000000012", 200L));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 실패 - 계좌 소유주 다름")
+    void useBalanceFail_userUnMatch() {
+        //given
+        AccountUser harry = AccountUser.builder().name("Harry").build();
+        harry.setId(13L);
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(harry)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000012").build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> atomicBalanceService.useBalance(12L, "1000000012", 200L));
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 취소 성공")
+    void successCancelBalance() {
+        //given
+        Account account = Account.builder().accountNumber("1000000012").build();
+        account.setId(1L);
+        given(transactionRepository.findCancelViewByTransactionId(anyString()))
+                .willReturn(Optional.of(cancelView("1000000012", 1000L)));
+        given(accountRepository.creditBalance(anyString(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.findBalanceByAccountNumber(anyString()))
+                .willReturn(Optional.of(balanceView(1L, 11000L)));
+        given(accountRepository.getReferenceById(anyLong()))
+                .willReturn(account);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        //when
+        TransactionDto transactionDto = atomicBalanceService
+                .cancelBalance("transactionId", "1000000012", 1000L);
+        //then
+        assertEquals(CANCEL, transactionDto.getTransactionType());
+        assertEquals(11000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 취소 실패 - 거래 계좌 다름")
+    void cancelBalanceFail_transactionAccountUnMatch() {
+        //given
+        given(transactionRepository.findCancelViewByTransactionId(anyString()))
+                .willReturn(Optional.of(cancelView("1000000012", 1000L)));
+        given(accountRepository.existsByAccountNumber(anyString()))
+                .willReturn(true);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> atomicBalanceService
+                        .cancelBalance("transactionId", "1000000013", 1000L));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(accountRepository, never()).creditBalance(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 취소 실패 - 이체 거래")
+    void cancelBalanceFail_transferNotCancelable() {
+        for (TransactionType transactionType : List.of(TRANSFER_OUT, TRANSFER_IN)) {
+            //given
+            given(transactionRepository.findCancelViewByTransactionId(anyString()))
+                    .willReturn(Optional.of(cancelView(transactionType, "1000000012", 1000L)));
+            //when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> atomicBalanceService
+                            .cancelBalance("transactionId", "1000000012", 1000L));
+            //then
+            assertEquals(ErrorCode.TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+        }
+        verify(accountRepository, never()).creditBalance(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("단일 UPDATE 잔액 사용 일괄 - 같은 계좌의 다른 차감과 겹쳐도 건별 결과")
+    void useBalanceGroupWithConcurrentDebit() {
+        //given
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        AtomicLong balance = new AtomicLong(1000L);
+        AtomicInteger debits = new AtomicInteger();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willAnswer(invocation -> {
+                    // 첫 건 뒤에 다른 요청이 같은 계좌에서 400 을 차감한다.
+                    if (debits.incrementAndGet() == 2) {
+                        balance.addAndGet(-400L);
+                    }
+                    long amount = invocation.getArgument(2);
+                    if (balance.get() < amount) {
+                        return 0;
+                    }
+                    balance.addAndGet(-amount);
+                    return 1;
+                });
+        given(accountRepository.findBalanceByAccountNumber(anyString()))
+                .willAnswer(invocation -> Optional.of(balanceView(1L, balance.get())));
+        given(accountRepository.getReferenceById(anyLong()))
+                .willReturn(account);
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        List<UseBalanceBatch.Result> results = atomicBalanceService.useBalanceGroup(
+                "1000000012", List.of(
+                        new UseBalance.Request(12L, "1000000012", 300L),
+                        new UseBalance.Request(12L, "1000000012", 500L),
+                        new UseBalance.Request(12L, "1000000012", 300L)));
+        //then
+        assertNull(results.get(0).getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertNull(results.get(2).getErrorCode());
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertEquals(List.of(700L, 0L), captor.getValue().stream()
+                .map(Transaction::getBalanceSnapshot).toList());
+        verify(accountIndex, times(1)).invalidateAfterCommit("1000000012");
+    }
+
+    private static AccountBalanceView balanceView(Long id, Long balance) {
+        return new AccountBalanceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+        };
+    }
+
+    private static TransactionCancelView cancelView(String accountNumber, Long amount) {
+        return cancelView(USE, accountNumber, amount);
+    }
+
+    private static TransactionCancelView cancelView(TransactionType transactionType,
+                                                    String accountNumber, Long amount) {
+        return new TransactionCancelView() {
+            @Override
+            public TransactionType getTransactionType() {
+                return transactionType;
+            }
+
+            @Override
+            public TransactionResultType getTransactionResultType() {
+                return S;
+            }
+
+            @Override
+            public String getAccountNumber() {
+                return accountNumber;
+            }
+
+            @Override
+            public Long getAmount() {
+                return amount;
+            }
+
+            @Override
+            public LocalDateTime getTransactedAt() {
+                return LocalDateTime.now();
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBalanceSlot;
+import com.example.account.dto.AccountBalanceView;
+import com.example.account.repository.AccountBalanceSlotRepository;
+import com.example.account.type.ConcurrencyMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceStripesTest {
+    @Mock
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    private BalanceStripes balanceStripes;
+
+    @BeforeEach
+    void setUp() {
+        balanceStripes = new BalanceStripes(accountBalanceSlotRepository, true, 4,
+                List.of("1000000012"), ConcurrencyMode.LOCK);
+    }
+
+    private static Account account(String accountNumber, Long balance) {
+        Account account = Account.builder()
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+
+    private static AccountBalanceView slot(Long id, Long balance) {
+        return new AccountBalanceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+        };
+    }
+
+    @Test
+    void stripeOnlyFlaggedAccounts() {
+        //given
+        BalanceStripes optimistic = new BalanceStripes(accountBalanceSlotRepository, true, 4,
+                List.of("1000000012"), ConcurrencyMode.OPTIMISTIC);
+        //when
+        //then
+        assertTrue(balanceStripes.stripesCredits("1000000012"));
+        assertFalse(balanceStripes.stripesCredits("1000000013"));
+        // LOCK 모드가 아니면 slot 에 입금하지 않지만 slot 잔액은 합산한다.
+        assertFalse(optimistic.stripesCredits("1000000012"));
+        assertTrue(optimistic.isStriped("1000000012"));
+    }
+
+    @Test
+    void sameTransactionGoesToSameSlot() {
+        //given
+        //when
+        int slot = balanceStripes.slotOf("transactionId");
+        //then
+        assertTrue(slot >= 0 && slot < 4);
+        assertEquals("1000000012:" + slot,
+                balanceStripes.slotLockKey("1000000012", "transactionId"));
+    }
+
+    @Test
+    void createSlotOnFirstCredit() {
+        //given
+        Account account = account("1000000012", 100L);
+        given(accountBalanceSlotRepository.addBalance(eq(1L), eq(2), eq(500L), any()))
+                .willReturn(0);
+        ArgumentCaptor<AccountBalanceSlot> captor =
+                ArgumentCaptor.forClass(AccountBalanceSlot.class);
+        //when
+        balanceStripes.credit(account, 2, 500L);
+        //then
+        verify(accountBalanceSlotRepository, times(1)).save(captor.capture());
+        assertEquals(2, captor.getValue().getSlotIndex());
+        assertEquals(500L, captor.getValue().getBalance());
+        assertEquals(100L, account.getBalance());
+    }
+
+    @Test
+    void combineMovesOnlyTakenSlotBalance() {
+        //given
+        Account account = account("1000000012", 100L);
+        given(accountBalanceSlotRepository.findNonEmptyByAccountId(1L))
+                .willReturn(List.of(slot(10L, 300L), slot(11L, 200L)));
+        given(accountBalanceSlotRepository.takeBalance(eq(10L), eq(300L), any())).willReturn(1);
+        // 그 사이 다른 트랜잭션이 slot 잔액을 옮겼다.
+        given(accountBalanceSlotRepository.takeBalance(eq(11L), eq(200L), any())).willReturn(0);
+        //when
+        long moved = balanceStripes.combine(account);
+        //then
+        assertEquals(300L, moved);
+        assertEquals(400L, account.getBalance());
+        assertEquals(1L, balanceStripes.getCombines());
+    }
+
+    @Test
+    void skipSlotsForNotStripedAccount() {
+        //given
+        Account account = account("1000000013", 100L);
+        //when
+        long moved = balanceStripes.combine(account);
+        long slotBalance = balanceStripes.slotBalance(account);
+        //then
+        assertEquals(0L, moved);
+        assertEquals(0L, slotBalance);
+        verifyNoInteractions(accountBalanceSlotRepository);
+    }
+}
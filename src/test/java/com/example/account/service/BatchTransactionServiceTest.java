@@ -0,0 +1,114 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransactionServiceTest {
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private LockService lockService;
+    @Mock
+    private PreLockValidator preLockValidator;
+    @Mock
+    private ShardedTransactionExecutor shardedTransactionExecutor;
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+    @Mock
+    private LedgerEngine ledgerEngine;
+    @InjectMocks
+    private BatchTransactionService batchTransactionService;
+
+    private static UseBalanceBatch.Result success(UseBalance.Request request) {
+        return UseBalanceBatch.Result.builder()
+                .accountNumber(request.getAccountNumber())
+                .transactionResult(S)
+                .amount(request.getAmount())
+                .build();
+    }
+
+    @Test
+    @DisplayName("계좌별로 lock 을 한 번만 잡고 요청 순서대로 결과 반환")
+    void useBalanceGroupedByAccount() {
+        //given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request second = new UseBalance.Request(2L, "2000000000", 200L);
+        UseBalance.Request third = new UseBalance.Request(1L, "1000000000", 300L);
+        given(transactionService.useBalanceGroup("1000000000", List.of(first, third)))
+                .willReturn(List.of(success(first),
+                        UseBalanceBatch.Result.failure(third, ErrorCode.AMOUNT_EXCEED_BALANCE)));
+        given(transactionService.useBalanceGroup("2000000000", List.of(second)))
+                .willReturn(List.of(success(second)));
+        //when
+        List<UseBalanceBatch.Result> results =
+                batchTransactionService.useBalance(List.of(first, second, third));
+        //then
+        verify(lockService, times(1)).lock("1000000000");
+        verify(lockService, times(1)).unlock("1000000000");
+        verify(lockService, times(1)).lock("2000000000");
+        verify(lockService, times(1)).unlock("2000000000");
+        assertEquals(100L, results.get(0).getAmount());
+        assertEquals(S, results.get(0).getTransactionResult());
+        assertEquals("2000000000", results.get(1).getAccountNumber());
+        assertEquals(F, results.get(2).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(2).getErrorCode());
+        verify(failedTransactionRecorder, times(1))
+                .recordUse("1000000000", 300L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+    }
+
+    @Test
+    @DisplayName("lock 취득 실패 - 해당 계좌의 모든 건 실패")
+    void failAllWhenLockFails() {
+        //given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request second = new UseBalance.Request(1L, "1000000000", 200L);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock("1000000000");
+        //when
+        List<UseBalanceBatch.Result> results =
+                batchTransactionService.useBalance(List.of(first, second));
+        //then
+        verify(transactionService, never()).useBalanceGroup(anyString(), any());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(0).getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(1).getErrorCode());
+        verify(failedTransactionRecorder, times(2))
+                .recordUse(eq("1000000000"), anyLong(), eq(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+    }
+
+    @Test
+    @DisplayName("lock 전 검증에서 거절된 건은 lock 없이 실패")
+    void skipLockWhenAllRejectedBeforeLock() {
+        //given
+        UseBalance.Request request = new UseBalance.Request(1L, "1000000000", 100L);
+        willThrow(new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH))
+                .given(preLockValidator).validate(request);
+        //when
+        List<UseBalanceBatch.Result> results =
+                batchTransactionService.useBalance(List.of(request));
+        //then
+        verify(lockService, never()).lock(anyString());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, results.get(0).getErrorCode());
+        // 거절된 건은 PreLockValidator 가 기록한다.
+        verify(failedTransactionRecorder, never()).recordUse(anyString(), anyLong(), any());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureLogMode;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private FailedTransactionRollupStore rollupStore;
+
+    @Test
+    void writeQueuedFailuresInBatches() throws Exception {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, rollupStore, FailureLogMode.ROW, 100, 10, 10L,
+                OverflowPolicy.DROP_NEWEST);
+        //when
+        for (int i = 0; i < 25; i++) {
+            recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        recorder.start();
+        recorder.shutdown();
+        //then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, atLeast(3)).saveFailedTransactions(captor.capture());
+        assertTrue(captor.getAllValues().stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(25, recorder.getWritten());
+        assertEquals(0, recorder.getQueueSize());
+    }
+
+    @Test
+    void dropNewestWhenQueueIsFull() throws Exception {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, rollupStore, FailureLogMode.ROW, 2, 10, 10L,
+                OverflowPolicy.DROP_NEWEST);
+        //when
+        recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.recordUse("1000000000", 200L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.recordUse("1000000000", 300L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.shutdown();
+        //then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertEquals(1, recorder.getDropped());
+        assertEquals(List.of(100L, 200L),
+                captor.getValue().stream().map(FailedTransaction::getAmount).toList());
+    }
+
+    @Test
+    void dropOldestWhenQueueIsFull() throws Exception {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, rollupStore, FailureLogMode.ROW, 2, 10, 10L,
+                OverflowPolicy.DROP_OLDEST);
+        //when
+        recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.recordUse("1000000000", 200L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.recordCancel("1000000000", 300L, ErrorCode.CANCEL_MUST_FULLY);
+        recorder.shutdown();
+        //then
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertEquals(1, recorder.getDropped());
+        assertEquals(List.of(200L, 300L),
+                captor.getValue().stream().map(FailedTransaction::getAmount).toList());
+        assertEquals(TransactionType.CANCEL, captor.getValue().get(1).getTransactionType());
+    }
+
+    @Test
+    void callerRunsWhenQueueIsFull() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, rollupStore, FailureLogMode.ROW, 1, 10, 10L,
+                OverflowPolicy.CALLER_RUNS);
+        recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        //when
+        recorder.recordUse("1000000000", 200L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        //then
+        verify(transactionService, times(1)).saveFailedTransactions(anyList());
+        assertEquals(0, recorder.getDropped());
+        assertEquals(1, recorder.getQueueSize());
+    }
+
+    @Test
+    void aggregateInRollupMode() throws Exception {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, rollupStore, FailureLogMode.ROLLUP, 1, 10, 10L,
+                OverflowPolicy.DROP_NEWEST);
+        //when
+        recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.recordUse("1000000000", 100L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        recorder.shutdown();
+        //then
+        verify(rollupStore, times(2)).add(any());
+        verify(transactionService, never()).saveFailedTransactions(anyList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import com.example.account.domain.FailedTransactionRollup;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.repository.FailedTransactionRollupRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRollupStoreTest {
+    @Mock
+    private FailedTransactionRollupRepository rollupRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FailedTransaction failed(LocalDateTime transactedAt, ErrorCode errorCode) {
+        return FailedTransaction.builder()
+                .transactionType(USE)
+                .accountNumber("1000000000")
+                .amount(1000L)
+                .errorCode(errorCode)
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    @Test
+    void aggregateFailuresPerBucketAndInsertNewRow() {
+        //given
+        FailedTransactionRollupStore store = new FailedTransactionRollupStore(
+                rollupRepository, transactionManager, 60L, 1000L);
+        given(rollupRepository.addCounts(anyString(), any(), any(), any(),
+                anyLong(), anyLong(), any())).willReturn(0);
+        LocalDateTime at = LocalDateTime.of(2024, 2, 23, 23, 26, 10);
+        //when
+        for (int i = 0; i < 100; i++) {
+            store.add(failed(at.plusSeconds(i % 30), ErrorCode.AMOUNT_EXCEED_BALANCE));
+        }
+        store.flush();
+        //then
+        ArgumentCaptor<FailedTransactionRollup> captor =
+                ArgumentCaptor.forClass(FailedTransactionRollup.class);
+        verify(rollupRepository, times(1)).saveAndFlush(captor.capture());
+        assertEquals(100L, captor.getValue().getAttempts());
+        assertEquals(100000L, captor.getValue().getTotalAmount());
+        assertEquals(LocalDateTime.of(2024, 2, 23, 23, 26), captor.getValue().getBucketStart());
+        assertEquals(0, store.getPendingSize());
+    }
+
+    @Test
+    void addCountsToExistingRow() {
+        //given
+        FailedTransactionRollupStore store = new FailedTransactionRollupStore(
+                rollupRepository, transactionManager, 60L, 1000L);
+        given(rollupRepository.addCounts(anyString(), any(), any(), any(),
+                anyLong(), anyLong(), any())).willReturn(1);
+        LocalDateTime at = LocalDateTime.of(2024, 2, 23, 23, 26, 10);
+        //when
+        store.add(failed(at, ErrorCode.AMOUNT_EXCEED_BALANCE));
+        store.add(failed(at, ErrorCode.USER_ACCOUNT_UN_MATCH));
+        store.flush();
+        //then
+        verify(rollupRepository, times(2)).addCounts(eq("1000000000"),
+                eq(LocalDateTime.of(2024, 2, 23, 23, 26)), eq(USE), any(),
+                eq(1L), eq(1000L), any());
+        verify(rollupRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void keepCountsWhenFlushFails() {
+        //given
+        FailedTransactionRollupStore store = new FailedTransactionRollupStore(
+                rollupRepository, transactionManager, 60L, 1000L);
+        given(rollupRepository.addCounts(anyString(), any(), any(), any(),
+                anyLong(), anyLong(), any())).willThrow(new IllegalStateException("db down"));
+        //when
+        store.add(failed(LocalDateTime.now(), ErrorCode.AMOUNT_EXCEED_BALANCE));
+        store.flush();
+        //then
+        assertEquals(1, store.getPendingSize());
+        assertEquals(0, store.getFlushedRows());
+    }
+}
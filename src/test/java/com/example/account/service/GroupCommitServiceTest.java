@@ -0,0 +1,162 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountOperation;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitServiceTest {
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private LockService lockService;
+    @Mock
+    private PreLockValidator preLockValidator;
+    @Mock
+    private BalanceStripes balanceStripes;
+
+    private GroupCommitService groupCommitService(long windowMillis, int maxBatchSize) {
+        return new GroupCommitService(transactionService, lockService, preLockValidator,
+                balanceStripes, true, ConcurrencyMode.LOCK, windowMillis, maxBatchSize, 3000L);
+    }
+
+    // 건별로 금액만 채운 성공 결과
+    private void givenAllSucceed() {
+        given(transactionService.applyGroup(anyString(), anyList())).willAnswer(invocation -> {
+            List<AccountOperation> operations = invocation.getArgument(1);
+            return operations.stream()
+                    .map(operation -> AccountOperation.Result.success(TransactionDto.builder()
+                            .accountNumber(operation.getAccountNumber())
+                            .amount(operation.getAmount())
+                            .build()))
+                    .toList();
+        });
+    }
+
+    @Test
+    void commitConcurrentOperationsOnce() throws Exception {
+        //given
+        // 묶음이 가득 찰 때까지 기다린다.
+        GroupCommitService groupCommitService = groupCommitService(10_000L, 3);
+        givenAllSucceed();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        //when
+        List<Future<TransactionDto>> results = new ArrayList<>();
+        try {
+            for (long amount = 100L; amount <= 300L; amount += 100L) {
+                long requested = amount;
+                results.add(executor.submit(() ->
+                        groupCommitService.useBalance(1L, "1000000000", requested)));
+            }
+            //then
+            for (int i = 0; i < 3; i++) {
+                assertEquals(100L * (i + 1), results.get(i).get().getAmount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(transactionService, times(1)).applyGroup(eq("1000000000"),
+                argThat(operations -> operations.size() == 3));
+        verify(lockService, times(1)).lock(eq("1000000000"), anyLong(), anyLong());
+        verify(lockService, times(1)).unlock("1000000000");
+        verify(preLockValidator, times(1)).onChanged("1000000000");
+        assertEquals(1L, groupCommitService.getBatches());
+        assertEquals(3L, groupCommitService.getOperations());
+    }
+
+    @Test
+    void failOnlyRejectedOperation() {
+        //given
+        GroupCommitService groupCommitService = groupCommitService(0L, 64);
+        given(transactionService.applyGroup(anyString(), anyList()))
+                .willReturn(List.of(AccountOperation.Result.failure(ErrorCode.CANCEL_MUST_FULLY)));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                groupCommitService.cancelBalance("transactionId", "1000000000", 100L));
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
+        verify(lockService, times(1)).unlock("1000000000");
+    }
+
+    @Test
+    void failAllWhenLockFails() {
+        //given
+        GroupCommitService groupCommitService = groupCommitService(0L, 64);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(eq("1000000000"), anyLong(), anyLong());
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                groupCommitService.useBalance(1L, "1000000000", 100L));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(transactionService, never()).applyGroup(anyString(), anyList());
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    @Test
+    void failFollowersWhenLeaderThrowsError() throws Exception {
+        //given
+        GroupCommitService groupCommitService = groupCommitService(10_000L, 3);
+        given(transactionService.applyGroup(anyString(), anyList()))
+                .willThrow(new StackOverflowError());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        //when
+        List<Throwable> causes = new ArrayList<>();
+        try {
+            List<Future<TransactionDto>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() ->
+                        groupCommitService.useBalance(1L, "1000000000", 100L)));
+            }
+            for (Future<TransactionDto> result : results) {
+                causes.add(assertThrows(ExecutionException.class,
+                        () -> result.get(5, TimeUnit.SECONDS)).getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        //then
+        // leader 는 Error 를 그대로 받고, 따르는 요청은 기다리지 않고 실패한다.
+        assertEquals(1, causes.stream().filter(StackOverflowError.class::isInstance).count());
+        assertEquals(2, causes.stream()
+                .filter(cause -> cause instanceof AccountException accountException
+                        && accountException.getErrorCode() == ErrorCode.INTERNAL_SERVER_ERROR)
+                .count());
+        verify(lockService, times(1)).unlock("1000000000");
+    }
+
+    @Test
+    void doNotCoalesceStripedCredits() {
+        //given
+        GroupCommitService groupCommitService = groupCommitService(0L, 64);
+        given(balanceStripes.stripesCredits("1000000000")).willReturn(true);
+        //when
+        //then
+        assertFalse(groupCommitService.coalesces(
+                new CancelBalance.Request("transactionId", "1000000000", 100L)));
+        assertTrue(groupCommitService.coalesces(
+                new UseBalance.Request(1L, "1000000000", 100L)));
+    }
+}
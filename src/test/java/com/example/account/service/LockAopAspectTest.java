@@ -1,22 +1,47 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.dto.CancelBalance;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.junit.jupiter.api.Assertions.*;
+@ExtendWith(MockitoExtension.class)
 class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private PreLockValidator preLockValidator;
+
+    @Mock
+    private BalanceStripes balanceStripes;
+
+    @Mock
+    private GroupCommitService groupCommitService;
+
+    @Mock
+    private MethodSignature methodSignature;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
@@ -60,4 +85,120 @@ class LockAopAspectTest {
 //        assertEquals("54321", lockArgumentCaptor.getValue());
 //        assertEquals("54321", unlockArgumentCaptor.getValue());
 //    }
-}
\ No newline at end of file
+
+    @Test
+    void lockWithAnnotationAttributes() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) Object.class);
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint,
+                annotation("customLock"), request);
+        //then
+        verify(lockService, times(1)).lock("1234", 500L, 3000L);
+        verify(lockService, times(1)).unlock("1234");
+    }
+
+    @Test
+    void failFastLockWaitsZero() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) Object.class);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        //when
+        assertThrows(AccountException.class, () -> lockAopAspect.aroundMethod(
+                proceedingJoinPoint, annotation("failFastLock"), request));
+        //then
+        verify(lockService, times(1)).lock("1234", 0L, 15000L);
+        verify(lockService, times(1)).unlock("1234");
+    }
+
+    @Test
+    void asyncMethodLocksWithoutBlocking() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        CompletableFuture<Void> locked = new CompletableFuture<>();
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) CompletableFuture.class);
+        given(lockService.lockAsync(anyString(), anyLong(), anyLong())).willReturn(locked);
+        given(proceedingJoinPoint.proceed()).willReturn(response);
+        //when
+        CompletableFuture<?> result = (CompletableFuture<?>) lockAopAspect.aroundMethod(
+                proceedingJoinPoint, annotation("customLock"), request);
+        //then
+        assertFalse(result.isDone());
+        verify(proceedingJoinPoint, never()).proceed();
+        locked.complete(null);
+        response.complete("ok");
+        assertEquals("ok", result.join());
+        verify(lockService, times(1)).unlock("1234");
+    }
+
+    @Test
+    void rejectBeforeLockWhenPreValidationFails() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) Object.class);
+        willThrow(new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH))
+                .given(preLockValidator).validate(request);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint,
+                        annotation("customLock"), request));
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    void stripedCancelLocksSlotInsteadOfAccount() throws Throwable {
+        //given
+        CancelBalance.Request request =
+                new CancelBalance.Request("transactionId", "1234", 1000L);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) Object.class);
+        given(balanceStripes.stripesCredits("1234")).willReturn(true);
+        given(balanceStripes.slotLockKey("1234", "transactionId")).willReturn("1234:3");
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, annotation("customLock"), request);
+        //then
+        verify(lockService, times(1)).lock("1234:3", 500L, 3000L);
+        verify(lockService, times(1)).unlock("1234:3");
+        verify(lockService, never()).lock(eq("1234"), anyLong(), anyLong());
+        verify(preLockValidator, times(1)).onChanged("1234");
+    }
+
+    @Test
+    void skipLockWhenGroupCommitLeaderLocks() throws Throwable {
+        //given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn((Class) Object.class);
+        given(groupCommitService.coalesces(request)).willReturn(true);
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, annotation("customLock"), request);
+        //then
+        verify(preLockValidator, times(1)).validate(request);
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(lockService, never()).lock(anyString(), anyLong(), anyLong());
+    }
+
+    private static AccountLock annotation(String methodName) throws NoSuchMethodException {
+        return LockAopAspectTest.class.getDeclaredMethod(methodName)
+                .getAnnotation(AccountLock.class);
+    }
+
+    @AccountLock(waitTime = 500L, leaseTime = 3000L)
+    private static void customLock() {
+    }
+
+    @AccountLock(failFast = true)
+    private static void failFastLock() {
+    }
+}
@@ -1,37 +1,52 @@
 package com.example.account.service;
 
 import com.example.account.exception.AccountException;
+import com.example.account.lock.LockProvider;
+import com.example.account.metrics.HotAccountDetector;
+import com.example.account.metrics.LockMetrics;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 public class LockServiceTest {
     @Mock
-    private RedissonClient redissonClient;
+    private LockProvider lockProvider;
 
-    @Mock
-    private RLock rLock;
+    private LocalLockTier localLockTier;
+
+    private LockMetrics lockMetrics;
 
-    @InjectMocks
     private LockService lockService;
 
+    @BeforeEach
+    void setUp() {
+        localLockTier = new LocalLockTier(16);
+        lockMetrics = new LockMetrics(new SimpleMeterRegistry(),
+                new HotAccountDetector(60L, 10, 100));
+        lockService = new LockService(lockProvider, localLockTier, lockMetrics);
+    }
+
     @Test
-    void successGetLock() throws InterruptedException {
+    void successGetLock() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(true);
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
         //when
 
         //then
@@ -39,16 +54,130 @@ public class LockServiceTest {
     }
 
     @Test
-    void failGetLock() throws InterruptedException {
+    void failGetLock() {
         //given
-        given(redissonClient.getLock(anyString()))
-                .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(false);
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(false));
         //when
         AccountException exception = assertThrows(AccountException.class,
                 () -> lockService.lock("123"));
         //then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertNull(localLockTier.current("123"));
+        assertEquals(1, lockMetrics.getCount(LockOutcome.REDIS_TIMEOUT));
+    }
+
+    @Test
+    void releaseDistributedLockWithoutLocalWaiter() {
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        //when
+        lockService.lock("123");
+        lockService.unlock("123");
+        //then
+        verify(lockProvider, times(1)).unlockAsync("ACLK123", LockService.LOCAL_TIER_OWNER_ID);
+        assertEquals(0, localLockTier.getHandoffHits());
+        assertNull(localLockTier.current("123"));
+    }
+
+    @Test
+    void handoffDistributedLockToLocalWaiter() throws Exception {
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        lockService.lock("123");
+        //when
+        Future<?> waiter = executor.submit(() -> {
+            lockService.lock("123");
+            lockService.unlock("123");
+        });
+        while (!localLockTier.current("123").hasWaiters()) {
+            Thread.sleep(5L);
+        }
+        lockService.unlock("123");
+        waiter.get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+        //then
+        verify(lockProvider, times(1)).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+        verify(lockProvider, times(1)).unlockAsync("ACLK123", LockService.LOCAL_TIER_OWNER_ID);
+        assertEquals(1, localLockTier.getHandoffHits());
+        assertEquals(0.5, localLockTier.getHandoffHitRate());
+        assertEquals(1, lockMetrics.getCount(LockOutcome.HANDOFF));
+        assertEquals(2, lockMetrics.getHoldTimer().count());
+    }
+
+    @Test
+    void failFastWhenLocalLockIsHeld() {
+        //given
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        lockService.lock("123");
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("123", 0L, 15000L));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(1, lockMetrics.getCount(LockOutcome.LOCAL_TIMEOUT));
+    }
+
+    @Test
+    void lockAsyncWaitsWithoutBlockingCaller() {
+        //given
+        CompletableFuture<Boolean> providerResult = new CompletableFuture<>();
+        given(lockProvider.tryLockAsync(anyString(), anyLong(), anyLong(), anyLong()))
+                .willReturn(providerResult);
+        //when
+        CompletableFuture<Void> locked = lockService.lockAsync("123", 1000L, 5000L);
+        //then
+        assertFalse(locked.isDone());
+        providerResult.complete(true);
+        assertDoesNotThrow(() -> locked.join());
+        verify(lockProvider, times(1))
+                .tryLockAsync(eq("ACLK123"), anyLong(), anyLong(), eq(5000L));
+    }
+
+    @Test
+    void lockAllInOneDistributedRequest() {
+        //given
+        given(lockProvider.tryLockAllAsync(anyList(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+        given(lockProvider.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        //when
+        lockService.lockAll(List.of("456", "123"), 1000L, 15000L);
+        //then
+        // 계좌번호 순서로 한 번에 취득한다.
+        verify(lockProvider, times(1)).tryLockAllAsync(eq(List.of("ACLK123", "ACLK456")),
+                eq(LockService.LOCAL_TIER_OWNER_ID), anyLong(), eq(15000L));
+        verify(lockProvider, never()).tryLockAsync(anyString(), anyLong(), anyLong(), anyLong());
+        assertTrue(localLockTier.current("123").isLocked());
+        assertTrue(localLockTier.current("456").isLocked());
+        assertEquals(2, localLockTier.getDistributedAcquires());
+
+        lockService.unlockAll(List.of("456", "123"));
+        assertNull(localLockTier.current("123"));
+        assertNull(localLockTier.current("456"));
+        verify(lockProvider, times(2)).unlockAsync(anyString(), eq(LockService.LOCAL_TIER_OWNER_ID));
+    }
+
+    @Test
+    void releaseLocalLocksWhenLockAllFails() {
+        //given
+        given(lockProvider.tryLockAllAsync(anyList(), anyLong(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(false));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lockAll(List.of("123", "456"), 1000L, 15000L));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertNull(localLockTier.current("123"));
+        assertNull(localLockTier.current("456"));
+        assertEquals(2, lockMetrics.getCount(LockOutcome.REDIS_TIMEOUT));
     }
 }
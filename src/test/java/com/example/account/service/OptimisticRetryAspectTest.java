@@ -0,0 +1,69 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticRetryAspectTest {
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Test
+    void retryUntilSuccess() throws Throwable {
+        //given
+        OptimisticRetryAspect aspect =
+                new OptimisticRetryAspect(ConcurrencyMode.OPTIMISTIC, 3, 0L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn("ok");
+        //when
+        Object result = aspect.aroundMethod(proceedingJoinPoint);
+        //then
+        assertEquals("ok", result);
+        verify(proceedingJoinPoint, times(2)).proceed();
+        assertEquals(1, aspect.getConflicts());
+        assertEquals(1, aspect.getRetries());
+    }
+
+    @Test
+    void failWhenRetryExhausted() throws Throwable {
+        //given
+        OptimisticRetryAspect aspect =
+                new OptimisticRetryAspect(ConcurrencyMode.OPTIMISTIC, 2, 0L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> aspect.aroundMethod(proceedingJoinPoint));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+        assertEquals(1, aspect.getExhausted());
+    }
+
+    @Test
+    void noRetryInLockMode() throws Throwable {
+        //given
+        OptimisticRetryAspect aspect =
+                new OptimisticRetryAspect(ConcurrencyMode.LOCK, 3, 0L);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        //when
+        //then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> aspect.aroundMethod(proceedingJoinPoint));
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+}
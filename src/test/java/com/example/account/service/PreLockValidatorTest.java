@@ -0,0 +1,230 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountIndexView;
+import com.example.account.dto.AccountSnapshotView;
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PreLockValidatorTest {
+    @Mock
+    private AccountUserCache accountUserCache;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+    @Mock
+    private BalanceStripes balanceStripes;
+    @Mock
+    private AccountIndex accountIndex;
+
+    private PreLockValidator preLockValidator;
+
+    @BeforeEach
+    void setUp() {
+        preLockValidator = new PreLockValidator(accountUserCache, accountRepository,
+                failedTransactionRecorder, balanceStripes, accountIndex, true, 60000L, 100L);
+    }
+
+    private void givenOwner(Long ownerId) {
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        given(accountUserCache.getUser(anyLong())).willReturn(Optional.of(user));
+        given(accountUserCache.getOwnerId(anyString())).willReturn(Optional.of(ownerId));
+    }
+
+    private static AccountSnapshotView snapshot(AccountStatus status, Long balance) {
+        return new AccountSnapshotView() {
+            @Override
+            public AccountStatus getAccountStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+        };
+    }
+
+    @Test
+    void rejectOwnerMismatchWithoutSnapshot() {
+        //given
+        givenOwner(13L);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L)));
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        verify(failedTransactionRecorder, times(1))
+                .recordUse("1000000000", 1000L, ErrorCode.USER_ACCOUNT_UN_MATCH);
+        verify(accountRepository, never()).findSnapshotByAccountNumber(anyString());
+        assertEquals(1, preLockValidator.getRejected());
+    }
+
+    @Test
+    void rejectInsufficientBalanceConfirmedByFreshRead() {
+        //given
+        givenOwner(12L);
+        given(accountRepository.findSnapshotByAccountNumber(anyString()))
+                .willReturn(Optional.of(snapshot(AccountStatus.IN_USE, 500L)));
+        //when
+        for (int i = 0; i < 3; i++) {
+            AccountException exception = assertThrows(AccountException.class, () ->
+                    preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L)));
+            assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        }
+        //then
+        // 처음에 읽은 스냅샷으로 거절하고, 그 뒤로는 캐시된 스냅샷이 부족하면 다시 읽어 확인한다.
+        verify(accountRepository, times(3)).findSnapshotByAccountNumber("1000000000");
+    }
+
+    @Test
+    void passCreditFromOtherNodeWithinTtl() {
+        //given
+        givenOwner(12L);
+        // 첫 거절 뒤 다른 노드에서 입금이 커밋된다. (이 노드의 스냅샷은 그대로)
+        given(accountRepository.findSnapshotByAccountNumber(anyString()))
+                .willReturn(Optional.of(snapshot(AccountStatus.IN_USE, 500L)),
+                        Optional.of(snapshot(AccountStatus.IN_USE, 5000L)));
+        assertThrows(AccountException.class, () ->
+                preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L)));
+        //when
+        preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L));
+        preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L));
+        //then
+        verify(accountRepository, times(2)).findSnapshotByAccountNumber("1000000000");
+        verify(failedTransactionRecorder, times(1))
+                .recordUse("1000000000", 1000L, ErrorCode.AMOUNT_EXCEED_BALANCE);
+        assertEquals(1, preLockValidator.getRejected());
+    }
+
+    @Test
+    void passAndReloadSnapshotAfterChange() {
+        //given
+        givenOwner(12L);
+        given(accountRepository.findSnapshotByAccountNumber(anyString()))
+                .willReturn(Optional.of(snapshot(AccountStatus.IN_USE, 5000L)));
+        //when
+        preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L));
+        preLockValidator.onChanged("1000000000");
+        preLockValidator.validate(new UseBalance.Request(12L, "1000000000", 1000L));
+        //then
+        verify(accountRepository, times(2)).findSnapshotByAccountNumber("1000000000");
+        verify(failedTransactionRecorder, never()).recordUse(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void rejectCancelOfUnknownAccount() {
+        //given
+        given(accountUserCache.getOwnerId(anyString())).willReturn(Optional.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                preLockValidator.validate(
+                        new CancelBalance.Request("transactionId", "1000000000", 1000L)));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+        verify(failedTransactionRecorder, times(1))
+                .recordCancel("1000000000", 1000L, ErrorCode.ACCOUNT_NOT_FOUND);
+    }
+
+    @Test
+    void rejectFromAccountIndexWithoutSnapshot() {
+        //given
+        AccountIndex enabledIndex = new AccountIndex(accountRepository, true, 1, 16L, false, 100);
+        PreLockValidator validator = new PreLockValidator(accountUserCache, accountRepository,
+                failedTransactionRecorder, balanceStripes, enabledIndex, true, 60000L, 100L);
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        given(accountUserCache.getUser(anyLong())).willReturn(Optional.of(user));
+        given(accountRepository.findIndexViewByAccountNumber("1000000000"))
+                .willReturn(Optional.of(indexView(12L, AccountStatus.IN_USE, 500L)));
+        //when
+        for (int i = 0; i < 3; i++) {
+            AccountException exception = assertThrows(AccountException.class, () ->
+                    validator.validate(new UseBalance.Request(12L, "1000000000", 1000L)));
+            assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        }
+        //then
+        // 색인의 잔액이 부족하면 매번 DB 에서 다시 읽어 확인한다. (처음 채울 때 1번 + 거절마다 1번)
+        verify(accountRepository, times(4)).findIndexViewByAccountNumber("1000000000");
+        verify(accountUserCache, never()).getOwnerId(anyString());
+        verify(accountRepository, never()).findSnapshotByAccountNumber(anyString());
+    }
+
+    @Test
+    void passCreditFromOtherNodeInAccountIndex() {
+        //given
+        AccountIndex enabledIndex = new AccountIndex(accountRepository, true, 1, 16L, false, 100);
+        PreLockValidator validator = new PreLockValidator(accountUserCache, accountRepository,
+                failedTransactionRecorder, balanceStripes, enabledIndex, true, 60000L, 100L);
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        given(accountUserCache.getUser(anyLong())).willReturn(Optional.of(user));
+        // 색인에는 500 이 들어 있고, 다른 노드의 입금으로 DB 는 5000 이다.
+        given(accountRepository.findIndexViewByAccountNumber("1000000000"))
+                .willReturn(Optional.of(indexView(12L, AccountStatus.IN_USE, 500L)),
+                        Optional.of(indexView(12L, AccountStatus.IN_USE, 5000L)));
+        enabledIndex.read("1000000000", new AccountIndex.Entry());
+        //when
+        validator.validate(new UseBalance.Request(12L, "1000000000", 1000L));
+        //then
+        AccountIndex.Entry entry = new AccountIndex.Entry();
+        assertTrue(enabledIndex.read("1000000000", entry));
+        assertEquals(5000L, entry.getBalance());
+        verify(failedTransactionRecorder, never()).recordUse(anyString(), anyLong(), any());
+        assertEquals(0, validator.getRejected());
+    }
+
+    private static AccountIndexView indexView(Long ownerId, AccountStatus status, Long balance) {
+        return new AccountIndexView() {
+            @Override
+            public Long getId() {
+                return 1L;
+            }
+
+            @Override
+            public String getAccountNumber() {
+                return "1000000000";
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public AccountStatus getAccountStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 3L;
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
+import com.example.account.repository.ReactiveTransactionRepository;
+import com.example.account.repository.ReactiveTransactionRepository.AccountRow;
+import com.example.account.repository.ReactiveTransactionRepository.TransactionRow;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.AccountStatus.UNREGISTERED;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTransactionServiceTest {
+    @Mock
+    private ReactiveTransactionRepository reactiveTransactionRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountStateCache accountStateCache;
+    @Mock
+    private AccountIndex accountIndex;
+    @InjectMocks
+    private ReactiveTransactionService reactiveTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("잔액 사용 성공")
+    void successUseBalance() {
+        //given
+        given(reactiveTransactionRepository.existsUserById(anyLong()))
+                .willReturn(Mono.just(true));
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", IN_USE, 10000L, 3L)));
+        given(reactiveTransactionRepository.updateBalance(anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(Mono.just(1L));
+        given(reactiveTransactionRepository.insertTransaction(any()))
+                .willReturn(Mono.just(1L));
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        ArgumentCaptor<TransactionRow> captor = ArgumentCaptor.forClass(TransactionRow.class);
+        //when
+        TransactionDto transactionDto = reactiveTransactionService
+                .useBalance(12L, "1000000012", 200L).block();
+        //then
+        verify(reactiveTransactionRepository, times(1))
+                .updateBalance(eq(1L), eq(3L), eq(9800L), any());
+        verify(reactiveTransactionRepository, times(1)).insertTransaction(captor.capture());
+        assertEquals(USE, captor.getValue().transactionType());
+        assertEquals(9800L, captor.getValue().balanceSnapshot());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals("transactionId", transactionDto.getTransactionId());
+        verify(accountStateCache, times(1)).invalidate("1000000012");
+    }
+
+    @Test
+    @DisplayName("해당 유저 없음 - 잔액 사용 실패")
+    void useBalance_UserNotFound() {
+        //given
+        given(reactiveTransactionRepository.existsUserById(anyLong()))
+                .willReturn(Mono.just(false));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                reactiveTransactionService.useBalance(12L, "1000000012", 200L).block());
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+        verify(reactiveTransactionRepository, never()).findAccountByAccountNumber(anyString());
+    }
+
+    @Test
+    @DisplayName("해지된 계좌 - 잔액 사용 실패")
+    void useBalance_AccountAlreadyUnregistered() {
+        //given
+        given(reactiveTransactionRepository.existsUserById(anyLong()))
+                .willReturn(Mono.just(true));
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", UNREGISTERED, 0L, 3L)));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                reactiveTransactionService.useBalance(12L, "1000000012", 200L).block());
+        //then
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+        verify(reactiveTransactionRepository, never())
+                .updateBalance(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("거래 금액이 잔액보다 큰 경우 - 잔액 사용 실패")
+    void useBalance_ExceedAmount() {
+        //given
+        given(reactiveTransactionRepository.existsUserById(anyLong()))
+                .willReturn(Mono.just(true));
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", IN_USE, 100L, 3L)));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                reactiveTransactionService.useBalance(12L, "1000000012", 200L).block());
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래와 계좌가 매칭 실패 - 잔액 사용 취소 실패")
+    void cancelTransaction_TransactionAccountUnMatch() {
+        //given
+        given(reactiveTransactionRepository.findTransactionByTransactionId(anyString()))
+                .willReturn(Mono.just(new TransactionRow(USE, S, 2L, "1000000013", 1000L,
+                        9000L, "transactionId", LocalDateTime.now())));
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", IN_USE, 10000L, 3L)));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                reactiveTransactionService.cancelBalance("transactionId", "1000000012", 1000L)
+                        .block());
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("이체 거래는 취소 불가 - 잔액 사용 취소 실패")
+    void cancelTransaction_TransferNotCancelable() {
+        //given
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", IN_USE, 10000L, 3L)));
+        for (TransactionType transactionType : List.of(TRANSFER_OUT, TRANSFER_IN)) {
+            given(reactiveTransactionRepository.findTransactionByTransactionId(anyString()))
+                    .willReturn(Mono.just(new TransactionRow(transactionType, S, 1L, "1000000012",
+                            1000L, 9000L, "transactionId", LocalDateTime.now())));
+            //when
+            AccountException exception = assertThrows(AccountException.class, () ->
+                    reactiveTransactionService.cancelBalance("transactionId", "1000000012", 1000L)
+                            .block());
+            //then
+            assertEquals(ErrorCode.TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+        }
+        verify(reactiveTransactionRepository, never())
+                .updateBalance(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소 성공")
+    void successCancelBalance() {
+        //given
+        given(reactiveTransactionRepository.findTransactionByTransactionId(anyString()))
+                .willReturn(Mono.just(new TransactionRow(USE, S, 1L, "1000000012", 1000L,
+                        9000L, "transactionId", LocalDateTime.now())));
+        given(reactiveTransactionRepository.findAccountByAccountNumber(anyString()))
+                .willReturn(Mono.just(new AccountRow(1L, 12L, "1000000012", IN_USE, 9000L, 4L)));
+        given(reactiveTransactionRepository.updateBalance(anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(Mono.just(1L));
+        given(reactiveTransactionRepository.insertTransaction(any()))
+                .willReturn(Mono.just(1L));
+        given(transactionIdGenerator.generate()).willReturn("cancelTransactionId");
+        //when
+        TransactionDto transactionDto = reactiveTransactionService
+                .cancelBalance("transactionId", "1000000012", 1000L).block();
+        //then
+        verify(reactiveTransactionRepository, times(1))
+                .updateBalance(eq(1L), eq(4L), eq(10000L), any());
+        assertEquals(CANCEL, transactionDto.getTransactionType());
+        assertEquals(10000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("원 사용 거래 없음 - 거래 확인 실패")
+    void queryTransaction_TransactionNotFound() {
+        //given
+        given(reactiveTransactionRepository.findTransactionByTransactionId(anyString()))
+                .willReturn(Mono.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                reactiveTransactionService.queryTransaction("transactionId").block());
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+    }
+}
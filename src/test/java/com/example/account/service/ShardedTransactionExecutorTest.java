@@ -0,0 +1,122 @@
+package com.example.account.service;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.type.ConcurrencyMode;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ShardedTransactionExecutorTest {
+    private ShardedTransactionExecutor executor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void runSameAccountInSubmitOrder() {
+        //given
+        executor = new ShardedTransactionExecutor(4, 100, ConcurrencyMode.LOCK);
+        List<Integer> applied = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        //when
+        for (int i = 0; i < 50; i++) {
+            int order = i;
+            futures.add(executor.submit("1000000000", () -> {
+                applied.add(order);
+                return order;
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+        //then
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, applied.get(i));
+        }
+    }
+
+    @Test
+    void rejectWhenMailboxIsFull() throws Exception {
+        //given
+        executor = new ShardedTransactionExecutor(1, 1, ConcurrencyMode.LOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit("1000000000", () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        executor.submit("1000000000", () -> null);
+        //when
+        CompletableFuture<Object> rejected = executor.submit("1000000000", () -> null);
+        release.countDown();
+        //then
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        assertEquals(1, executor.getRejected());
+    }
+
+    @Test
+    void keepControllerLatencyOffTheShard() throws Exception {
+        //given
+        // 두 계좌가 같은 shard 를 쓰지만, 컨트롤러의 대기(3초)는 요청 스레드에서 하므로 서로 기다리지 않는다.
+        executor = new ShardedTransactionExecutor(1, 10, ConcurrencyMode.SHARDED);
+        TransactionService transactionService = mock(TransactionService.class);
+        List<String> shardThreads = new CopyOnWriteArrayList<>();
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willAnswer(invocation -> {
+                    shardThreads.add(Thread.currentThread().getName());
+                    return TransactionDto.builder()
+                            .accountNumber(invocation.getArgument(1))
+                            .transactionResultType(S)
+                            .amount(invocation.getArgument(2))
+                            .transactionId("transactionId")
+                            .transactedAt(LocalDateTime.now())
+                            .build();
+                });
+        TransactionController controller = new TransactionController(transactionService,
+                executor, mock(FailedTransactionRecorder.class),
+                mock(FailedTransactionRollupStore.class), mock(BatchTransactionService.class),
+                mock(TransferService.class), mock(GroupCommitService.class),
+                mock(LedgerEngine.class));
+        ExecutorService requestThreads = Executors.newFixedThreadPool(2);
+        //when
+        long started = System.nanoTime();
+        Future<UseBalance.Response> first = requestThreads.submit(() -> controller.useBalance(
+                new UseBalance.Request(1L, "1000000000", 100L)));
+        Future<UseBalance.Response> second = requestThreads.submit(() -> controller.useBalance(
+                new UseBalance.Request(1L, "1000000001", 200L)));
+        first.get();
+        second.get();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        requestThreads.shutdown();
+        //then
+        assertTrue(elapsedMillis < 5000L, "elapsed " + elapsedMillis + "ms");
+        assertEquals(List.of("account-shard-0", "account-shard-0"), shardThreads);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.journal.JournalEntry;
+import com.example.account.journal.JournalRecord;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.repository.TransactionJournalCommitRepository;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalApplierTest {
+    @Mock
+    private TransactionJournal transactionJournal;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private TransactionJournalCommitRepository transactionJournalCommitRepository;
+
+    private TransactionJournalApplier applier() {
+        return new TransactionJournalApplier(transactionJournal, transactionService,
+                transactionJournalCommitRepository, 100, 10L);
+    }
+
+    private static JournalRecord record(String transactionId) {
+        return new JournalRecord(TransactionType.USE, TransactionResultType.S, 1L, 1000L, 9000L,
+                transactionId, LocalDateTime.now());
+    }
+
+    @Test
+    void replayCommittedAndInDoubtCommittedEntries() {
+        //given
+        TransactionJournalApplier applier = applier();
+        JournalRecord committed = record("committed");
+        JournalRecord inDoubtCommitted = record("inDoubtCommitted");
+        JournalRecord inDoubtRolledBack = record("inDoubtRolledBack");
+        given(transactionJournal.getJournalId()).willReturn("journal");
+        given(transactionJournal.takeRecovered()).willReturn(List.of(
+                new JournalEntry(1L, List.of(committed), false),
+                new JournalEntry(2L, List.of(inDoubtCommitted), true),
+                new JournalEntry(4L, List.of(inDoubtRolledBack), true)));
+        given(transactionJournal.getRecoveredThrough()).willReturn(5L);
+        // seq 2 는 커밋 표시와 함께 커밋되었고, seq 4 는 저널 fsync 뒤 DB 커밋 전에 종료되었다.
+        given(transactionJournalCommitRepository.existsByJournalIdAndSeq("journal", 2L))
+                .willReturn(true);
+        given(transactionJournalCommitRepository.existsByJournalIdAndSeq("journal", 4L))
+                .willReturn(false);
+        //when
+        applier.replay();
+        //then
+        verify(transactionService, times(1))
+                .saveJournaledTransactions(List.of(committed, inDoubtCommitted));
+        verify(transactionJournal, times(1)).markApplied(5L);
+        verify(transactionJournalCommitRepository, times(1)).deleteThrough("journal", 5L);
+        verify(transactionJournalCommitRepository, never()).existsByJournalIdAndSeq("journal", 1L);
+        assertEquals(2, applier.getApplied());
+    }
+
+    @Test
+    void advanceCheckpointOnlyOverContiguousSeqs() throws Exception {
+        //given
+        TransactionJournalApplier applier = applier();
+        JournalRecord first = record("first");
+        JournalRecord third = record("third");
+        applier.committed(1L, List.of(first));
+        applier.committed(3L, List.of(third));
+        assertEquals(first, applier.findUnapplied("first"));
+        //when
+        applier.apply(List.of(new TransactionJournalApplier.Event(1L, List.of(first), false),
+                new TransactionJournalApplier.Event(3L, List.of(third), false)));
+        applier.apply(List.of(new TransactionJournalApplier.Event(2L, List.of(), false)));
+        //then
+        verify(transactionService, times(1)).saveJournaledTransactions(List.of(first, third));
+        verify(transactionJournal, times(1)).markApplied(1L);
+        verify(transactionJournal, times(1)).markApplied(3L);
+        verify(transactionJournal, never()).markApplied(2L);
+        assertNull(applier.findUnapplied("first"));
+        assertEquals(0, applier.getUnappliedSize());
+        verify(transactionJournalCommitRepository, never()).existsByJournalIdAndSeq(any(), anyLong());
+        verify(transactionJournalCommitRepository, times(1)).deleteThrough(any(), eq(1L));
+        verify(transactionJournalCommitRepository, times(1)).deleteThrough(any(), eq(3L));
+    }
+}
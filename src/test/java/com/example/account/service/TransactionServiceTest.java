@@ -3,13 +3,20 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountOperation;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransferDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.id.TransactionIdGenerator;
+import com.example.account.index.AccountIndex;
 import com.example.account.repository.AccountRepository;
-import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,16 +27,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.IN_USE;
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.TRANSFER_IN;
+import static com.example.account.type.TransactionType.TRANSFER_OUT;
 import static com.example.account.type.TransactionType.USE;
 import static org.mockito.ArgumentMatchers.*;
 import static org.awaitility.Awaitility.given;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.mockito.BDDMockito.given;
@@ -41,9 +52,17 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     @Mock
-    private AccountUserRepository accountUserRepository;
+    private AccountUserCache accountUserCache;
     @Mock
     private AccountRepository accountRepository;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountStateCache accountStateCache;
+    @Mock
+    private BalanceStripes balanceStripes;
+    @Mock
+    private AccountIndex accountIndex;
     @InjectMocks
     private TransactionService transactionService;
 
@@ -60,7 +79,7 @@ class TransactionServiceTest {
                 .accountStatus(IN_USE)
                 .balance(10000L)
                 .accountNumber("1000000012").build();
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
@@ -91,11 +110,41 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("잔액 사용 성공 - 캐시된 계좌 상태 사용")
+    void successUseBalanceWithCachedAccountState() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountStateCache.get(anyString()))
+                .willReturn(new AccountStateCache.AccountState(1L, 12L, IN_USE, 10000L, 3L));
+        given(accountRepository.updateBalance(anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(1L,
+                "1000000000", USE_AMOUNT);
+
+        //then
+        verify(accountRepository, times(1)).updateBalance(eq(1L), eq(3L),
+                eq(10000L - USE_AMOUNT), any());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(10000L - USE_AMOUNT, transactionDto.getBalanceSnapshot());
+        assertEquals(S, transactionDto.getTransactionResultType());
+    }
+
     @Test
     @DisplayName("잔액 사용 실패 - 해당 유저 없음")
     void useBalanceFail_UserNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -111,7 +160,7 @@ class TransactionServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
@@ -134,7 +183,7 @@ class TransactionServiceTest {
         AccountUser harry = AccountUser.builder()
                 .name("Harry").build();
         harry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -157,7 +206,7 @@ class TransactionServiceTest {
                 .name("Pobi").build();
         pobi.setId(12L);
         // 사용자 정상 조회됨
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(pobi));
         // 사용자 계좌가 unregistered 상태임
         given(accountRepository.findByAccountNumber(anyString()))
@@ -190,7 +239,7 @@ class TransactionServiceTest {
                 .balance(100L)
                 .accountNumber("1000000012").build();
         // 사용자 정상 조회
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserCache.getUser(anyLong()))
                 .willReturn(Optional.of(user));
         // 계좌 정상 조회
         given(accountRepository.findByAccountNumber(anyString()))
@@ -249,6 +298,201 @@ class TransactionServiceTest {
         assertEquals(F, captor.getValue().getTransactionResultType());
     }
 
+    @Test
+    @DisplayName("실패 거래 일괄 저장 - 없는 계좌는 제외")
+    void saveFailedTransactions() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(account));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        int saved = transactionService.saveFailedTransactions(List.of(
+                new FailedTransaction(USE, "1000000012", USE_AMOUNT, null, null),
+                new FailedTransaction(CANCEL, "1000000012", CANCEL_AMOUNT, null, null),
+                new FailedTransaction(USE, "9999999999", USE_AMOUNT, null, null)));
+
+        //then
+        assertEquals(2, saved);
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        verify(transactionRepository, times(1)).flush();
+        assertEquals(USE, captor.getValue().get(0).getTransactionType());
+        assertEquals(CANCEL, captor.getValue().get(1).getTransactionType());
+        assertEquals(F, captor.getValue().get(1).getTransactionResultType());
+        assertEquals(CANCEL_AMOUNT, captor.getValue().get(1).getAmount());
+    }
+
+    @Test
+    @DisplayName("계좌 하나의 잔액 사용 일괄 - 건별 검증 후 성공 건만 저장")
+    void useBalanceGroup() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.generate()).willReturn("transactionId");
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        List<UseBalanceBatch.Result> results = transactionService.useBalanceGroup("1000000012",
+                List.of(new UseBalance.Request(12L, "1000000012", 600L),
+                        new UseBalance.Request(12L, "1000000012", 600L),
+                        new UseBalance.Request(12L, "1000000012", 400L)));
+
+        //then
+        assertEquals(S, results.get(0).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(S, results.get(2).getTransactionResult());
+        assertEquals(0L, account.getBalance());
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(400L, captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(0L, captor.getValue().get(1).getBalanceSnapshot());
+        verify(accountStateCache, times(1)).putAfterCommit(account);
+    }
+
+    @Test
+    @DisplayName("묶음 처리 - 잔액 사용과 취소를 순서대로 적용하고 한 번에 저장")
+    void applyGroupInOrder() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012").build();
+        Transaction used = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("usedTransactionId")
+                .transactedAt(LocalDateTime.now())
+                .amount(500L)
+                .balanceSnapshot(1000L)
+                .build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountUserCache.getUser(12L)).willReturn(Optional.of(user));
+        given(transactionRepository.findByTransactionId("usedTransactionId"))
+                .willReturn(Optional.of(used));
+
+        //when
+        List<AccountOperation.Result> results = transactionService.applyGroup("1000000012",
+                List.of(AccountOperation.use(12L, "1000000012", 800L),
+                        AccountOperation.use(12L, "1000000012", 800L),
+                        AccountOperation.cancel("usedTransactionId", "1000000012", 500L)));
+
+        //then
+        assertEquals(200L, results.get(0).transaction().getBalanceSnapshot());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).errorCode());
+        assertEquals(CANCEL, results.get(2).transaction().getTransactionType());
+        assertEquals(700L, results.get(2).transaction().getBalanceSnapshot());
+        assertEquals(700L, account.getBalance());
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("계좌 이체 성공")
+    void successTransfer() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(to));
+        given(transactionIdGenerator.generate()).willReturn("withdrawId", "depositId");
+
+        //when
+        TransferDto transferDto = transactionService.transfer(12L,
+                "1000000012", "1000000013", 3000L);
+
+        //then
+        assertEquals(7000L, from.getBalance());
+        assertEquals(3500L, to.getBalance());
+        assertEquals(TRANSFER_OUT, transferDto.getWithdraw().getTransactionType());
+        assertEquals("withdrawId", transferDto.getWithdraw().getTransactionId());
+        assertEquals(7000L, transferDto.getWithdraw().getBalanceSnapshot());
+        assertEquals(TRANSFER_IN, transferDto.getDeposit().getTransactionType());
+        assertEquals(3500L, transferDto.getDeposit().getBalanceSnapshot());
+        verify(transactionRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("입금 계좌 소유주가 다름 - 계좌 이체 실패")
+    void transferFailed_UserUnMatch() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        AccountUser other = AccountUser.builder()
+                .name("Harry")
+                .build();
+        other.setId(13L);
+        Account from = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Account to = Account.builder()
+                .accountUser(other)
+                .accountStatus(IN_USE)
+                .balance(500L)
+                .accountNumber("1000000013").build();
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000012"))
+                .willReturn(Optional.of(from));
+        given(accountRepository.findByAccountNumber("1000000013"))
+                .willReturn(Optional.of(to));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                transactionService.transfer(12L, "1000000012", "1000000013", 3000L));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        assertEquals(10000L, from.getBalance());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
     @Test
     @DisplayName("잔액 사용 취소 성공")
     void successCancelBalance() {
@@ -306,6 +550,121 @@ class TransactionServiceTest {
         assertEquals(CANCEL_AMOUNT, transactionDto.getAmount());
     }
 
+    @Test
+    @DisplayName("분할 계좌 잔액 사용 취소 - 계좌 row 대신 slot 에 입금")
+    void cancelBalanceToSlotForStripedAccount() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .amount(CANCEL_AMOUNT)
+                .balanceSnapshot(9000L)
+                .build();
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(balanceStripes.stripesCredits("1000000012")).willReturn(true);
+        given(balanceStripes.slotOf("transactionId")).willReturn(3);
+        given(balanceStripes.slotBalance(account)).willReturn(CANCEL_AMOUNT);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        //when
+        transactionService.cancelBalance("transactionId", "1000000012", CANCEL_AMOUNT);
+
+        //then
+        verify(balanceStripes, times(1)).credit(account, 3, CANCEL_AMOUNT);
+        assertEquals(10000L, account.getBalance());
+        verify(accountStateCache, never()).putAfterCommit(any(Account.class));
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(10000L + CANCEL_AMOUNT, captor.getValue().getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("분할 계좌 잔액 사용 - 계좌 row 잔액이 부족하면 slot 잔액을 모아서 사용")
+    void useBalanceCombinesSlotsWhenShort() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+        given(accountUserCache.getUser(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(balanceStripes.combine(account)).willAnswer(invocation -> {
+            account.setBalance(account.getBalance() + 5000L);
+            return 5000L;
+        });
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000012", 1000L);
+
+        //then
+        assertEquals(4100L, account.getBalance());
+        assertEquals(4100L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소 실패 - 이체 거래는 취소할 수 없음")
+    void cancelBalanceFail_TransferNotCancelable() {
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012").build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        for (TransactionType transactionType : List.of(TRANSFER_OUT, TRANSFER_IN)) {
+            given(transactionRepository.findByTransactionId(anyString()))
+                    .willReturn(Optional.of(Transaction.builder()
+                            .account(account)
+                            .transactionType(transactionType)
+                            .transactionResultType(S)
+                            .transactionId("transactionId")
+                            .transactedAt(LocalDateTime.now())
+                            .amount(1000L)
+                            .balanceSnapshot(9000L)
+                            .build()));
+
+            //when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> transactionService.cancelBalance("transactionId", "1000000012", 1000L));
+
+            //then
+            assertEquals(ErrorCode.TRANSACTION_NOT_CANCELABLE, exception.getErrorCode());
+        }
+        assertEquals(10000L, account.getBalance());
+        verify(transactionRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("잔액 사용 취소 실패 - 해당 계좌 없음")
     void cancelBalanceFail_AccountNotFound() {